@@ -0,0 +1,220 @@
+package com.example.recetarioapp.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.repository.remote.CambiosRemotos;
+import com.example.recetarioapp.repository.remote.InMemoryRecetaSource;
+import com.example.recetarioapp.repository.remote.RemoteRecetaSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.recetarioapp.models.RecetasDePrueba.receta;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+//Descarga y escucha en tiempo real sobre RecetaDAO (Room en memoria): InMemoryRecetaSource
+//hace de Firestore y los snapshots y páginas se aplican con fusionarRemotas/aplicarCambiosRemotos
+@RunWith(AndroidJUnit4.class)
+public class FusionTiempoRealTest {
+
+    private static final String USUARIO = "usuario";
+    private static final long ESPERA_MS = 2_000;
+
+    private RecetasBD bd;
+    private RecetaDAO recetaDAO;
+    private InMemoryRecetaSource remoto;
+    private BlockingQueue<CambiosRemotos> lotes;
+    private RemoteRecetaSource.Suscripcion suscripcion;
+
+    @Before
+    public void preparar() {
+        Context contexto = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        bd = Room.inMemoryDatabaseBuilder(contexto, RecetasBD.class).allowMainThreadQueries().build();
+        recetaDAO = bd.recetaDAO();
+        remoto = new InMemoryRecetaSource(USUARIO, 0, 0, 50, 1);
+        lotes = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void cerrar() {
+        if (suscripcion != null) suscripcion.cancelar();
+        bd.close();
+    }
+
+    @Test
+    public void primerSnapshot_traeLoEscritoDesdeLaMarca() throws Exception {
+        remoto.sembrar(Collections.singletonList(receta("Antigua", 1_000)));
+        String nueva = remoto.sembrar(Collections.singletonList(receta("Nueva", 2_000))).get(0);
+        long marca = horaServidor(nueva);
+
+        suscripcion = remoto.escucharCambios(marca, lotes::add, FusionTiempoRealTest::errorInesperado);
+        CambiosRemotos inicial = siguienteLote();
+        assertEquals(1, inicial.getModificadas().size());
+        assertEquals(nueva, inicial.getModificadas().get(0).getFirebaseId());
+    }
+
+    @Test
+    public void ediciones_borradosYRepetidos_seFusionanPorLotes() throws Exception {
+        String id = remoto.sembrar(Collections.singletonList(receta("Tarta", 1_000))).get(0);
+        suscripcion = remoto.escucharCambios(0, lotes::add, FusionTiempoRealTest::errorInesperado);
+
+        //Alta
+        assertEquals(1, aplicar(siguienteLote()).insertadas);
+        recetaDAO.actualizarFavoritas(recetaDAO.getIdsPorFirebaseId(Collections.singletonList(id)), true);
+
+        //Otro dispositivo edita el contenido: se actualiza conservando el favorito local
+        subir(OperacionPendiente.ACTUALIZAR, id, receta("Tarta de queso", 2_000));
+        assertEquals(1, aplicar(siguienteLote()).actualizadas);
+        assertEquals("Tarta de queso", local(id).getNombre());
+        assertTrue(local(id).isFav());
+
+        //Mismo contenido con fecha posterior: solo avanza la fecha
+        subir(OperacionPendiente.ACTUALIZAR, id, receta("Tarta de queso", 3_000));
+        RecetaDAO.ResultadoFusion soloFecha = aplicar(siguienteLote());
+        assertEquals(0, soloFecha.actualizadas);
+        assertEquals(1, soloFecha.omitidas);
+        assertEquals(3_000, local(id).getFechaModificacion().getTime());
+
+        //Una versión anterior a la local se omite
+        subir(OperacionPendiente.ACTUALIZAR, id, receta("Tarta vieja", 500));
+        assertEquals(1, aplicar(siguienteLote()).omitidas);
+        assertEquals("Tarta de queso", local(id).getNombre());
+
+        //Borrado remoto: llega como lápida entre las modificadas
+        subir(OperacionPendiente.ELIMINAR, id, null);
+        CambiosRemotos borrado = siguienteLote();
+        assertTrue(borrado.getModificadas().get(0).isEliminadaRemota());
+        assertEquals(1, aplicar(borrado).eliminadas);
+        assertNull(local(id));
+    }
+
+    @Test
+    public void borradoDeDocumentoAnteriorALaMarca_llegaALaDescargaIncremental() throws Exception {
+        String antigua = remoto.sembrar(Collections.singletonList(receta("Antigua", 1_000))).get(0);
+        String reciente = remoto.sembrar(Collections.singletonList(receta("Reciente", 2_000))).get(0);
+
+        //Descarga completa: la marca queda en el documento más reciente
+        assertEquals(2, recetaDAO.fusionarRemotas(descargar(0)).insertadas);
+        long marca = horaServidor(reciente);
+        assertTrue(horaServidor(antigua) < marca);
+
+        //Otro dispositivo borra la receta anterior a la marca
+        subir(OperacionPendiente.ELIMINAR, antigua, null);
+
+        //La lápida lleva hora del servidor nueva: entra en la descarga desde la marca
+        assertEquals(1, recetaDAO.fusionarRemotas(descargar(marca)).eliminadas);
+        assertNull(local(antigua));
+        assertNotNull(local(reciente));
+
+        //Y también en la escucha que reanuda desde la marca
+        suscripcion = remoto.escucharCambios(marca, lotes::add, FusionTiempoRealTest::errorInesperado);
+        boolean lapida = false;
+        for (Receta receta : siguienteLote().getModificadas()) {
+            lapida |= antigua.equals(receta.getFirebaseId()) && receta.isEliminadaRemota();
+        }
+        assertTrue(lapida);
+    }
+
+    @Test
+    public void borradoLocalPendiente_noSeReinserta() throws Exception {
+        String id = remoto.sembrar(Collections.singletonList(receta("Flan", 1_000))).get(0);
+        bd.operacionPendienteDAO().guardar(new OperacionPendiente(99, id, OperacionPendiente.ELIMINAR, USUARIO));
+
+        suscripcion = remoto.escucharCambios(0, lotes::add, FusionTiempoRealTest::errorInesperado);
+        RecetaDAO.ResultadoFusion resultado = aplicar(siguienteLote());
+        assertEquals(0, resultado.insertadas);
+        assertEquals(1, resultado.omitidas);
+        assertNull(local(id));
+    }
+
+    @Test
+    public void trasCancelar_noLleganMasCambios() throws Exception {
+        String id = remoto.sembrar(Collections.singletonList(receta("Sopa", 1_000))).get(0);
+        suscripcion = remoto.escucharCambios(0, lotes::add, FusionTiempoRealTest::errorInesperado);
+        siguienteLote();
+
+        suscripcion.cancelar();
+        subir(OperacionPendiente.ACTUALIZAR, id, receta("Sopa fría", 2_000));
+        assertNull(lotes.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    //==================== UTILIDADES ====================
+
+    private RecetaDAO.ResultadoFusion aplicar(CambiosRemotos cambios) {
+        return recetaDAO.aplicarCambiosRemotos(cambios.getModificadas(), cambios.getEliminadas());
+    }
+
+    private Receta local(String firebaseId) {
+        return recetaDAO.getRecetaByFirebaseId(firebaseId);
+    }
+
+    private CambiosRemotos siguienteLote() throws InterruptedException {
+        CambiosRemotos cambios = lotes.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("No llegó ningún snapshot", cambios);
+        return cambios;
+    }
+
+    //Hora del servidor con la que quedó guardado un documento
+    private long horaServidor(String firebaseId) throws InterruptedException {
+        for (Receta receta : descargar(0)) {
+            if (firebaseId.equals(receta.getFirebaseId())) return receta.getActualizadoServidor().getTime();
+        }
+        throw new AssertionError("No existe " + firebaseId);
+    }
+
+    //Primera página de la descarga desde una marca (las pruebas caben en una página)
+    private List<Receta> descargar(long desde) throws InterruptedException {
+        BlockingQueue<List<Receta>> paginas = new LinkedBlockingQueue<>();
+        remoto.descargarRecetasUsuario(desde, (recetas, numeroPagina, hayMas, procesada) -> paginas.add(recetas),
+                FusionTiempoRealTest::errorInesperado);
+        List<Receta> pagina = paginas.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("La descarga no respondió", pagina);
+        return pagina;
+    }
+
+    //Escritura de "otro dispositivo": un lote con una operación (set() completo al no haber huella)
+    private void subir(String tipo, String firebaseId, Receta receta) throws InterruptedException {
+        OperacionPendiente operacion = new OperacionPendiente(1, firebaseId, tipo, USUARIO);
+        Map<Long, Receta> recetas = new HashMap<>();
+        if (receta != null) recetas.put(1L, receta);
+        BlockingQueue<String> resultado = new LinkedBlockingQueue<>();
+        remoto.enviarLote(Collections.singletonList(operacion), recetas, new HashMap<>(),
+                new RemoteRecetaSource.OnLoteListener() {
+                    @Override
+                    public void onEnviado(List<HuellaSincronizada> huellas) {
+                        resultado.add("ok");
+                    }
+
+                    @Override
+                    public void onError(String mensaje, List<String> documentosInexistentes) {
+                        resultado.add(mensaje);
+                    }
+                });
+        assertEquals("ok", resultado.poll(ESPERA_MS, TimeUnit.MILLISECONDS));
+    }
+
+    //Errores de la fuente remota: no se esperan en estas pruebas
+    private static void errorInesperado(String mensaje) {
+        throw new AssertionError(mensaje);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.recetarioapp.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.recetarioapp.models.Receta;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+//Recuento de referencias de la tabla imagenes (RecetaDAO sobre Room en memoria)
+@RunWith(AndroidJUnit4.class)
+public class ImagenReferenciasTest {
+
+    private static final String HASH_A = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    private static final String HASH_B = "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb";
+
+    private RecetasBD bd;
+    private RecetaDAO recetaDAO;
+    private ImagenDAO imagenDAO;
+
+    @Before
+    public void crearBd() {
+        Context contexto = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        bd = Room.inMemoryDatabaseBuilder(contexto, RecetasBD.class).allowMainThreadQueries().build();
+        recetaDAO = bd.recetaDAO();
+        imagenDAO = bd.imagenDAO();
+        imagenDAO.registrarImportacion(HASH_A, "origenA");
+        imagenDAO.registrarImportacion(HASH_B, "origenB");
+    }
+
+    @After
+    public void cerrarBd() {
+        bd.close();
+    }
+
+    @Test
+    public void insertar_sumaUnaReferenciaPorReceta() {
+        recetaDAO.insert(receta("Tarta", HASH_A));
+        recetaDAO.insert(receta("Flan", HASH_A));
+        assertEquals(2, referencias(HASH_A));
+        assertEquals(0, referencias(HASH_B));
+    }
+
+    @Test
+    public void cambiarImagen_trasladaLaReferencia() {
+        Receta receta = receta("Tarta", HASH_A);
+        recetaDAO.insert(receta);
+
+        receta.setImagenPortadaURL(ruta(HASH_B));
+        recetaDAO.update(receta);
+        assertEquals(0, referencias(HASH_A));
+        assertEquals(1, referencias(HASH_B));
+
+        //Guardar sin cambiar la imagen no altera el recuento
+        recetaDAO.update(receta);
+        assertEquals(1, referencias(HASH_B));
+    }
+
+    @Test
+    public void eliminar_restaYNuncaBajaDeCero() {
+        Receta receta = receta("Tarta", HASH_A);
+        recetaDAO.insert(receta);
+        recetaDAO.delete(receta);
+        assertEquals(0, referencias(HASH_A));
+
+        recetaDAO.restarReferenciaImagen(HASH_A);
+        assertEquals(0, referencias(HASH_A));
+    }
+
+    @Test
+    public void rutasAjenas_noCuentan() {
+        Receta receta = new Receta("Sopa", "Caliente");
+        receta.setImagenPortadaURL("content://media/external/images/media/42");
+        recetaDAO.insert(receta);
+        assertEquals(0, referencias(HASH_A));
+        assertEquals(0, referencias(HASH_B));
+    }
+
+    @Test
+    public void eliminarSinReferencias_conservaLasUsadas() {
+        recetaDAO.insert(receta("Tarta", HASH_A));
+
+        assertEquals(Collections.singletonList(HASH_B),
+                imagenDAO.eliminarSinReferencias(Arrays.asList(HASH_A, HASH_B)));
+        assertNotNull(imagenDAO.getPorHash(HASH_A));
+        assertNull(imagenDAO.getPorHash(HASH_B));
+    }
+
+    //==================== UTILIDADES ====================
+
+    private static Receta receta(String nombre, String hash) {
+        Receta receta = new Receta(nombre, "Descripción de " + nombre);
+        receta.setImagenPortadaURL(ruta(hash));
+        return receta;
+    }
+
+    private static String ruta(String hash) {
+        return "/data/user/0/com.example.recetarioapp/files/recetas_images/" + hash + ".jpg";
+    }
+
+    private int referencias(String hash) {
+        return imagenDAO.getPorHash(hash).getReferencias();
+    }
+}
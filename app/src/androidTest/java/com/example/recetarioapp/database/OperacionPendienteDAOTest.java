@@ -0,0 +1,107 @@
+package com.example.recetarioapp.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.recetarioapp.models.OperacionPendiente;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+//Cola de salida por cuenta y con reintentos (OperacionPendienteDAO sobre Room en memoria)
+@RunWith(AndroidJUnit4.class)
+public class OperacionPendienteDAOTest {
+
+    private static final int LIMITE = 500;
+
+    private RecetasBD bd;
+    private OperacionPendienteDAO dao;
+
+    @Before
+    public void crearBd() {
+        Context contexto = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        bd = Room.inMemoryDatabaseBuilder(contexto, RecetasBD.class).allowMainThreadQueries().build();
+        dao = bd.operacionPendienteDAO();
+    }
+
+    @After
+    public void cerrarBd() {
+        bd.close();
+    }
+
+    @Test
+    public void pendientes_soloDeLaCuentaConSesion() {
+        dao.encolar(1, "a", OperacionPendiente.CREAR, "usuarioA");
+        dao.encolar(2, "b", OperacionPendiente.CREAR, "usuarioB");
+
+        List<OperacionPendiente> deA = dao.getPendientes("usuarioA", new Date(), LIMITE);
+        assertEquals(1, deA.size());
+        assertEquals(1, deA.get(0).getRecetaId());
+    }
+
+    @Test
+    public void filasSinUsuario_lasReclamaLaPrimeraCuenta() {
+        OperacionPendiente antigua = new OperacionPendiente(1, "a", OperacionPendiente.CREAR, null);
+        dao.guardar(antigua);
+
+        dao.reclamarSinUsuario("usuarioA");
+        assertEquals(1, dao.getPendientes("usuarioA", new Date(), LIMITE).size());
+        dao.reclamarSinUsuario("usuarioB");
+        assertTrue(dao.getPendientes("usuarioB", new Date(), LIMITE).isEmpty());
+    }
+
+    @Test
+    public void fallo_aplazaLaOperacionHastaSuReintento() {
+        dao.encolar(1, "a", OperacionPendiente.CREAR, "usuarioA");
+        long ahora = System.currentTimeMillis();
+        dao.registrarFallo(dao.getPendientes("usuarioA", new Date(ahora), LIMITE), ahora);
+
+        assertTrue(dao.getPendientes("usuarioA", new Date(ahora), LIMITE).isEmpty());
+        Date reintento = dao.getSiguienteReintento("usuarioA", new Date(ahora));
+        assertEquals(ahora + OperacionPendiente.esperaTrasFallos(1), reintento.getTime());
+        List<OperacionPendiente> vencidas = dao.getPendientes("usuarioA", reintento, LIMITE);
+        assertEquals(1, vencidas.size());
+        assertEquals(1, vencidas.get(0).getIntentos());
+    }
+
+    @Test
+    public void trasMaxIntentos_seApartaHastaElSiguienteCambio() {
+        dao.encolar(1, "a", OperacionPendiente.ACTUALIZAR, "usuarioA");
+        long lejos = Long.MAX_VALUE / 2;
+        int apartadas = 0;
+        for (int i = 0; i < OperacionPendiente.MAX_INTENTOS; i++) {
+            OperacionPendiente operacion = dao.getPorReceta(1);
+            apartadas += dao.registrarFallo(Collections.singletonList(operacion), 0);
+        }
+        assertEquals(1, apartadas);
+        assertTrue(dao.getPendientes("usuarioA", new Date(lejos), LIMITE).isEmpty());
+        assertNull(dao.getSiguienteReintento("usuarioA", new Date(0)));
+
+        //Una nueva edición vuelve a intentarla desde cero
+        dao.encolar(1, "a", OperacionPendiente.ACTUALIZAR, "usuarioA");
+        assertEquals(1, dao.getPendientes("usuarioA", new Date(), LIMITE).size());
+    }
+
+    @Test
+    public void falloDeUnaVersionAnterior_noPenalizaLaNueva() {
+        dao.encolar(1, "a", OperacionPendiente.ACTUALIZAR, "usuarioA");
+        OperacionPendiente enviada = dao.getPorReceta(1);
+        dao.encolar(1, "a", OperacionPendiente.ACTUALIZAR, "usuarioA"); //Edición durante el envío
+
+        dao.registrarFallo(Collections.singletonList(enviada), System.currentTimeMillis());
+        assertEquals(0, dao.getPorReceta(1).getIntentos());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.recetarioapp.repository;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+//Cancelación de intentos del coordinador: un intento fallido deja de ser vigente antes de su reintento
+//(los reintentos se programan en el hilo principal, por eso es instrumentada)
+@RunWith(AndroidJUnit4.class)
+public class CoordinadorSincronizacionTest {
+
+    private static final long ESPERA_MS = 10_000; //Cubre la espera del primer reintento (2 s)
+
+    private final CoordinadorSincronizacion coordinador = new CoordinadorSincronizacion();
+    private final List<CoordinadorSincronizacion.Notificador> intentos = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void intentoFallido_quedaCanceladoAntesDelReintento() throws Exception {
+        coordinador.sincronizar(intentos::add);
+        CoordinadorSincronizacion.Notificador primero = intentos.get(0);
+        assertFalse(primero.isCancelado());
+
+        primero.fallida(1, 10, "Sin respuesta del servidor", true);
+        assertTrue(primero.isCancelado());
+        assertEquals(CoordinadorSincronizacion.Estado.EN_CURSO, coordinador.getEstado());
+
+        //El reintento recibe un notificador nuevo; el anterior sigue cancelado
+        esperarIntentos(2);
+        CoordinadorSincronizacion.Notificador segundo = intentos.get(1);
+        assertFalse(segundo.isCancelado());
+        assertTrue(primero.isCancelado());
+
+        //Los avisos tardíos del intento cancelado no cierran la sincronización
+        primero.terminada(1, 10);
+        assertEquals(CoordinadorSincronizacion.Estado.EN_CURSO, coordinador.getEstado());
+
+        segundo.terminada(2, 20);
+        assertEquals(CoordinadorSincronizacion.Estado.COMPLETADA, coordinador.getEstado());
+        assertTrue(segundo.isCancelado());
+    }
+
+    @Test
+    public void falloNoReintentable_cancelaYTermina() {
+        coordinador.sincronizar(intentos::add);
+        CoordinadorSincronizacion.Notificador intento = intentos.get(0);
+
+        intento.fallida(0, 0, "Sesión cerrada", false);
+        assertTrue(intento.isCancelado());
+        assertEquals(CoordinadorSincronizacion.Estado.FALLIDA, coordinador.getEstado());
+    }
+
+    private void esperarIntentos(int numero) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        while (intentos.size() < numero) {
+            if (System.currentTimeMillis() > limite) throw new AssertionError("No llegó el reintento");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.recetarioapp.repository;
+
+import android.app.Application;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.recetarioapp.database.OperacionPendienteDAO;
+import com.example.recetarioapp.database.RecetaDAO;
+import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.repository.local.LocalDataSource;
+import com.example.recetarioapp.repository.remote.InMemoryRecetaSource;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.example.recetarioapp.models.RecetasDePrueba.receta;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Banco de carga de la sincronización real (RecetaRepository + ColaSalida) sobre InMemoryRecetaSource
+//- Entorno inyectado (EntornoRecetas) con la fuente en memoria: sin servicios de Google
+//- Descarga completa e incremental con sincronizarFBaLocal (coordinador, páginas, marca de agua)
+//- Subida de la cola de salida con fallos simulados (lotes partidos, esperas de reintento)
+//- Camino sin conexión: los guardados se aplazan en la cola sin perderse y se envían al volver la red
+//- Imprime tiempos y documentos leídos/escritos; no falla por tiempos (dependen del dispositivo),
+//  solo comprueba que el estado final es el esperado
+//- Usa la base de datos de la app (RecetasBD.getInstance) y la vacía: ejecutar en un emulador
+//Fuera de la ejecución normal (@Ignore); para lanzarlo, quitar @Ignore y ejecutar
+//./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.recetarioapp.repository.SincronizacionEnMemoriaBenchmark
+@Ignore("Banco de carga: se lanza a mano")
+@RunWith(AndroidJUnit4.class)
+public class SincronizacionEnMemoriaBenchmark {
+
+    private static final String USUARIO = "banco-carga";
+    private static final int RECETAS = 5_000;
+    private static final int TAM_PAGINA = 200;
+    private static final long LATENCIA_MS = 2;
+    private static final long ESPERA_MS = 10 * 60 * 1000L; //Incluye las esperas de reintento de la cola
+
+    private Application app;
+    private RecetaDAO recetaDAO;
+    private OperacionPendienteDAO operacionesDAO;
+
+    @Before
+    public void preparar() {
+        app = (Application) InstrumentationRegistry.getInstrumentation().getTargetContext().getApplicationContext();
+        RecetasBD bd = RecetasBD.getInstance(app);
+        bd.clearAllTables();
+        recetaDAO = bd.recetaDAO();
+        operacionesDAO = bd.operacionPendienteDAO();
+    }
+
+    //==================== DESCARGA ====================
+
+    @Test
+    public void descargaCompletaEIncremental() throws Exception {
+        InMemoryRecetaSource remoto = new InMemoryRecetaSource(USUARIO, LATENCIA_MS, 0, TAM_PAGINA, 1);
+        EntornoRecetas entorno = new EntornoRecetas(app, remoto);
+        RecetaRepository repositorio = new RecetaRepository(app, entorno);
+        List<Receta> iniciales = new ArrayList<>();
+        for (int i = 0; i < RECETAS; i++) iniciales.add(receta("Receta " + i, 1_000 + i));
+        List<String> ids = remoto.sembrar(iniciales);
+
+        //Descarga completa (BD vacía)
+        long leidos = sincronizar(repositorio, entorno, remoto, "descarga completa");
+        assertEquals(RECETAS, leidos);
+        assertEquals(RECETAS, recetaDAO.contarConFirebaseId());
+
+        //Primera incremental: la marca de la completa lleva el margen de reloj, así que relee
+        //lo escrito en ese margen (aquí, todo) y fija la marca en la hora del servidor
+        sincronizar(repositorio, entorno, remoto, "incremental tras completa");
+
+        //Otro dispositivo edita unas pocas: solo esas llegan desde la marca
+        int editadas = 50;
+        for (int i = 0; i < editadas; i++) {
+            Receta receta = receta("Editada " + i, 1_000_000 + i);
+            receta.setFirebaseId(ids.get(i));
+            remoto.sembrar(Collections.singletonList(receta));
+        }
+        leidos = sincronizar(repositorio, entorno, remoto, "descarga incremental");
+
+        //La marca es inclusiva (>=): puede repetirse el último documento de la pasada anterior
+        assertTrue("Leídos " + leidos, leidos >= editadas && leidos <= editadas + 1);
+        assertEquals("Editada 0", recetaDAO.getRecetaByFirebaseId(ids.get(0)).getNombre());
+    }
+
+    //Lanza una sincronización y espera a que el coordinador la cierre; devuelve los documentos leídos
+    private long sincronizar(RecetaRepository repositorio, EntornoRecetas entorno,
+                             InMemoryRecetaSource remoto, String nombre) throws InterruptedException {
+        long leidosAntes = remoto.getDocumentosLeidos();
+        long inicio = System.nanoTime();
+        assertTrue(repositorio.sincronizarFBaLocal());
+        esperar("La sincronización no terminó",
+                () -> entorno.getCoordinador().getEstado() != CoordinadorSincronizacion.Estado.EN_CURSO);
+        assertEquals(CoordinadorSincronizacion.Estado.COMPLETADA, entorno.getCoordinador().getEstado());
+        long leidos = remoto.getDocumentosLeidos() - leidosAntes;
+        imprimir(nombre, (int) leidos, System.nanoTime() - inicio, remoto);
+        return leidos;
+    }
+
+    //==================== SUBIDA ====================
+
+    @Test
+    public void subidaEnLotesConFallos() throws Exception {
+        InMemoryRecetaSource remoto = new InMemoryRecetaSource(USUARIO, LATENCIA_MS, 0.1, TAM_PAGINA, 7);
+        EntornoRecetas entorno = new EntornoRecetas(app, remoto);
+        encolar(RECETAS);
+
+        long inicio = System.nanoTime();
+        vaciarCola(entorno, remoto, RECETAS);
+        imprimir("subida (10 % de fallos)", RECETAS, System.nanoTime() - inicio, remoto);
+    }
+
+    @Test
+    public void sinConexion_noSePierdenOperaciones() throws Exception {
+        InMemoryRecetaSource remoto = new InMemoryRecetaSource(USUARIO, LATENCIA_MS, 0, TAM_PAGINA, 3);
+        EntornoRecetas entorno = new EntornoRecetas(app, remoto);
+        RecetaRepository repositorio = new RecetaRepository(app, entorno);
+
+        //Sin red: cada guardado intenta enviar, falla y la operación se aplaza en la cola
+        remoto.setConectado(false);
+        int total = 1_000;
+        CountDownLatch guardadas = new CountDownLatch(total);
+        for (int i = 1; i <= total; i++) {
+            repositorio.insertarReceta(receta("Sin red " + i, 1_000), new RecetaRepository.OnRecetaGuardadaListener() {
+                @Override
+                public void onSuccess(Receta receta) {
+                    guardadas.countDown();
+                }
+
+                @Override
+                public void onError(String mensaje) {
+                    throw new AssertionError(mensaje);
+                }
+            });
+        }
+        assertTrue("No se guardaron las recetas", guardadas.await(ESPERA_MS, TimeUnit.MILLISECONDS));
+        esperar("El envío sin red no se aplazó",
+                () -> operacionesDAO.getSiguienteReintento(USUARIO, new Date()) != null);
+        assertEquals(0, remoto.getNumeroDocumentos());
+
+        //Al volver la red se completa con el reintento programado
+        remoto.setConectado(true);
+        long inicio = System.nanoTime();
+        vaciarCola(entorno, remoto, total);
+        imprimir("subida al reconectar", total, System.nanoTime() - inicio, remoto);
+    }
+
+    //Guarda recetas en local con su operación CREAR encolada (LocalDataSource), sin enviarlas
+    private void encolar(int total) throws InterruptedException {
+        LocalDataSource fuenteLocal = new LocalDataSource(app);
+        CountDownLatch guardadas = new CountDownLatch(total);
+        for (int i = 1; i <= total; i++) {
+            fuenteLocal.insertar(receta("Local " + i, 1_000), USUARIO, id -> guardadas.countDown(),
+                    mensaje -> { throw new AssertionError(mensaje); });
+        }
+        assertTrue("No se guardaron las recetas", guardadas.await(ESPERA_MS, TimeUnit.MILLISECONDS));
+    }
+
+    //Pide el envío a ColaSalida y espera a que no quede nada en la cola y todo esté en el remoto
+    private void vaciarCola(EntornoRecetas entorno, InMemoryRecetaSource remoto, int total)
+            throws InterruptedException {
+        entorno.getColaSalida().enviar();
+        esperar("La cola no se vació", () -> remoto.getNumeroDocumentos() == total
+                && operacionesDAO.getPendientes(USUARIO, new Date(Long.MAX_VALUE), 1).isEmpty());
+    }
+
+    //==================== UTILIDADES ====================
+
+    //Espera activa (la cola y el coordinador trabajan en sus propios hilos)
+    private static void esperar(String mensaje, BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) throw new AssertionError(mensaje);
+            Thread.sleep(20);
+        }
+    }
+
+    private static void imprimir(String nombre, int documentos, long nanos, InMemoryRecetaSource remoto) {
+        System.out.println(String.format(Locale.ROOT,
+                "%-26s %6d docs  %8.1f ms  %9.0f docs/s  (leídos %d, escritos %d)",
+                nombre, documentos, nanos / 1e6, documentos * 1e9 / nanos,
+                remoto.getDocumentosLeidos(), remoto.getDocumentosEscritos()));
+    }
+}
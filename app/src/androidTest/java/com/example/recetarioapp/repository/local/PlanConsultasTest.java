@@ -0,0 +1,142 @@
+package com.example.recetarioapp.repository.local;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteProgram;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.recetarioapp.database.RecetaDAO;
+import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.RecetaFiltro;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+//Comprueba con EXPLAIN QUERY PLAN que las consultas de listas usan los índices de recetas
+//(los mismos que crea Migraciones.crearIndicesRecetas al migrar)
+@RunWith(AndroidJUnit4.class)
+public class PlanConsultasTest {
+
+    private RecetasBD bd;
+    private SupportSQLiteDatabase sqlite;
+
+    @Before
+    public void crearBd() {
+        Context contexto = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        bd = Room.inMemoryDatabaseBuilder(contexto, RecetasBD.class).build();
+        sqlite = bd.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void cerrarBd() {
+        bd.close();
+    }
+
+    @Test
+    public void filtroPorCategoria_usaIndiceCategoriaFecha() {
+        SimpleSQLiteQuery consulta = LocalDataSource.construirConsultaFiltro(
+                RecetaFiltro.SIN_FILTRO.conCategoria("Postres"));
+        assertUsaIndice(consulta, "index_recetas_categoria_fechaCreacion");
+    }
+
+    @Test
+    public void filtroPorDificultad_usaIndiceDificultadFecha() {
+        SimpleSQLiteQuery consulta = LocalDataSource.construirConsultaFiltro(
+                RecetaFiltro.SIN_FILTRO.conDificultad("Fácil"));
+        assertUsaIndice(consulta, "index_recetas_dificultad_fechaCreacion");
+    }
+
+    @Test
+    public void filtroSoloFavoritas_usaIndiceFavoritaFecha() {
+        SimpleSQLiteQuery consulta = LocalDataSource.construirConsultaFiltro(
+                RecetaFiltro.SIN_FILTRO.conSoloFavoritas(true));
+        assertUsaIndice(consulta, "index_recetas_isFav_fechaCreacion");
+    }
+
+    @Test
+    public void filtroPorTiempo_usaIndiceTiempo() {
+        SimpleSQLiteQuery consulta = LocalDataSource.construirConsultaFiltro(
+                RecetaFiltro.SIN_FILTRO.conTiempoMax(30));
+        assertUsaIndice(consulta, "index_recetas_tiempoPreparacion");
+    }
+
+    @Test
+    public void sinFiltro_ordenaConIndiceFecha() {
+        SimpleSQLiteQuery consulta = LocalDataSource.construirConsultaFiltro(RecetaFiltro.SIN_FILTRO);
+        assertUsaIndice(consulta, "index_recetas_fechaCreacion");
+    }
+
+    //Misma sentencia que RecetaDAO.getFavsPaginadas
+    @Test
+    public void favoritasPaginadas_usaIndiceFavoritaFecha() {
+        assertUsaIndice(new SimpleSQLiteQuery("SELECT " + RecetaDAO.COLUMNAS_RESUMEN +
+                " FROM recetas WHERE isFav = 1 ORDER BY fechaCreacion DESC"),
+                "index_recetas_isFav_fechaCreacion");
+    }
+
+    //Misma sentencia que RecetaDAO.getRecetasConIngrediente
+    @Test
+    public void recetasConIngrediente_usaIndiceNombreIngrediente() {
+        assertUsaIndice(new SimpleSQLiteQuery("SELECT " + RecetaDAO.COLUMNAS_RESUMEN +
+                " FROM recetas WHERE id IN (SELECT recetaId FROM ingredientes WHERE nombre = ?) " +
+                "ORDER BY fechaCreacion DESC", new Object[]{"harina"}),
+                "index_ingredientes_nombre");
+    }
+
+    //==================== UTILIDADES ====================
+
+    private void assertUsaIndice(SimpleSQLiteQuery consulta, String indice) {
+        List<String> plan = plan(consulta);
+        boolean usaIndice = false;
+        for (String paso : plan) {
+            if (paso.contains("USING INDEX " + indice) || paso.contains("USING COVERING INDEX " + indice)) {
+                usaIndice = true;
+            }
+        }
+        assertTrue("Se esperaba " + indice + " en el plan: " + plan, usaIndice);
+    }
+
+    //Columna detail de EXPLAIN QUERY PLAN (un paso por fila)
+    private List<String> plan(SimpleSQLiteQuery consulta) {
+        Object[] argumentos = new Object[consulta.getArgCount()];
+        consulta.bindTo(new ArgumentosCapturados(argumentos));
+        List<String> pasos = new ArrayList<>();
+        try (Cursor cursor = sqlite.query("EXPLAIN QUERY PLAN " + consulta.getSql(), argumentos)) {
+            int detalle = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                pasos.add(cursor.getString(detalle));
+            }
+        }
+        return pasos;
+    }
+
+    //Recoge los argumentos enlazados de una SimpleSQLiteQuery para repetirlos con EXPLAIN
+    private static final class ArgumentosCapturados implements SupportSQLiteProgram {
+        private final Object[] argumentos;
+
+        ArgumentosCapturados(Object[] argumentos) {
+            this.argumentos = argumentos;
+        }
+
+        @Override public void bindNull(int indice) { argumentos[indice - 1] = null; }
+        @Override public void bindLong(int indice, long valor) { argumentos[indice - 1] = valor; }
+        @Override public void bindDouble(int indice, double valor) { argumentos[indice - 1] = valor; }
+        @Override public void bindString(int indice, String valor) { argumentos[indice - 1] = valor; }
+        @Override public void bindBlob(int indice, byte[] valor) { argumentos[indice - 1] = valor; }
+        @Override public void clearBindings() { Arrays.fill(argumentos, null); }
+        @Override public void close() {}
+    }
+}
@@ -11,26 +11,31 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.example.recetarioapp.R;
-import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaResumen;
+import com.example.recetarioapp.utils.ImageLoader;
 import com.google.android.material.chip.Chip;
 
-import java.io.File;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 //Adapter para mostrar lista de recetas en RecyclerView con funcionalidades avanzadas
-//- Muestra info. completa de recetas (imagen, nombre, descripción, etc.)
+//- Muestra el resumen de cada receta (RecetaResumen: imagen, nombre, descripción, etc.)
 //- Gestión eficiente de actualizaciones con DiffUtil
-//- Soporte para marcado de favoritos
-//- Carga optimizada de imágenes con Glide
+//- Soporte para marcado de favoritos (con estado optimista mientras se guarda)
+//- Carga optimizada de imágenes con Glide (rendición según el tamaño de la tarjeta)
 //- Interfaz de usuario rica con chips y elementos visuales
-public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewHolder> {
+public class RecetaAdapter extends ListAdapter<RecetaResumen, RecetaAdapter.RecetaViewHolder> {
 
     //Listeners para manejar interacciones del usuario
     private OnRecetaClickListener listener;
     private OnFavClickListener favListener;
 
+    //Favoritos cambiados que aún no se han escrito en la BD (ID → estado a mostrar)
+    private Map<Long, Boolean> favoritosPendientes = Collections.emptyMap();
+
     //Constructor que inicializa el adapter con DiffUtil para optimización
     //Utiliza ListAdapter en lugar de RecyclerView.Adapter para mejor performance
     public RecetaAdapter() {
@@ -39,21 +44,21 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
 
     //Callback de DiffUtil para comparar y actualizar items eficientemente
     //Determina qué items cambiaron y actualiza solo esos
-    private static final DiffUtil.ItemCallback<Receta> DIFF_CALLBACK = new DiffUtil.ItemCallback<Receta>() {
+    //Compartido con RecetaPagingAdapter
+    static final DiffUtil.ItemCallback<RecetaResumen> DIFF_CALLBACK = new DiffUtil.ItemCallback<RecetaResumen>() {
 
         //Verifica si dos items representan el mismo objeto
         //Compara por ID único de receta
         @Override
-        public boolean areItemsTheSame(@NonNull Receta oldItem, @NonNull Receta newItem) {
+        public boolean areItemsTheSame(@NonNull RecetaResumen oldItem, @NonNull RecetaResumen newItem) {
             return oldItem.getId() == newItem.getId();
         }
 
         //Verifica si los contenidos de dos items son iguales
-        //Compara nombre y estado de favorito para detectar cambios
+        //Compara el hash de contenido y el favorito (sin hash, todas las columnas visibles)
         @Override
-        public boolean areContentsTheSame(@NonNull Receta oldItem, @NonNull Receta newItem) {
-            return Objects.equals(oldItem.getNombre(), newItem.getNombre()) &&
-                    oldItem.isFav() == newItem.isFav();
+        public boolean areContentsTheSame(@NonNull RecetaResumen oldItem, @NonNull RecetaResumen newItem) {
+            return oldItem.mismoContenidoVisible(newItem);
         }
     };
 
@@ -62,10 +67,10 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
     @NonNull
     @Override
     public RecetaViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        //Convertir el layout XML item_receta en un objeto View
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_receta, parent, false);
-        return new RecetaViewHolder(view);
+        //Los listeners se resuelven en cada clic para respetar setters posteriores
+        return RecetaViewHolder.crear(parent,
+                receta -> { if (listener != null) listener.onRecetaClick(receta); },
+                (receta, isFav) -> { if (favListener != null) favListener.onFavClick(receta, isFav); });
     }
 
     //Asigna los datos de la receta a las vistas del ViewHolder
@@ -73,21 +78,48 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
     @Override
     public void onBindViewHolder(@NonNull RecetaViewHolder holder, int position) {
         //Obtener la receta en la posición actual
-        Receta receta = getItem(position);
+        RecetaResumen receta = getItem(position);
         //Vincular datos de receta con vistas del ViewHolder
-        holder.bind(receta);
+        holder.bind(receta, estadoFavorito(receta, favoritosPendientes));
     }
 
     //Obtiene la receta en una posición específica
     //Método de utilidad para acceso externo a los datos
-    public Receta getRecetaEn(int position) {
+    public RecetaResumen getRecetaEn(int position) {
         return getItem(position);
     }
 
+    //Actualiza los favoritos pendientes y repinta solo las filas afectadas
+    public void setFavoritosPendientes(Map<Long, Boolean> pendientes) {
+        Set<Long> afectados = idsAfectados(favoritosPendientes, pendientes);
+        favoritosPendientes = pendientes != null ? pendientes : Collections.emptyMap();
+        for (int i = 0; i < getItemCount(); i++) {
+            if (afectados.contains(getItem(i).getId())) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    //==================== FAVORITOS PENDIENTES (compartido con RecetaPagingAdapter) ====================
+
+    //Estado de favorito a mostrar: el pendiente si existe, si no el guardado en la BD
+    static boolean estadoFavorito(RecetaResumen receta, Map<Long, Boolean> pendientes) {
+        Boolean pendiente = pendientes.get(receta.getId());
+        return pendiente != null ? pendiente : receta.isFav();
+    }
+
+    //IDs cuyo estado mostrado puede cambiar al pasar de un mapa de pendientes a otro
+    static Set<Long> idsAfectados(Map<Long, Boolean> anteriores, Map<Long, Boolean> nuevos) {
+        Set<Long> afectados = new HashSet<>(anteriores.keySet());
+        if (nuevos != null) afectados.addAll(nuevos.keySet());
+        return afectados;
+    }
+
     //==================== CLASE INTERNA VIEWHOLDER ====================
 
     //ViewHolder que representa cada item de receta en el RecyclerView
-    class RecetaViewHolder extends RecyclerView.ViewHolder {
+    //Estático para poder reutilizarse desde RecetaPagingAdapter
+    public static class RecetaViewHolder extends RecyclerView.ViewHolder {
         //Referencias a vistas del layout de receta
         private final ImageView ivImagen;
         private final TextView tvNombre;
@@ -98,8 +130,24 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
         private final Chip chipCategoria;
         private final ImageView btnFavorito;
 
+        //Receta vinculada actualmente a este ViewHolder y estado de favorito mostrado
+        private RecetaResumen recetaActual;
+        private boolean favMostrado;
+
+        //Infla el layout item_receta y crea el ViewHolder asociado
+        public static RecetaViewHolder crear(@NonNull ViewGroup parent,
+                                             OnRecetaClickListener clickListener,
+                                             OnFavClickListener favClickListener) {
+            //Convertir el layout XML item_receta en un objeto View
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_receta, parent, false);
+            return new RecetaViewHolder(view, clickListener, favClickListener);
+        }
+
         //Constructor que inicializa las vistas y configura listeners
-        public RecetaViewHolder(@NonNull View itemView) { //itemView: Vista del item de receta
+        public RecetaViewHolder(@NonNull View itemView, //itemView: Vista del item de receta
+                                OnRecetaClickListener clickListener,
+                                OnFavClickListener favClickListener) {
             super(itemView);
             //Obtener referencias a todas las vistas del layout
             ivImagen = itemView.findViewById(R.id.iv_receta_imagen);
@@ -114,29 +162,27 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
             //Listener para clic en toda la tarjeta de receta
             //Navega a los detalles de la receta seleccionada
             itemView.setOnClickListener(v -> {
-                int position = getBindingAdapterPosition();
-                //Verificar que la posición es válida y existe listener
-                if (listener != null && position != RecyclerView.NO_POSITION) {
-                    listener.onRecetaClick(getItem(position));
+                if (recetaActual != null) {
+                    clickListener.onRecetaClick(recetaActual);
                 }
             });
 
             //Listener para clic en el botón de favorito
             //Alterna el estado de favorito de la receta
             btnFavorito.setOnClickListener(v -> {
-                int position = getBindingAdapterPosition();
-                //Verificar que la posición es válida y existe listener
-                if (favListener != null && position != RecyclerView.NO_POSITION) {
-                    //Obtener receta y alternar estado de favorito
-                    Receta receta = getItem(position);
-                    favListener.onFavClick(receta, !receta.isFav());
+                if (recetaActual != null) {
+                    favClickListener.onFavClick(recetaActual, !favMostrado);
                 }
             });
         }
 
         //Vincula los datos de una receta con las vistas del ViewHolder
         //Actualiza todos los elementos visuales con la información de la receta
-        public void bind(Receta receta) {
+        //esFavorito puede diferir de receta.isFav() si hay un cambio pendiente de guardar
+        public void bind(RecetaResumen receta, boolean esFavorito) {
+            recetaActual = receta;
+            favMostrado = esFavorito;
+
             //Mostrar nombre de la receta
             tvNombre.setText(receta.getNombre());
 
@@ -170,24 +216,11 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
                 chipCategoria.setVisibility(View.GONE);
             }
 
-            //Cargar imagen de la receta usando Glide
-            if (receta.getImagenPortadaURL() != null && !receta.getImagenPortadaURL().isEmpty()) {
-                //Crear objeto File desde la ruta de la imagen
-                File imageFile = new File(receta.getImagenPortadaURL());
-                //Configurar carga de imagen con Glide
-                Glide.with(itemView.getContext())
-                        .load(imageFile) //Archivo a cargar
-                        .placeholder(R.drawable.placeholder_receta) //Imagen mientras carga
-                        .error(R.drawable.placeholder_receta) //Imagen si hay error
-                        .centerCrop() //Recortar al centro
-                        .into(ivImagen); //ImageView destino
-            } else {
-                //Usar imagen placeholder si no hay imagen
-                ivImagen.setImageResource(R.drawable.placeholder_receta);
-            }
+            //Cargar la rendición de la imagen que cubre la tarjeta (placeholder si no hay imagen)
+            ImageLoader.loadRecipeImage(itemView.getContext(), receta.getImagenPortadaURL(), ivImagen);
 
             //Actualizar icono según el estado
-            if (receta.isFav()) {
+            if (esFavorito) {
                 btnFavorito.setImageResource(R.drawable.ic_fav);
             } else {
                 btnFavorito.setImageResource(R.drawable.ic_fav_no);
@@ -200,13 +233,13 @@ public class RecetaAdapter extends ListAdapter<Receta, RecetaAdapter.RecetaViewH
     //Interfaz para manejar clics en recetas
     //Permite navegar a los detalles de la receta seleccionada
     public interface OnRecetaClickListener {
-        void onRecetaClick(Receta receta);
+        void onRecetaClick(RecetaResumen receta);
     }
 
     //Interfaz para manejar clics en botones de favorito
     //PAgregar/Quitar recetas de favoritos
     public interface OnFavClickListener {
-        void onFavClick(Receta receta, boolean isFav);
+        void onFavClick(RecetaResumen receta, boolean isFav);
     }
 
     //==================== SETTERS PARA LISTENERS ====================
@@ -0,0 +1,79 @@
+package com.example.recetarioapp.adapters;
+
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+
+import com.example.recetarioapp.models.RecetaResumen;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+//Versión paginada de RecetaAdapter basada en PagingDataAdapter (Paging 3)
+//- Recibe PagingData y solo mantiene en memoria las páginas cargadas
+//- Reutiliza el ViewHolder, el layout y el DiffUtil de RecetaAdapter
+//- Expone los mismos listeners de clic y favorito
+public class RecetaPagingAdapter extends PagingDataAdapter<RecetaResumen, RecetaAdapter.RecetaViewHolder> {
+
+    //Listeners para manejar interacciones del usuario
+    private RecetaAdapter.OnRecetaClickListener listener;
+    private RecetaAdapter.OnFavClickListener favListener;
+
+    //Favoritos cambiados que aún no se han escrito en la BD (ID → estado a mostrar)
+    private Map<Long, Boolean> favoritosPendientes = Collections.emptyMap();
+
+    //Constructor que reutiliza el DiffUtil de RecetaAdapter
+    public RecetaPagingAdapter() {
+        super(RecetaAdapter.DIFF_CALLBACK);
+    }
+
+    //Crea nuevas vistas (ViewHolders) cuando el RecyclerView los necesita
+    @NonNull
+    @Override
+    public RecetaAdapter.RecetaViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return RecetaAdapter.RecetaViewHolder.crear(parent,
+                receta -> { if (listener != null) listener.onRecetaClick(receta); },
+                (receta, isFav) -> { if (favListener != null) favListener.onFavClick(receta, isFav); });
+    }
+
+    //Asigna los datos de la receta a las vistas del ViewHolder
+    //getItem() dispara la carga de la página siguiente cuando se acerca al final
+    @Override
+    public void onBindViewHolder(@NonNull RecetaAdapter.RecetaViewHolder holder, int position) {
+        RecetaResumen receta = getItem(position);
+        if (receta != null) {
+            holder.bind(receta, RecetaAdapter.estadoFavorito(receta, favoritosPendientes));
+        }
+    }
+
+    //Obtiene la receta en una posición sin provocar cargas de páginas
+    public RecetaResumen getRecetaEn(int position) {
+        return peek(position);
+    }
+
+    //Actualiza los favoritos pendientes y repinta solo las filas cargadas afectadas
+    public void setFavoritosPendientes(Map<Long, Boolean> pendientes) {
+        Set<Long> afectados = RecetaAdapter.idsAfectados(favoritosPendientes, pendientes);
+        favoritosPendientes = pendientes != null ? pendientes : Collections.emptyMap();
+        for (int i = 0; i < getItemCount(); i++) {
+            RecetaResumen receta = peek(i);
+            if (receta != null && afectados.contains(receta.getId())) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    //==================== SETTERS PARA LISTENERS ====================
+
+    //Listener para clics en recetas
+    public void setOnRecetaClickListener(RecetaAdapter.OnRecetaClickListener listener) {
+        this.listener = listener;
+    }
+
+    //Listener para clics en favoritos
+    public void setOnFavClickListener(RecetaAdapter.OnFavClickListener listener) {
+        this.favListener = listener;
+    }
+}
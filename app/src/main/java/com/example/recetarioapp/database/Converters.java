@@ -3,10 +3,15 @@ package com.example.recetarioapp.database;
 import androidx.room.TypeConverter;
 import com.example.recetarioapp.models.Ingrediente;
 import com.example.recetarioapp.models.Paso;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -14,10 +19,23 @@ import java.util.List;
 //Clase de conversores de tipos para Room Database
 //Proporciona métodos para convertir tipos de datos complejos que Room
 //no puede almacenar directamente en formatos compatibles con SQLite
-//Utiliza la librería Gson para serialización/deserialización JSON
+//Las listas se codifican en JSON con JsonReader/JsonWriter (streaming de Gson):
+//sin reflexión ni TypeToken por llamada, y compatible con las filas que escribió Gson
+//La columna tags es un BLOB: formato binario compacto (opt-in) o JSON en UTF-8,
+//detectado al leer por el primer byte (ver FORMATO BINARIO); Receta la decodifica al usarla
 public class Converters {
 
-    private static final Gson gson = new Gson(); //Instancia única de Gson para optimizar el rendimiento
+    //Formato de escritura de la columna tags (opt-in desde RecetasBD)
+    private static volatile boolean formatoBinario = false;
+
+    //Activa o desactiva la escritura en formato binario (la lectura admite ambos siempre)
+    public static void setFormatoBinario(boolean activado) {
+        formatoBinario = activado;
+    }
+
+    public static boolean isFormatoBinario() {
+        return formatoBinario;
+    }
 
     //Convierte un objeto Date a un valor Long (timestamp)
     @TypeConverter
@@ -31,60 +49,233 @@ public class Converters {
         return value == null ? null : new Date(value); //Objeto Date correspondiente, null si el valor es null
     }
 
-    //Serializa una lista de Strings a formato JSON
-    @TypeConverter
+    //Codifica la lista de etiquetas para la columna BLOB tags
+    //(Receta guarda el valor crudo y llama a estos métodos bajo demanda)
+    public static byte[] tagsToBlob(List<String> list) {
+        if (list == null) {
+            return null;
+        }
+        return formatoBinario
+                ? codificarListaBinaria(list)
+                : listStringToJson(list).getBytes(StandardCharsets.UTF_8);
+    }
+
+    //Decodifica la columna tags detectando el formato (binario o JSON de versiones anteriores)
+    public static List<String> blobToTags(byte[] value) {
+        if (value == null || value.length == 0) {
+            return new ArrayList<>();
+        }
+        if (esFormatoBinario(value)) {
+            return decodificarListaBinaria(value);
+        }
+        return jsonToListString(new String(value, StandardCharsets.UTF_8));
+    }
+
+    //==================== JSON ====================
+
+    //Serializa una lista de Strings a formato JSON (["a","b"], igual que Gson)
     public static String listStringToJson(List<String> list) {
         if (list == null) {
             return null;
         }
-        return gson.toJson(list); //Retorna String en formato JSON, null si la lista es null
+        StringWriter salida = new StringWriter(list.size() * 16 + 2);
+        try (JsonWriter escritor = new JsonWriter(salida)) {
+            escritor.beginArray();
+            for (String valor : list) {
+                escritor.value(valor); //Los null se escriben como null, igual que Gson
+            }
+            escritor.endArray();
+        } catch (IOException e) {
+            //StringWriter no lanza IOException; solo por la firma de JsonWriter
+            throw new IllegalStateException("Error serializando lista de strings", e);
+        }
+        return salida.toString();
     }
 
     //Deserializa un string JSON a lista de Strings
-    @TypeConverter
     public static List<String> jsonToListString(String value) {
+        List<String> lista = new ArrayList<>();
         if (value == null) {
-            return new ArrayList<>();
+            return lista; //Lista vacía si el valor es null
+        }
+        try (JsonReader lector = new JsonReader(new StringReader(value))) {
+            if (!abrirArray(lector)) return lista;
+            while (lector.hasNext()) {
+                lista.add(leerStringONull(lector));
+            }
+            lector.endArray();
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalStateException("JSON de etiquetas inválido: " + value, e);
         }
-        Type listType = new TypeToken<List<String>>() {}.getType();
-        return gson.fromJson(value, listType); //Lista de strings, lista vacía si el valor es null
+        return lista;
     }
 
+    //==================== FORMATO ANTIGUO (COLUMNAS JSON) ====================
+    //Hasta la versión 3 de la BD los ingredientes y pasos se guardaban como JSON
+    //en la propia fila de recetas. Ya no son @TypeConverter: solo los usa
+    //Migraciones para leer esos datos y moverlos a sus tablas
+    //Los campos desconocidos se ignoran (Gson escribía todos los campos del modelo)
+
     //Deserializa un string JSON a lista de objetos Ingrediente
-    @TypeConverter
     public static List<Ingrediente> fromIngredientesList(String value) {
+        List<Ingrediente> lista = new ArrayList<>();
         if (value == null) {
-            return new ArrayList<>();
+            return lista;
         }
-        Type listType = new TypeToken<List<Ingrediente>>() {}.getType();
-        return gson.fromJson(value, listType); //Retorna lista de Ingredientes, lista vacía si el valor es null
-    }
-
-    //Serializa una lista de Ingredientes a formato JSON
-    @TypeConverter
-    public static String ingredientesListToString(List<Ingrediente> list) {
-        if (list == null) {
-            return null;
+        try (JsonReader lector = new JsonReader(new StringReader(value))) {
+            if (!abrirArray(lector)) return lista;
+            while (lector.hasNext()) {
+                if (lector.peek() == JsonToken.NULL) {
+                    lector.nextNull();
+                    continue;
+                }
+                Ingrediente ingrediente = new Ingrediente();
+                lector.beginObject();
+                while (lector.hasNext()) {
+                    switch (lector.nextName()) {
+                        case "nombre": ingrediente.setNombre(leerStringONull(lector)); break;
+                        case "cantidad": ingrediente.setCantidad(leerStringONull(lector)); break;
+                        case "notasOpcionales": ingrediente.setNotasOpcionales(leerStringONull(lector)); break;
+                        default: lector.skipValue();
+                    }
+                }
+                lector.endObject();
+                lista.add(ingrediente);
+            }
+            lector.endArray();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalStateException("JSON de ingredientes inválido", e);
         }
-        return gson.toJson(list); //Retorna String en formato JSON, null si la lista es null
+        return lista;
     }
 
     //Deserializa un string JSON a lista de objetos Paso
-    @TypeConverter
     public static List<Paso> fromPasosList(String value) {
+        List<Paso> lista = new ArrayList<>();
         if (value == null) {
-            return new ArrayList<>();
+            return lista;
+        }
+        try (JsonReader lector = new JsonReader(new StringReader(value))) {
+            if (!abrirArray(lector)) return lista;
+            while (lector.hasNext()) {
+                if (lector.peek() == JsonToken.NULL) {
+                    lector.nextNull();
+                    continue;
+                }
+                Paso paso = new Paso();
+                lector.beginObject();
+                while (lector.hasNext()) {
+                    switch (lector.nextName()) {
+                        case "numeroPaso": paso.setNumeroPaso(lector.nextInt()); break;
+                        case "descripcion": paso.setDescripcion(leerStringONull(lector)); break;
+                        default: lector.skipValue();
+                    }
+                }
+                lector.endObject();
+                lista.add(paso);
+            }
+            lector.endArray();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalStateException("JSON de pasos inválido", e);
         }
-        Type listType = new TypeToken<List<Paso>>() {}.getType();
-        return gson.fromJson(value, listType); //Retorna lista de Pasos, lista vacía si el valor es null
+        return lista;
     }
 
-    //Serializa una lista de Pasos a formato JSON
-    @TypeConverter
-    public static String pasosListToString(List<Paso> list) {
-        if (list == null) {
+    //==================== FORMATO BINARIO ====================
+    //[0x00][versión][varint nº elementos] y por cada elemento [varint longitud+1][UTF-8]
+    //(longitud 0 = elemento null). Un JSON nunca empieza por 0x00, así se distingue al leer
+
+    private static final byte MARCA_BINARIO = 0x00;
+    private static final byte VERSION_BINARIO = 1;
+
+    //Indica si un valor de la columna ya está en formato binario
+    public static boolean esFormatoBinario(byte[] value) {
+        return value != null && value.length >= 2 && value[0] == MARCA_BINARIO;
+    }
+
+    //Codifica una lista de Strings en formato binario con prefijos de longitud varint
+    static byte[] codificarListaBinaria(List<String> list) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(list.size() * 12 + 3);
+        salida.write(MARCA_BINARIO);
+        salida.write(VERSION_BINARIO);
+        escribirVarint(salida, list.size());
+        for (String valor : list) {
+            if (valor == null) {
+                escribirVarint(salida, 0);
+                continue;
+            }
+            byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+            escribirVarint(salida, utf8.length + 1);
+            salida.write(utf8, 0, utf8.length);
+        }
+        return salida.toByteArray();
+    }
+
+    //Decodifica una lista de Strings en formato binario
+    static List<String> decodificarListaBinaria(byte[] value) {
+        if (value[1] != VERSION_BINARIO) {
+            throw new IllegalStateException("Versión de formato binario desconocida: " + value[1]);
+        }
+        int[] posicion = {2};
+        int total = leerVarint(value, posicion);
+        List<String> lista = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            int longitud = leerVarint(value, posicion);
+            if (longitud == 0) {
+                lista.add(null);
+                continue;
+            }
+            longitud--;
+            if (posicion[0] + longitud > value.length) {
+                throw new IllegalStateException("Lista binaria truncada");
+            }
+            lista.add(new String(value, posicion[0], longitud, StandardCharsets.UTF_8));
+            posicion[0] += longitud;
+        }
+        return lista;
+    }
+
+    //Escribe un entero no negativo en 7 bits por byte (bit alto = continúa)
+    private static void escribirVarint(ByteArrayOutputStream salida, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            salida.write((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        salida.write(valor);
+    }
+
+    //Lee un varint avanzando la posición indicada
+    private static int leerVarint(byte[] datos, int[] posicion) {
+        int resultado = 0;
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 7) {
+            if (posicion[0] >= datos.length) {
+                throw new IllegalStateException("Lista binaria truncada");
+            }
+            byte b = datos[posicion[0]++];
+            resultado |= (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) return resultado;
+        }
+        throw new IllegalStateException("Varint demasiado largo");
+    }
+
+    //==================== UTILIDADES DE LECTURA ====================
+
+    //Entra en el array raíz; devuelve false si el JSON es el literal null
+    private static boolean abrirArray(JsonReader lector) throws IOException {
+        if (lector.peek() == JsonToken.NULL) {
+            lector.nextNull();
+            return false;
+        }
+        lector.beginArray();
+        return true;
+    }
+
+    //Lee un string admitiendo null (nextString() fallaría con JsonToken.NULL)
+    private static String leerStringONull(JsonReader lector) throws IOException {
+        if (lector.peek() == JsonToken.NULL) {
+            lector.nextNull();
             return null;
         }
-        return gson.toJson(list); //Retorna String en formato JSON, null si la lista es null
+        return lector.nextString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.example.recetarioapp.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.recetarioapp.models.Imagen;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+//Data Access Object (DAO) para el almacén de imágenes direccionado por contenido
+//- ImageStorage busca aquí las importaciones repetidas y registra las nuevas
+//- Las referencias las mantiene RecetaDAO en la misma transacción que cada receta
+//- Las escrituras van al hilo escritor único (RecetasBD.bdEscritura), como las de las recetas
+@Dao
+public interface ImagenDAO {
+
+    //Registra una importación: crea la imagen sin referencias o renueva su fecha de uso
+    @Transaction
+    default void registrarImportacion(String hash, String hashOrigen) {
+        Imagen existente = getPorHash(hash);
+        if (existente == null) {
+            Imagen imagen = new Imagen();
+            imagen.setHash(hash);
+            imagen.setHashOrigen(hashOrigen);
+            imagen.setFechaUso(new Date());
+            insertar(imagen);
+        } else {
+            marcarUso(hash, hashOrigen != null ? hashOrigen : existente.getHashOrigen(), new Date());
+        }
+    }
+
+    @Query("SELECT * FROM imagenes WHERE hash = :hash")
+    Imagen getPorHash(String hash);
+
+    //Imagen ya importada desde los mismos bytes de origen
+    @Query("SELECT * FROM imagenes WHERE hashOrigen = :hashOrigen LIMIT 1")
+    Imagen getPorHashOrigen(String hashOrigen);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertar(Imagen imagen);
+
+    @Query("UPDATE imagenes SET hashOrigen = :hashOrigen, fechaUso = :fechaUso WHERE hash = :hash")
+    void marcarUso(String hash, String hashOrigen, Date fechaUso);
+
+    //Imágenes sin referencias no usadas desde una fecha (candidatas a borrarse)
+    @Query("SELECT * FROM imagenes WHERE referencias = 0 AND fechaUso < :antesDe LIMIT :limite")
+    List<Imagen> getSinReferencias(Date antesDe, int limite);
+
+    //Hashes de las imágenes que alguna receta usa o que se importaron desde una fecha
+    @Query("SELECT hash FROM imagenes WHERE referencias > 0 OR fechaUso >= :desde")
+    List<String> getHashesEnUso(Date desde);
+
+    //Borra la fila solo si sigue sin referencias (una receta pudo usarla mientras tanto)
+    @Query("DELETE FROM imagenes WHERE hash = :hash AND referencias = 0")
+    int eliminarSiSinReferencias(String hash);
+
+    //Como eliminarSiSinReferencias para varias imágenes; devuelve los hashes borrados
+    @Transaction
+    default List<String> eliminarSinReferencias(List<String> hashes) {
+        List<String> borrados = new ArrayList<>();
+        for (String hash : hashes) {
+            if (eliminarSiSinReferencias(hash) > 0) borrados.add(hash);
+        }
+        return borrados;
+    }
+}
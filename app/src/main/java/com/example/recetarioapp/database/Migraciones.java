@@ -0,0 +1,268 @@
+package com.example.recetarioapp.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.recetarioapp.models.Ingrediente;
+import com.example.recetarioapp.models.Paso;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFts;
+
+import java.util.List;
+
+//Migraciones de esquema de la base de datos Room
+//- Cada migración transforma el esquema de la versión N a la N+1 conservando los datos
+//- Se registran en RecetasBD mediante addMigrations()
+//- fallbackToDestructiveMigration() queda solo como red de seguridad para versiones sin ruta
+public final class Migraciones {
+
+    private Migraciones() {}
+
+    //==================== 2 → 3: ÍNDICE DE TEXTO COMPLETO ====================
+
+    //Crea la tabla virtual FTS4 recetas_fts y la rellena con las recetas existentes
+    public static final Migration MIGRACION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `recetas_fts` USING FTS4(" +
+                    "`nombre` TEXT, `descripcion` TEXT, `ingredientes` TEXT, `pasos` TEXT, " +
+                    "`tags` TEXT, tokenize=unicode61)");
+
+            //Indexar las recetas ya guardadas decodificando sus listas JSON
+            try (Cursor cursor = db.query(
+                    "SELECT id, nombre, descripcion, ingredientes, pasos, tags FROM recetas")) {
+                while (cursor.moveToNext()) {
+                    Receta receta = new Receta();
+                    receta.setId(cursor.getLong(0));
+                    receta.setNombre(cursor.getString(1));
+                    receta.setDescripcion(cursor.getString(2));
+                    receta.setIngredientes(Converters.fromIngredientesList(cursor.getString(3)));
+                    receta.setPasos(Converters.fromPasosList(cursor.getString(4)));
+                    receta.setTags(Converters.jsonToListString(cursor.getString(5)));
+                    insertarFilaFts(db, new RecetaFts(receta));
+                }
+            }
+        }
+    };
+
+    //==================== 3 → 4: INGREDIENTES Y PASOS NORMALIZADOS ====================
+
+    //Mueve las listas JSON de recetas.ingredientes/recetas.pasos a las tablas hijas
+    //y reconstruye recetas sin esas columnas (SQLite no admite DROP COLUMN en API 24)
+    //Las claves foráneas están desactivadas durante la migración, así que el DROP no cascada
+    public static final Migration MIGRACION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            //1. Tablas hijas con sus índices
+            db.execSQL("CREATE TABLE IF NOT EXISTS `ingredientes` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`recetaId` INTEGER NOT NULL, `orden` INTEGER NOT NULL, " +
+                    "`nombre` TEXT COLLATE NOCASE, `cantidad` TEXT, `notasOpcionales` TEXT, " +
+                    "FOREIGN KEY(`recetaId`) REFERENCES `recetas`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_ingredientes_recetaId` ON `ingredientes` (`recetaId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_ingredientes_nombre` ON `ingredientes` (`nombre`)");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pasos` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`recetaId` INTEGER NOT NULL, `numeroPaso` INTEGER NOT NULL, `descripcion` TEXT, " +
+                    "FOREIGN KEY(`recetaId`) REFERENCES `recetas`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pasos_recetaId` ON `pasos` (`recetaId`)");
+
+            //2. Copiar cada lista JSON a su tabla, fila a fila
+            try (Cursor cursor = db.query("SELECT id, ingredientes, pasos FROM recetas")) {
+                while (cursor.moveToNext()) {
+                    long recetaId = cursor.getLong(0);
+
+                    List<Ingrediente> ingredientes = Converters.fromIngredientesList(cursor.getString(1));
+                    for (int i = 0; i < ingredientes.size(); i++) {
+                        Ingrediente ingrediente = ingredientes.get(i);
+                        ContentValues valores = new ContentValues();
+                        valores.put("recetaId", recetaId);
+                        valores.put("orden", i);
+                        valores.put("nombre", ingrediente.getNombre());
+                        valores.put("cantidad", ingrediente.getCantidad());
+                        valores.put("notasOpcionales", ingrediente.getNotasOpcionales());
+                        db.insert("ingredientes", SQLiteDatabase.CONFLICT_NONE, valores);
+                    }
+
+                    for (Paso paso : Converters.fromPasosList(cursor.getString(2))) {
+                        ContentValues valores = new ContentValues();
+                        valores.put("recetaId", recetaId);
+                        valores.put("numeroPaso", paso.getNumeroPaso());
+                        valores.put("descripcion", paso.getDescripcion());
+                        db.insert("pasos", SQLiteDatabase.CONFLICT_NONE, valores);
+                    }
+                }
+            }
+
+            //3. Reconstruir recetas sin las columnas JSON conservando los ids
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recetas_nueva` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `firebaseId` TEXT, " +
+                    "`nombre` TEXT, `descripcion` TEXT, `imagenPortadaURL` TEXT, " +
+                    "`tiempoPreparacion` INTEGER NOT NULL, `porciones` INTEGER NOT NULL, " +
+                    "`dificultad` TEXT, `categoria` TEXT, `origen` TEXT, `tags` TEXT, " +
+                    "`fechaCreacion` INTEGER, `fechaModificacion` INTEGER, " +
+                    "`isFav` INTEGER NOT NULL, `usuarioId` TEXT)");
+            db.execSQL("INSERT INTO recetas_nueva (" + COLUMNAS_RECETAS_V4 + ") " +
+                    "SELECT " + COLUMNAS_RECETAS_V4 + " FROM recetas");
+            db.execSQL("DROP TABLE recetas");
+            db.execSQL("ALTER TABLE recetas_nueva RENAME TO recetas");
+        }
+    };
+
+    //Columnas de recetas a partir de la versión 4 (en la 6 solo cambia el tipo de tags)
+    private static final String COLUMNAS_RECETAS_V4 = "id, firebaseId, nombre, descripcion, " +
+            "imagenPortadaURL, tiempoPreparacion, porciones, dificultad, categoria, origen, " +
+            "tags, fechaCreacion, fechaModificacion, isFav, usuarioId";
+
+    //==================== 4 → 5: ÍNDICES SECUNDARIOS EN RECETAS ====================
+
+    //Crea los índices de filtrado/ordenación de recetas
+    //Antes del índice único de firebaseId se eliminan los duplicados que dejaron
+    //sincronizaciones anteriores (se conserva la fila local más antigua)
+    public static final Migration MIGRACION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            //1. Duplicados por firebaseId (con las claves foráneas desactivadas no hay cascada)
+            String duplicadas = "SELECT id FROM recetas WHERE firebaseId IS NOT NULL " +
+                    "AND id NOT IN (SELECT MIN(id) FROM recetas " +
+                    "WHERE firebaseId IS NOT NULL GROUP BY firebaseId)";
+            db.execSQL("DELETE FROM ingredientes WHERE recetaId IN (" + duplicadas + ")");
+            db.execSQL("DELETE FROM pasos WHERE recetaId IN (" + duplicadas + ")");
+            db.execSQL("DELETE FROM recetas_fts WHERE rowid IN (" + duplicadas + ")");
+            db.execSQL("DELETE FROM recetas WHERE id IN (" + duplicadas + ")");
+
+            //2. Índices (mismos nombres que genera Room para las anotaciones de Receta)
+            crearIndicesRecetas(db);
+
+            //3. Estadísticas para que el planificador elija bien entre índices
+            db.execSQL("ANALYZE");
+        }
+    };
+
+    //==================== 5 → 6: COLUMNA TAGS COMO BLOB ====================
+
+    //Cambia el tipo de recetas.tags a BLOB para el formato binario de Converters
+    //Las filas existentes se copian tal cual (JSON en texto, legible por blobToTags);
+    //MigradorFormatoTags las reescribe después en segundo plano, por lotes
+    public static final Migration MIGRACION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recetas_nueva` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `firebaseId` TEXT, " +
+                    "`nombre` TEXT, `descripcion` TEXT, `imagenPortadaURL` TEXT, " +
+                    "`tiempoPreparacion` INTEGER NOT NULL, `porciones` INTEGER NOT NULL, " +
+                    "`dificultad` TEXT, `categoria` TEXT, `origen` TEXT, `tags` BLOB, " +
+                    "`fechaCreacion` INTEGER, `fechaModificacion` INTEGER, " +
+                    "`isFav` INTEGER NOT NULL, `usuarioId` TEXT)");
+            db.execSQL("INSERT INTO recetas_nueva (" + COLUMNAS_RECETAS_V4 + ") " +
+                    "SELECT " + COLUMNAS_RECETAS_V4 + " FROM recetas");
+            db.execSQL("DROP TABLE recetas");
+            db.execSQL("ALTER TABLE recetas_nueva RENAME TO recetas");
+            crearIndicesRecetas(db);
+        }
+    };
+
+    //==================== 6 → 7: COLA DE SALIDA HACIA FIREBASE ====================
+
+    //Crea la tabla operaciones_pendientes (una fila por receta con cambios sin subir)
+    public static final Migration MIGRACION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `operaciones_pendientes` (" +
+                    "`recetaId` INTEGER NOT NULL, `firebaseId` TEXT, `tipo` TEXT, " +
+                    "`version` INTEGER NOT NULL, `fechaEncolada` INTEGER, " +
+                    "PRIMARY KEY(`recetaId`))");
+        }
+    };
+
+    //==================== 7 → 8: HUELLAS DEL ÚLTIMO ESTADO SUBIDO ====================
+
+    //Crea la tabla huellas_sincronizadas (subidas parciales con update())
+    //Vacía al migrar: la primera subida de cada receta usa set() completo
+    public static final Migration MIGRACION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `huellas_sincronizadas` (" +
+                    "`recetaId` INTEGER NOT NULL, `esquema` INTEGER NOT NULL, `huellas` TEXT, " +
+                    "PRIMARY KEY(`recetaId`), " +
+                    "FOREIGN KEY(`recetaId`) REFERENCES `recetas`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+        }
+    };
+
+    //==================== 8 → 9: HASH DE CONTENIDO ====================
+
+    //Añade recetas.hashContenido; las filas existentes quedan a 0 (sin calcular)
+    //hasta su siguiente edición o descarga, y 0 nunca se considera igual a otro hash
+    public static final Migration MIGRACION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `recetas` ADD COLUMN `hashContenido` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    //==================== 9 → 10: ALMACÉN DE IMÁGENES POR CONTENIDO ====================
+
+    //Crea la tabla imagenes (hash de contenido → referencias)
+    //Las imágenes anteriores tienen nombre UUID y no se registran (Imagen.hashDeRuta las ignora)
+    public static final Migration MIGRACION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `imagenes` (" +
+                    "`hash` TEXT NOT NULL, `hashOrigen` TEXT, `referencias` INTEGER NOT NULL, " +
+                    "`fechaUso` INTEGER, PRIMARY KEY(`hash`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_imagenes_hashOrigen` ON `imagenes` (`hashOrigen`)");
+        }
+    };
+
+    //==================== 10 → 11: COLA DE SALIDA POR USUARIO Y CON REINTENTOS ====================
+
+    //Añade a operaciones_pendientes la cuenta que hizo el cambio y el control de reintentos
+    //Las filas existentes quedan sin usuario: las reclama la primera cuenta que envíe la cola
+    public static final Migration MIGRACION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `operaciones_pendientes` ADD COLUMN `usuarioId` TEXT");
+            db.execSQL("ALTER TABLE `operaciones_pendientes` ADD COLUMN `intentos` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `operaciones_pendientes` ADD COLUMN `proximoIntento` INTEGER");
+        }
+    };
+
+    //==================== UTILIDADES ====================
+
+    //Crea los índices de recetas (mismos nombres que genera Room para las anotaciones de Receta)
+    private static void crearIndicesRecetas(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_recetas_isFav_fechaCreacion` " +
+                "ON `recetas` (`isFav`, `fechaCreacion`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_recetas_categoria_fechaCreacion` " +
+                "ON `recetas` (`categoria`, `fechaCreacion`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_recetas_dificultad_fechaCreacion` " +
+                "ON `recetas` (`dificultad`, `fechaCreacion`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_recetas_tiempoPreparacion` " +
+                "ON `recetas` (`tiempoPreparacion`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_recetas_fechaCreacion` " +
+                "ON `recetas` (`fechaCreacion`)");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_recetas_firebaseId` " +
+                "ON `recetas` (`firebaseId`)");
+    }
+
+    //Inserta una fila en recetas_fts usando el id de la receta como rowid
+    private static void insertarFilaFts(SupportSQLiteDatabase db, RecetaFts fila) {
+        ContentValues valores = new ContentValues();
+        valores.put("rowid", fila.getRowid());
+        valores.put("nombre", fila.getNombre());
+        valores.put("descripcion", fila.getDescripcion());
+        valores.put("ingredientes", fila.getIngredientes());
+        valores.put("pasos", fila.getPasos());
+        valores.put("tags", fila.getTags());
+        db.insert("recetas_fts", SQLiteDatabase.CONFLICT_REPLACE, valores);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.recetarioapp.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Reescribe en segundo plano la columna recetas.tags al formato binario de Converters
+//- Solo toca filas que siguen en JSON (texto heredado o BLOB sin la marca binaria)
+//- Trabaja por lotes pequeños, cada uno en su propia transacción, para no bloquear
+//  la base de datos mientras la UI lee
+//- Es idempotente: si se interrumpe, la siguiente apertura continúa donde lo dejó
+final class MigradorFormatoTags {
+
+    private static final String TAG = "MigradorFormatoTags";
+    private static final int TAMANO_LOTE = 200; //Filas por transacción
+
+    //Filas pendientes: texto (versiones < 6) o BLOB que no empieza por la marca 0x00
+    private static final String CONSULTA_PENDIENTES = "SELECT id, tags FROM recetas " +
+            "WHERE typeof(tags) = 'text' " +
+            "OR (typeof(tags) = 'blob' AND hex(substr(tags, 1, 1)) <> '00') " +
+            "LIMIT " + TAMANO_LOTE;
+
+    private MigradorFormatoTags() {}
+
+    //Convierte todas las filas pendientes, lote a lote
+    static void ejecutar(RecetasBD bd) {
+        try {
+            SupportSQLiteDatabase db = bd.getOpenHelper().getWritableDatabase();
+            int total = 0;
+            int convertidas;
+            do {
+                convertidas = convertirLote(db);
+                total += convertidas;
+            } while (convertidas == TAMANO_LOTE);
+
+            if (total > 0) {
+                Log.d(TAG, "Etiquetas convertidas a formato binario: " + total);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error migrando etiquetas: " + e.getMessage());
+        }
+    }
+
+    //Convierte un lote de filas en una transacción; devuelve cuántas procesó
+    private static int convertirLote(SupportSQLiteDatabase db) {
+        int procesadas = 0;
+        db.beginTransaction();
+        try {
+            try (Cursor cursor = db.query(CONSULTA_PENDIENTES)) {
+                while (cursor.moveToNext()) {
+                    long id = cursor.getLong(0);
+                    ContentValues valores = new ContentValues();
+                    valores.put("tags", convertirValor(id, cursor.getBlob(1)));
+                    db.update("recetas", SQLiteDatabase.CONFLICT_NONE, valores,
+                            "id = ?", new Object[]{id});
+                    procesadas++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return procesadas;
+    }
+
+    //Valor de la columna en formato binario a partir del antiguo (JSON en texto o BLOB)
+    static byte[] convertirValor(long id, byte[] valor) {
+        return Converters.codificarListaBinaria(leerTags(id, valor));
+    }
+
+    //Decodifica las etiquetas antiguas; una fila corrupta se deja vacía para no reintentarla siempre
+    private static List<String> leerTags(long id, byte[] valor) {
+        try {
+            return Converters.blobToTags(valor);
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Etiquetas ilegibles en la receta " + id + ", se vacían");
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.recetarioapp.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+
+import java.util.Date;
+import java.util.List;
+
+//Data Access Object (DAO) para la cola de salida hacia Firebase
+//- encolar() agrupa las operaciones de una misma receta en una sola fila
+//- ColaSalida lee los pendientes de la cuenta con sesión por lotes y confirma los enviados
+//- Los envíos fallidos se cuentan por operación (espera creciente y aislamiento)
+//- También guarda la huella del último estado subido de cada receta (subidas parciales)
+@Dao
+public interface OperacionPendienteDAO {
+
+    //==================== ENCOLAR (CON AGRUPACIÓN) ====================
+
+    //Registra una operación sobre una receta agrupándola con la pendiente, si la hay:
+    //- CREAR + ACTUALIZAR → CREAR (el envío sube el estado actual de la receta)
+    //- ACTUALIZAR + ACTUALIZAR → ACTUALIZAR
+    //- CREAR sin documento remoto + ELIMINAR → nada que enviar (se borra la fila)
+    //- Cualquier otra + ELIMINAR → ELIMINAR
+    //Sin fila previa, ACTUALIZAR/ELIMINAR de una receta nunca subida se ignoran
+    //La fila pasa a la cuenta que hace el cambio y vuelve a intentarse desde cero
+    //Debe llamarse en la misma transacción que la escritura local
+    @Transaction
+    default void encolar(long recetaId, String firebaseId, String tipo, String usuarioId) {
+        OperacionPendiente actual = getPorReceta(recetaId);
+        if (actual == null) {
+            if (firebaseId == null && !OperacionPendiente.CREAR.equals(tipo)) return;
+            guardar(new OperacionPendiente(recetaId, firebaseId, tipo, usuarioId));
+            return;
+        }
+        actual.setUsuarioId(usuarioId);
+        actual.setIntentos(0);
+        actual.setProximoIntento(null);
+
+        if (OperacionPendiente.ELIMINAR.equals(tipo)) {
+            String remoto = firebaseId != null ? firebaseId : actual.getFirebaseId();
+            if (OperacionPendiente.CREAR.equals(actual.getTipo()) && remoto == null) {
+                eliminar(recetaId); //Nunca llegó a Firebase
+                return;
+            }
+            actual.setTipo(OperacionPendiente.ELIMINAR);
+            actual.setFirebaseId(remoto);
+        } else if (!OperacionPendiente.CREAR.equals(actual.getTipo())) {
+            actual.setTipo(tipo);
+        }
+        if (firebaseId != null) actual.setFirebaseId(firebaseId);
+        actual.setVersion(actual.getVersion() + 1);
+        guardar(actual);
+    }
+
+    //==================== ENVÍO ====================
+
+    //Asigna el documento remoto de una creación antes de enviarla, en la cola y en la receta,
+    //así un reintento tras un cierre de la app reescribe el mismo documento y no lo duplica
+    @Transaction
+    default void asignarFirebaseId(long recetaId, String firebaseId) {
+        actualizarFirebaseIdPendiente(recetaId, firebaseId);
+        actualizarFirebaseIdReceta(recetaId, firebaseId);
+    }
+
+    //Retira de la cola las operaciones enviadas que no han cambiado durante el envío
+    //(si la versión aumentó, la fila se queda para el siguiente lote)
+    @Transaction
+    default void confirmarEnviadas(List<OperacionPendiente> enviadas) {
+        for (OperacionPendiente enviada : enviadas) {
+            eliminarSiVersion(enviada.getRecetaId(), enviada.getVersion());
+        }
+    }
+
+    //Retira los enviados y guarda la huella de lo que ahora hay en Firebase, en una transacción
+    @Transaction
+    default void confirmarEnviadas(List<OperacionPendiente> enviadas, List<HuellaSincronizada> huellas) {
+        confirmarEnviadas(enviadas);
+        for (HuellaSincronizada huella : huellas) {
+            guardarHuella(huella.getRecetaId(), huella.getEsquema(), huella.getHuellas());
+        }
+    }
+
+    //Cuenta un envío fallido de cada operación del lote y aplaza su siguiente intento
+    //(las que cambiaron durante el envío no se penalizan: su nueva versión empieza de cero)
+    //Devuelve cuántas operaciones alcanzaron MAX_INTENTOS y quedan apartadas
+    @Transaction
+    default int registrarFallo(List<OperacionPendiente> fallidas, long ahora) {
+        int apartadas = 0;
+        for (OperacionPendiente fallida : fallidas) {
+            int intentos = fallida.getIntentos() + 1;
+            Date proximo = new Date(ahora + OperacionPendiente.esperaTrasFallos(intentos));
+            actualizarIntentos(fallida.getRecetaId(), fallida.getVersion(), intentos, proximo);
+            if (intentos == OperacionPendiente.MAX_INTENTOS) apartadas++;
+        }
+        return apartadas;
+    }
+
+    //==================== HUELLAS DEL ÚLTIMO ESTADO SUBIDO ====================
+
+    //Huellas de varias recetas (no llamar con más de RecetaDAO.MAX_VARIABLES_SQL ids)
+    @Query("SELECT * FROM huellas_sincronizadas WHERE recetaId IN (:recetaIds)")
+    List<HuellaSincronizada> getHuellas(List<Long> recetaIds);
+
+    //Guarda la huella solo si la receta sigue existiendo (puede borrarse durante el envío)
+    @Query("INSERT OR REPLACE INTO huellas_sincronizadas (recetaId, esquema, huellas) " +
+            "SELECT :recetaId, :esquema, :huellas WHERE EXISTS (SELECT 1 FROM recetas WHERE id = :recetaId)")
+    void guardarHuella(long recetaId, int esquema, String huellas);
+
+    //==================== CONSULTAS Y ESCRITURAS DE BAJO NIVEL ====================
+
+    //Operaciones de la cuenta listas para enviar, más antiguas primero
+    //(sin las que esperan un reintento ni las apartadas por fallar MAX_INTENTOS veces)
+    @Query("SELECT * FROM operaciones_pendientes WHERE usuarioId = :usuarioId " +
+            "AND intentos < " + OperacionPendiente.MAX_INTENTOS + " " +
+            "AND (proximoIntento IS NULL OR proximoIntento <= :ahora) " +
+            "ORDER BY fechaEncolada LIMIT :limite")
+    List<OperacionPendiente> getPendientes(String usuarioId, Date ahora, int limite);
+
+    //Fecha del siguiente reintento aplazado de la cuenta (null si no hay ninguno)
+    @Query("SELECT MIN(proximoIntento) FROM operaciones_pendientes WHERE usuarioId = :usuarioId " +
+            "AND intentos < " + OperacionPendiente.MAX_INTENTOS + " AND proximoIntento > :ahora")
+    Date getSiguienteReintento(String usuarioId, Date ahora);
+
+    //Asigna a la cuenta las filas encoladas antes de guardar el usuario (migración 10 → 11)
+    @Query("UPDATE operaciones_pendientes SET usuarioId = :usuarioId WHERE usuarioId IS NULL")
+    void reclamarSinUsuario(String usuarioId);
+
+    @Query("SELECT * FROM operaciones_pendientes WHERE recetaId = :recetaId")
+    OperacionPendiente getPorReceta(long recetaId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void guardar(OperacionPendiente operacion);
+
+    @Query("DELETE FROM operaciones_pendientes WHERE recetaId = :recetaId")
+    void eliminar(long recetaId);
+
+    @Query("DELETE FROM operaciones_pendientes WHERE recetaId = :recetaId AND version = :version")
+    void eliminarSiVersion(long recetaId, int version);
+
+    @Query("UPDATE operaciones_pendientes SET intentos = :intentos, proximoIntento = :proximoIntento " +
+            "WHERE recetaId = :recetaId AND version = :version")
+    void actualizarIntentos(long recetaId, int version, int intentos, Date proximoIntento);
+
+    @Query("UPDATE operaciones_pendientes SET firebaseId = :firebaseId WHERE recetaId = :recetaId")
+    void actualizarFirebaseIdPendiente(long recetaId, String firebaseId);
+
+    @Query("UPDATE recetas SET firebaseId = :firebaseId WHERE id = :recetaId")
+    void actualizarFirebaseIdReceta(long recetaId, String firebaseId);
+}
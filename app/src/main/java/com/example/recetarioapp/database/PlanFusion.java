@@ -0,0 +1,89 @@
+package com.example.recetarioapp.database;
+
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaVersion;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Decisión de cómo fusionar recetas remotas con las locales, sin acceso a la base de datos
+//- RecetaDAO.fusionarRemotas carga el estado local, pide el plan y lo aplica en su transacción
+//- Separada del DAO para poder probar en la JVM el camino de la fusión
+//  (descarga por páginas y escucha en tiempo real)
+public final class PlanFusion {
+
+    //Recetas nuevas en local (con id 0 para que Room lo genere)
+    final List<Receta> insertar = new ArrayList<>();
+    //Versiones más recientes que sustituyen a la local (con el id y el favorito locales)
+    final List<Receta> actualizar = new ArrayList<>();
+    //Más recientes pero con el mismo contenido: solo avanza fechaModificacion (con el id local)
+    final List<Receta> soloFecha = new ArrayList<>();
+    //firebaseId de las lápidas (documentos borrados en remoto) que tienen copia local
+    final List<String> eliminar = new ArrayList<>();
+    //Sin cambios, repetidas, sin firebaseId, pendientes de borrar o lápidas sin copia local
+    int omitidas;
+
+    private PlanFusion() {}
+
+    //Un documento por firebaseId (el último gana) para no violar el índice único
+    //Se descartan las recetas sin firebaseId y las borradas en local con el borrado aún en cola
+    static Map<String, Receta> porFirebaseId(List<Receta> remotas, Set<String> pendientesDeBorrar) {
+        Map<String, Receta> unicas = new LinkedHashMap<>();
+        for (Receta remota : remotas) {
+            if (remota.getFirebaseId() != null && !pendientesDeBorrar.contains(remota.getFirebaseId())) {
+                unicas.put(remota.getFirebaseId(), remota);
+            }
+        }
+        return unicas;
+    }
+
+    //Decide qué hacer con cada receta remota según su versión local (existentes por firebaseId)
+    //- totalRemotas: tamaño del lote original, para contar como omitidas las descartadas
+    //- Ajusta id y favorito de las recetas remotas que se van a escribir
+    //- Una lápida borra la copia local aunque tenga ediciones sin subir (el borrado remoto gana)
+    static PlanFusion planificar(int totalRemotas, Map<String, Receta> unicas,
+                                 Map<String, RecetaVersion> existentes) {
+        PlanFusion plan = new PlanFusion();
+        plan.omitidas = totalRemotas - unicas.size();
+        for (Receta remota : unicas.values()) {
+            RecetaVersion local = existentes.get(remota.getFirebaseId());
+            if (remota.isEliminadaRemota()) {
+                if (local != null) {
+                    plan.eliminar.add(remota.getFirebaseId());
+                } else {
+                    plan.omitidas++; //Nunca llegó a este dispositivo
+                }
+            } else if (local == null) {
+                remota.setId(0); //Forzar autogeneración
+                plan.insertar.add(remota);
+            } else if (esMasReciente(remota, local) && mismoContenido(remota, local)) {
+                remota.setId(local.getId());
+                plan.soloFecha.add(remota);
+                plan.omitidas++;
+            } else if (esMasReciente(remota, local)) {
+                remota.setId(local.getId());
+                remota.setFav(local.isFav()); //Marcar favorito no se sube a Firebase
+                plan.actualizar.add(remota);
+            } else {
+                plan.omitidas++;
+            }
+        }
+        return plan;
+    }
+
+    //Indica si la copia remota es posterior a la local (sin fecha local se considera antigua)
+    static boolean esMasReciente(Receta remota, RecetaVersion local) {
+        if (remota.getFechaModificacion() == null) return false;
+        return local.getFechaModificacion() == null
+                || remota.getFechaModificacion().after(local.getFechaModificacion());
+    }
+
+    //Indica si ambas copias tienen el mismo contenido (hash 0 = desconocido, nunca coincide)
+    static boolean mismoContenido(Receta remota, RecetaVersion local) {
+        return local.getHashContenido() != 0
+                && remota.getHashContenido() == local.getHashContenido();
+    }
+}
@@ -1,85 +1,372 @@
 package com.example.recetarioapp.database;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.recetarioapp.models.Imagen;
+import com.example.recetarioapp.models.Ingrediente;
+import com.example.recetarioapp.models.Paso;
 import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaCompleta;
+import com.example.recetarioapp.models.RecetaFts;
+import com.example.recetarioapp.models.RecetaResumen;
+import com.example.recetarioapp.models.RecetaVersion;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 //Data Access Object (DAO) para operaciones de base de datos con la entidad Receta
 //Define todas las operaciones CRUD (Create, Read, Update, Delete) y consultas
 //específicas para la gestión de recetas en la base de datos local
 //Utiliza LiveData para proporcionar datos observables que actualizan
 //automáticamente la UI cuando cambian los datos subyacentes
+//Las listas grandes se exponen como PagingSource para cargarlas por páginas
 @Dao
 public interface RecetaDAO {
 
     //==================== OPERACIONES CRUD BÁSICAS ====================
 
-    //Inserta una receta en la base de datos
+    //Inserta una receta con sus ingredientes y pasos y la indexa para búsqueda
     //Si ya existe una receta con el mismo ID, la reemplaza
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insert(Receta receta);
+    //Las referencias a imágenes (tabla imagenes) se actualizan en la misma transacción
+    @Transaction
+    default long insert(Receta receta) {
+        String imagenAnterior = receta.getId() != 0 ? getImagenPortada(receta.getId()) : null;
+        long id = insertReceta(receta);
+        cambiarReferenciaImagen(imagenAnterior, receta.getImagenPortadaURL());
+        receta.setId(id);
+        reemplazarHijos(receta);
+        insertIndice(new RecetaFts(receta));
+        return id;
+    }
+
+    //Inserta múltiples recetas en una única transacción
+    @Transaction
+    default void insertAll(List<Receta> recetas) {
+        for (Receta receta : recetas) {
+            insert(receta);
+        }
+    }
+
+    //Actualiza una receta existente, sus tablas hijas y su fila del índice de búsqueda
+    @Transaction
+    default void update(Receta receta) {
+        String imagenAnterior = getImagenPortada(receta.getId());
+        updateReceta(receta);
+        cambiarReferenciaImagen(imagenAnterior, receta.getImagenPortadaURL());
+        reemplazarHijos(receta);
+        insertIndice(new RecetaFts(receta));
+    }
+
+    //Elimina una receta específica y su fila del índice de búsqueda
+    //Los ingredientes y pasos se eliminan en cascada por la clave foránea
+    @Transaction
+    default void delete(Receta receta) {
+        String imagenAnterior = getImagenPortada(receta.getId());
+        deleteReceta(receta);
+        deleteIndice(receta.getId());
+        cambiarReferenciaImagen(imagenAnterior, null);
+    }
+
+    //Traslada una referencia de imagen (ruta anterior → nueva) en la tabla imagenes
+    //Las rutas que no son del almacén por contenido (URIs, imágenes antiguas) se ignoran
+    default void cambiarReferenciaImagen(String rutaAnterior, String rutaNueva) {
+        String anterior = Imagen.hashDeRuta(rutaAnterior);
+        String nueva = Imagen.hashDeRuta(rutaNueva);
+        if (anterior != null && anterior.equals(nueva)) return;
+        if (anterior != null) restarReferenciaImagen(anterior);
+        if (nueva != null) sumarReferenciaImagen(nueva);
+    }
+
+    //Fusiona las recetas descargadas de Firebase en una única transacción (decisión en PlanFusion)
+    //- Las existentes se resuelven con consultas IN por lotes, no una consulta por receta
+    //- Nuevas → insert; más recientes que la copia local → update; resto → se omiten
+    //- Al actualizar se conserva el favorito local (marcarlo no se sube a Firebase)
+    //- Si el hash de contenido coincide solo se avanza fechaModificacion (sin reescribir
+    //  la fila, sus hijos ni el índice FTS)
+    //- Las borradas en local con el borrado aún en la cola de salida no se reinsertan
+    //- Las lápidas (documentos marcados como eliminada) borran la copia local
+    @Transaction
+    default ResultadoFusion fusionarRemotas(List<Receta> remotas) {
+        Map<String, Receta> unicas = PlanFusion.porFirebaseId(remotas,
+                new HashSet<>(getFirebaseIdsPendientesDeBorrar()));
+        PlanFusion plan = PlanFusion.planificar(remotas.size(), unicas,
+                buscarVersionesPorFirebaseId(new ArrayList<>(unicas.keySet())));
+
+        for (Receta remota : plan.insertar) {
+            insert(remota);
+        }
+        for (Receta remota : plan.soloFecha) {
+            actualizarFechaModificacion(remota.getId(), remota.getFechaModificacion());
+            deleteHuella(remota.getId());
+        }
+        for (Receta remota : plan.actualizar) {
+            update(remota);
+            deleteHuella(remota.getId()); //Firebase ya no coincide con lo último subido
+        }
+
+        ResultadoFusion resultado = new ResultadoFusion();
+        resultado.insertadas = plan.insertar.size();
+        resultado.actualizadas = plan.actualizar.size();
+        resultado.omitidas = plan.omitidas;
+        resultado.eliminadas = eliminarPorFirebaseIds(plan.eliminar);
+        return resultado;
+    }
+
+    //Aplica un lote de cambios de la escucha en tiempo real en una única transacción
+    //(altas, modificaciones y lápidas con las reglas de fusionarRemotas, más los documentos
+    //que desaparecieron de la consulta: borrados definitivos de versiones anteriores)
+    @Transaction
+    default ResultadoFusion aplicarCambiosRemotos(List<Receta> modificadas, List<String> eliminadas) {
+        ResultadoFusion resultado = fusionarRemotas(modificadas);
+        resultado.eliminadas += eliminarPorFirebaseIds(eliminadas);
+        return resultado;
+    }
+
+    //Elimina las recetas de varios documentos remotos, su índice FTS y sus envíos pendientes
+    //(el borrado remoto gana a una edición local aún sin subir)
+    default int eliminarPorFirebaseIds(List<String> firebaseIds) {
+        int eliminadas = 0;
+        for (int inicio = 0; inicio < firebaseIds.size(); inicio += MAX_VARIABLES_SQL) {
+            int fin = Math.min(inicio + MAX_VARIABLES_SQL, firebaseIds.size());
+            List<Long> ids = getIdsPorFirebaseId(firebaseIds.subList(inicio, fin));
+            if (ids.isEmpty()) continue;
+            for (String imagen : getImagenesPortada(ids)) {
+                cambiarReferenciaImagen(imagen, null);
+            }
+            deleteIndices(ids);
+            deleteOperacionesPendientes(ids);
+            deleteRecetasPorId(ids); //Ingredientes y pasos en cascada
+            eliminadas += ids.size();
+        }
+        return eliminadas;
+    }
+
+    //Carga las versiones locales de varios firebaseId en lotes de MAX_VARIABLES_SQL
+    default Map<String, RecetaVersion> buscarVersionesPorFirebaseId(List<String> firebaseIds) {
+        Map<String, RecetaVersion> versiones = new HashMap<>(firebaseIds.size() * 2);
+        for (int inicio = 0; inicio < firebaseIds.size(); inicio += MAX_VARIABLES_SQL) {
+            int fin = Math.min(inicio + MAX_VARIABLES_SQL, firebaseIds.size());
+            for (RecetaVersion version : getVersionesPorFirebaseId(firebaseIds.subList(inicio, fin))) {
+                versiones.put(version.getFirebaseId(), version);
+            }
+        }
+        return versiones;
+    }
+
+    //Sustituye los ingredientes y pasos de una receta por los de sus listas actuales
+    //Debe llamarse dentro de una transacción (insert/update)
+    default void reemplazarHijos(Receta receta) {
+        long recetaId = receta.getId();
+        deleteIngredientesDeReceta(recetaId);
+        deletePasosDeReceta(recetaId);
+
+        List<Ingrediente> ingredientes = receta.getIngredientes();
+        if (ingredientes != null) {
+            for (int i = 0; i < ingredientes.size(); i++) {
+                Ingrediente ingrediente = ingredientes.get(i);
+                ingrediente.setId(0); //Forzar autogeneración
+                ingrediente.setRecetaId(recetaId);
+                ingrediente.setOrden(i);
+            }
+            insertIngredientes(ingredientes);
+        }
+
+        List<Paso> pasos = receta.getPasos();
+        if (pasos != null) {
+            for (Paso paso : pasos) {
+                paso.setId(0); //Forzar autogeneración
+                paso.setRecetaId(recetaId);
+            }
+            insertPasos(pasos);
+        }
+    }
+
+    //==================== ESCRITURAS DE BAJO NIVEL ====================
+    //Usar los métodos anteriores para mantener recetas_fts sincronizada
 
-    //Inserta múltiples recetas en la base de datos
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertAll(List<Receta> recetas);
+    long insertReceta(Receta receta);
 
-    //Actualiza una receta existente en la base de datos
     @Update
-    void update(Receta receta);
+    void updateReceta(Receta receta);
 
-    //Elimina una receta específica de la base de datos
     @Delete
-    void delete(Receta receta);
+    void deleteReceta(Receta receta);
+
+    //Inserta o reemplaza la fila FTS de una receta (rowid = id de la receta)
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertIndice(RecetaFts fila);
+
+    //Elimina la fila FTS asociada a una receta
+    @Query("DELETE FROM recetas_fts WHERE rowid = :id")
+    void deleteIndice(long id);
+
+    //Borrados por lotes (no llamar con más de MAX_VARIABLES_SQL ids)
+    @Query("DELETE FROM recetas_fts WHERE rowid IN (:ids)")
+    void deleteIndices(List<Long> ids);
+
+    @Query("DELETE FROM recetas WHERE id IN (:ids)")
+    void deleteRecetasPorId(List<Long> ids);
+
+    @Query("DELETE FROM operaciones_pendientes WHERE recetaId IN (:ids)")
+    void deleteOperacionesPendientes(List<Long> ids);
+
+    @Query("DELETE FROM huellas_sincronizadas WHERE recetaId = :recetaId")
+    void deleteHuella(long recetaId);
+
+    //Referencias del almacén de imágenes (ver cambiarReferenciaImagen)
+    @Query("SELECT imagenPortadaURL FROM recetas WHERE id = :id")
+    String getImagenPortada(long id);
+
+    @Query("SELECT imagenPortadaURL FROM recetas WHERE id IN (:ids)")
+    List<String> getImagenesPortada(List<Long> ids);
+
+    //Todas las rutas de imagen en uso (solo esa columna, para RecolectorImagenes)
+    @Query("SELECT DISTINCT imagenPortadaURL FROM recetas WHERE imagenPortadaURL IS NOT NULL")
+    List<String> getRutasImagenes();
+
+    @Query("UPDATE imagenes SET referencias = referencias + 1 WHERE hash = :hash")
+    void sumarReferenciaImagen(String hash);
+
+    @Query("UPDATE imagenes SET referencias = MAX(0, referencias - 1) WHERE hash = :hash")
+    void restarReferenciaImagen(String hash);
+
+    @Insert
+    void insertIngredientes(List<Ingrediente> ingredientes);
+
+    @Insert
+    void insertPasos(List<Paso> pasos);
+
+    @Query("DELETE FROM ingredientes WHERE recetaId = :recetaId")
+    void deleteIngredientesDeReceta(long recetaId);
+
+    @Query("DELETE FROM pasos WHERE recetaId = :recetaId")
+    void deletePasosDeReceta(long recetaId);
 
     //==================== CONSULTAS DE LECTURA ====================
 
-    //Obtiene todas las recetas ordenadas por fecha de creación (más recientes primero)
-    @Query("SELECT * FROM recetas ORDER BY fechaCreacion DESC")
-    LiveData<List<Receta>> getAllRecetas();
+    //Columnas de la proyección RecetaResumen (listados: sin listas, tags ni fechas)
+    String COLUMNAS_RESUMEN = "recetas.id, recetas.nombre, recetas.descripcion, " +
+            "recetas.imagenPortadaURL, recetas.tiempoPreparacion, recetas.porciones, " +
+            "recetas.dificultad, recetas.categoria, recetas.isFav, recetas.hashContenido";
 
-    //Obtiene una receta específica por su ID local
+    //Obtiene una receta con sus ingredientes y pasos por su ID local (pantalla de detalle)
+    @Transaction
     @Query("SELECT * FROM recetas WHERE id = :id")
-    LiveData<Receta> getRecetaById(long id);
+    LiveData<RecetaCompleta> getRecetaCompletaById(long id);
+
+    //Carga varias recetas completas de forma síncrona (envío de la cola de salida)
+    //No llamar con más de MAX_VARIABLES_SQL ids
+    @Transaction
+    @Query("SELECT * FROM recetas WHERE id IN (:ids)")
+    List<RecetaCompleta> getRecetasCompletas(List<Long> ids);
 
     //Obtiene una receta por su ID de Firebase (para sincronización)
     @Query("SELECT * FROM recetas WHERE firebaseId = :firebaseId")
     Receta getRecetaByFirebaseId(String firebaseId);
 
+    //ID de Firebase guardado para una receta (puede haberse asignado después de cargarla)
+    @Query("SELECT firebaseId FROM recetas WHERE id = :id")
+    String getFirebaseId(long id);
+
+    //Documentos remotos cuyo borrado sigue en la cola de salida
+    @Query("SELECT firebaseId FROM operaciones_pendientes " +
+            "WHERE tipo = 'ELIMINAR' AND firebaseId IS NOT NULL")
+    List<String> getFirebaseIdsPendientesDeBorrar();
+
+    //Cuenta las recetas que tienen copia en Firebase (sincronización incremental)
+    @Query("SELECT COUNT(*) FROM recetas WHERE firebaseId IS NOT NULL")
+    int contarConFirebaseId();
+
+    //Máximo de parámetros por sentencia (SQLite en Android admite 999 en versiones antiguas)
+    int MAX_VARIABLES_SQL = 900;
+
+    //IDs locales de un lote de firebaseId (no llamar con más de MAX_VARIABLES_SQL ids)
+    @Query("SELECT id FROM recetas WHERE firebaseId IN (:firebaseIds)")
+    List<Long> getIdsPorFirebaseId(List<String> firebaseIds);
+
+    //Versiones locales de un lote de firebaseId (usa el índice único de firebaseId)
+    //No llamar con más de MAX_VARIABLES_SQL ids: usar buscarVersionesPorFirebaseId
+    @Query("SELECT id, firebaseId, fechaModificacion, isFav, hashContenido FROM recetas WHERE firebaseId IN (:firebaseIds)")
+    List<RecetaVersion> getVersionesPorFirebaseId(List<String> firebaseIds);
+
+    @Query("SELECT id, firebaseId, fechaModificacion, isFav, hashContenido FROM recetas WHERE id = :id")
+    RecetaVersion getVersion(long id);
+
+    @Query("UPDATE recetas SET fechaModificacion = :fechaModificacion WHERE id = :id")
+    void actualizarFechaModificacion(long id, Date fechaModificacion);
+
+    //Obtiene las recetas más recientes (pantalla de inicio)
+    @Query("SELECT " + COLUMNAS_RESUMEN + " FROM recetas ORDER BY fechaCreacion DESC LIMIT :limite")
+    LiveData<List<RecetaResumen>> getRecetasRecientes(int limite);
+
+    //Cuenta el total de recetas sin cargarlas
+    @Query("SELECT COUNT(*) FROM recetas")
+    LiveData<Integer> contarRecetas();
+
     //==================== CONSULTAS DE FAVORITOS ====================
 
-    //Obtiene todas las recetas marcadas como favoritas
-    @Query("SELECT * FROM recetas WHERE isFav = 1 ORDER BY fechaCreacion DESC")
-    LiveData<List<Receta>> getFavs();
+    //Obtiene las recetas marcadas como favoritas (paginada)
+    @Query("SELECT " + COLUMNAS_RESUMEN + " FROM recetas WHERE isFav = 1 ORDER BY fechaCreacion DESC")
+    PagingSource<Integer, RecetaResumen> getFavsPaginadas();
+
+    //Cuenta las recetas favoritas sin cargarlas
+    @Query("SELECT COUNT(*) FROM recetas WHERE isFav = 1")
+    LiveData<Integer> contarFavoritas();
 
-    //Actualiza el estado de favorito de una receta
-    @Query("UPDATE recetas SET isFav = :isFav WHERE id = :id")
-    void actualizarFavorita(long id, boolean isFav);
+    //Actualiza el estado de favorito de varias recetas
+    @Query("UPDATE recetas SET isFav = :isFav WHERE id IN (:ids)")
+    void actualizarFavoritas(List<Long> ids, boolean isFav);
 
-    //==================== CONSULTAS DE BÚSQUEDA ====================
+    //Aplica un lote de cambios de favorito (ID → estado) en una sola transacción,
+    //de modo que Room invalida las consultas observadas una única vez (ver BufferFavoritos)
+    @Transaction
+    default void aplicarFavoritos(Map<Long, Boolean> cambios) {
+        List<Long> marcar = new ArrayList<>();
+        List<Long> desmarcar = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> cambio : cambios.entrySet()) {
+            (cambio.getValue() ? marcar : desmarcar).add(cambio.getKey());
+        }
+        if (!marcar.isEmpty()) actualizarFavoritas(marcar, true);
+        if (!desmarcar.isEmpty()) actualizarFavoritas(desmarcar, false);
+    }
 
-    //Busca recetas cuyo nombre contenga el texto de búsqueda
-    @Query("SELECT * FROM recetas WHERE nombre LIKE '%' || :query || '%' ORDER BY fechaCreacion DESC")
-    LiveData<List<Receta>> buscarPorNombre(String query);
+    //==================== CONSULTAS DE BÚSQUEDA Y FILTRADO ====================
 
-    //==================== CONSULTAS DE FILTRADO ====================
+    //Consulta compuesta de la lista de recetas (texto, categoría, dificultad, tiempo,
+    //favoritas y etiquetas en una sola sentencia), construida en
+    //LocalDataSource.construirConsultaFiltro a partir de un RecetaFiltro
+    //observedEntities: la PagingSource se invalida al cambiar recetas o su índice FTS
+    @RawQuery(observedEntities = {Receta.class, RecetaFts.class})
+    PagingSource<Integer, RecetaResumen> filtrar(SupportSQLiteQuery consulta);
 
-    //Filtra recetas por categoría específica
-    @Query("SELECT * FROM recetas WHERE categoria = :categoria ORDER BY fechaCreacion DESC")
-    LiveData<List<Receta>> getRecetasPorCategoria(String categoria);
+    //Filtra recetas que contienen un ingrediente (usa index_ingredientes_nombre, sin distinguir mayúsculas)
+    @Query("SELECT " + COLUMNAS_RESUMEN + " FROM recetas WHERE id IN " +
+            "(SELECT recetaId FROM ingredientes WHERE nombre = :ingrediente) " +
+            "ORDER BY fechaCreacion DESC")
+    PagingSource<Integer, RecetaResumen> getRecetasConIngrediente(String ingrediente);
 
-    //Filtra recetas por nivel de dificultad
-    @Query("SELECT * FROM recetas WHERE dificultad = :dificultad ORDER BY fechaCreacion DESC")
-    LiveData<List<Receta>> getRecetasPorDificultad(String dificultad);
+    //==================== TIPOS AUXILIARES ====================
 
-    //Filtra recetas por tiempo máximo de preparación
-    @Query("SELECT * FROM recetas WHERE tiempoPreparacion <= :tiempoMax ORDER BY tiempoPreparacion ASC")
-    LiveData<List<Receta>> getRecetasPorTiempo(int tiempoMax);
-}
\ No newline at end of file
+    //Recuento de una fusión de recetas remotas (para logs de sincronización)
+    class ResultadoFusion {
+        public int insertadas; //Recetas nuevas en local
+        public int actualizadas; //Recetas existentes sustituidas por una versión más reciente
+        public int omitidas; //Sin cambios, repetidas, sin firebaseId o pendientes de borrar
+        public int eliminadas; //Borradas por un borrado remoto (lápida o documento desaparecido)
+    }
+}
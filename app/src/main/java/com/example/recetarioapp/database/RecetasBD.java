@@ -7,11 +7,15 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
 
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.Imagen;
+import com.example.recetarioapp.models.Ingrediente;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Paso;
 import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFts;
 import com.example.recetarioapp.models.Usuario;
-
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.example.recetarioapp.utils.EjecutorMonitorizado;
 
 //Clase principal de la base de datos Room para la aplicación Recetario
 //- Actúa como la capa de abstracción sobre SQLite
@@ -19,9 +23,12 @@ import java.util.concurrent.Executors;
 //- Caché para modo offline
 //- Sincronización con fuentes de datos remotas
 //- Implementa el patrón Singleton para asegurar una única instancia de BD
+//- Modo WAL: las lecturas no se bloquean mientras hay una escritura en curso
+//- Un único hilo escritor (SQLite solo admite un escritor) y un pool de lectores para Room
 @Database(
-        entities = {Receta.class, Usuario.class}, //Entidades mapeadas a tablas
-        version = 2, //Versión del esquema (incrementar en cambios estructurales)
+        entities = {Receta.class, Ingrediente.class, Paso.class, RecetaFts.class, Usuario.class,
+                OperacionPendiente.class, HuellaSincronizada.class, Imagen.class}, //Entidades mapeadas a tablas
+        version = 11, //Versión del esquema (incrementar en cambios estructurales)
         exportSchema = false) //No exportar esquema (simplificación para el proyecto)
 @TypeConverters({Converters.class}) //Convertidores para tipos complejos
 public abstract class RecetasBD extends RoomDatabase {
@@ -29,10 +36,24 @@ public abstract class RecetasBD extends RoomDatabase {
     //Instancia única Singleton (volatile para visibilidad entre hilos)
     private static volatile RecetasBD INSTANCE;
 
-    //Configuración del Executor para operaciones de BD en background
-    private static final int NUM_THREADS = 4; //Número de hilos en el pool
-    public static final ExecutorService bdWriteExecutor =
-            Executors.newFixedThreadPool(NUM_THREADS);
+    //==================== EXECUTORS ====================
+
+    //Escrituras (insert/update/delete, favoritos, sincronización): un solo hilo,
+    //así no compiten por el bloqueo de escritura de SQLite y conservan el orden
+    public static final EjecutorMonitorizado bdEscritura = new EjecutorMonitorizado("bd-escritura", 1);
+
+    //Lecturas: consultas observables (LiveData/Paging) y lecturas puntuales en background
+    private static final int HILOS_LECTURA =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    public static final EjecutorMonitorizado bdLectura = new EjecutorMonitorizado("bd-lectura", HILOS_LECTURA);
+
+    //Métricas de ambos executors (profundidad de cola y tiempos de espera)
+    public static String resumenMetricas() {
+        return bdEscritura.resumen() + " | " + bdLectura.resumen();
+    }
+
+    //Opt-in del formato binario compacto para la columna tags (ver Converters)
+    private static final boolean TAGS_EN_BINARIO = true;
 
     //==================== DEFINICIÓN DE DAOs ====================
 
@@ -42,6 +63,12 @@ public abstract class RecetasBD extends RoomDatabase {
     //Proporciona acceso al DAO de Usuarios
     public abstract UsuarioDAO usuarioDAO();
 
+    //Proporciona acceso al DAO de la cola de salida hacia Firebase
+    public abstract OperacionPendienteDAO operacionPendienteDAO();
+
+    //Proporciona acceso al DAO del almacén de imágenes
+    public abstract ImagenDAO imagenDAO();
+
     //==================== PATRÓN SINGLETON ====================
 
     //Obtiene la instancia única de la base de datos
@@ -58,8 +85,22 @@ public abstract class RecetasBD extends RoomDatabase {
                                     RecetasBD.class,
                                     "recetario_bd" //Nombre del archivo de BD
                             )
-                            .fallbackToDestructiveMigration() //Elimina BD en migraciones fallidas
+                            .addMigrations(Migraciones.MIGRACION_2_3, Migraciones.MIGRACION_3_4,
+                                    Migraciones.MIGRACION_4_5, Migraciones.MIGRACION_5_6,
+                                    Migraciones.MIGRACION_6_7, Migraciones.MIGRACION_7_8,
+                                    Migraciones.MIGRACION_8_9, Migraciones.MIGRACION_9_10,
+                                    Migraciones.MIGRACION_10_11) //Migraciones que conservan los datos
+                            .fallbackToDestructiveMigration() //Elimina BD si no hay ruta de migración
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING) //Lectores concurrentes con un escritor
+                            .setQueryExecutor(bdLectura) //Consultas observables de Room
                             .build(); //Construye la instancia de la BD
+
+                    //Formato binario de tags: las filas antiguas se reescriben en segundo plano
+                    Converters.setFormatoBinario(TAGS_EN_BINARIO);
+                    if (TAGS_EN_BINARIO) {
+                        RecetasBD bd = INSTANCE;
+                        bdEscritura.execute(() -> MigradorFormatoTags.ejecutar(bd));
+                    }
                 }
             }
         }
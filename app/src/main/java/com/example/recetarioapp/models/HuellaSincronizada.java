@@ -0,0 +1,37 @@
+package com.example.recetarioapp.models;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+//Último estado subido a Firebase de una receta, como huella (hash) de cada campo
+//- ColaSalida lo usa para enviar con update() solo los campos que han cambiado
+//- esquema: versión de RecetaMapper con la que se calcularon (si cambia se sube todo con set())
+//- huellas: "campo=hash;..." codificado por RecetaMapper
+//- Se borra en cascada con su receta y se descarta cuando la sincronización la reescribe
+@Entity(tableName = "huellas_sincronizadas",
+        foreignKeys = @ForeignKey(
+                entity = Receta.class,
+                parentColumns = "id",
+                childColumns = "recetaId",
+                onDelete = ForeignKey.CASCADE))
+public class HuellaSincronizada {
+
+    @PrimaryKey
+    private long recetaId; //Receta a la que pertenece
+    private int esquema; //Versión del formato de documento (RecetaMapper.VERSION_ESQUEMA)
+    private String huellas; //Huellas por campo codificadas
+
+    //Constructor vacío requerido para Room
+    public HuellaSincronizada() {}
+
+    //GETTERS Y SETTERS
+    public long getRecetaId() { return recetaId; }
+    public void setRecetaId(long recetaId) { this.recetaId = recetaId; }
+
+    public int getEsquema() { return esquema; }
+    public void setEsquema(int esquema) { this.esquema = esquema; }
+
+    public String getHuellas() { return huellas; }
+    public void setHuellas(String huellas) { this.huellas = huellas; }
+}
@@ -0,0 +1,59 @@
+package com.example.recetarioapp.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+//Imagen guardada en recetas_images con direccionamiento por contenido
+//- hash: SHA-256 (128 bits en hex) del JPEG completo codificado; es también el nombre del archivo
+//- hashOrigen: SHA-256 de los bytes importados (volver a importar la misma foto no la codifica de nuevo)
+//- referencias: recetas cuya imagenPortadaURL apunta a esta imagen (RecetaDAO la mantiene)
+//- fechaUso: última importación; las imágenes sin referencias se conservan un periodo de gracia
+@Entity(tableName = "imagenes",
+        indices = {@Index(value = {"hashOrigen"})})
+public class Imagen {
+
+    //Longitud del hash usado como nombre de archivo (caracteres hexadecimales)
+    public static final int LONGITUD_HASH = 32;
+
+    @PrimaryKey
+    @NonNull
+    private String hash = ""; //Hash del contenido codificado (nombre del archivo sin .jpg)
+    private String hashOrigen; //Hash de los bytes de origen importados
+    private int referencias; //Recetas que la usan
+    private Date fechaUso; //Última vez que se importó
+
+    //Constructor vacío requerido para Room
+    public Imagen() {}
+
+    //Hash de una ruta de imagen direccionada por contenido, o null si no lo es
+    //(URIs, rutas externas o imágenes antiguas con nombre UUID)
+    public static String hashDeRuta(String ruta) {
+        if (ruta == null || !ruta.endsWith(".jpg")) return null;
+        int inicio = ruta.lastIndexOf('/') + 1;
+        String nombre = ruta.substring(inicio, ruta.length() - 4);
+        if (nombre.length() != LONGITUD_HASH) return null;
+        for (int i = 0; i < nombre.length(); i++) {
+            char c = nombre.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return null;
+        }
+        return nombre;
+    }
+
+    //GETTERS Y SETTERS
+    @NonNull
+    public String getHash() { return hash; }
+    public void setHash(@NonNull String hash) { this.hash = hash; }
+
+    public String getHashOrigen() { return hashOrigen; }
+    public void setHashOrigen(String hashOrigen) { this.hashOrigen = hashOrigen; }
+
+    public int getReferencias() { return referencias; }
+    public void setReferencias(int referencias) { this.referencias = referencias; }
+
+    public Date getFechaUso() { return fechaUso; }
+    public void setFechaUso(Date fechaUso) { this.fechaUso = fechaUso; }
+}
@@ -1,12 +1,35 @@
 package com.example.recetarioapp.models;
 
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
 //Modelo que representa un ingrediente individual dentro de una receta
 //- Almacena la información básica de un ingrediente: nombre, cantidad y notas opcionales.
 //- Incluye métodos utilitarios para formatear la información de manera legible
 //- Constructores vacíos para compatibilidad con Room/Firebase
+//- Mapeado a la tabla hija "ingredientes" (se borra en cascada con su receta)
+//- El índice sobre nombre (sin distinguir mayúsculas) permite consultas por ingrediente
+@Entity(tableName = "ingredientes",
+        foreignKeys = @ForeignKey(
+                entity = Receta.class,
+                parentColumns = "id",
+                childColumns = "recetaId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("recetaId"), @Index("nombre")})
 public class Ingrediente {
 
+    //CLAVES Y ORDEN (gestionados por RecetaDAO)
+    @PrimaryKey(autoGenerate = true)
+    private long id; //ID local auto-generado por Room
+    private long recetaId; //Receta a la que pertenece
+    private int orden; //Posición dentro de la lista de ingredientes
+
     //ATRIBUTOS PRINCIPALES
+    @ColumnInfo(collate = ColumnInfo.NOCASE)
     private String nombre; //Nombre del ingrediente (ej: "Harina")
     private String cantidad; //Cantidad requerida (ej: "200 gramos")
     private String notasOpcionales; //Notas adicionales (ej: "Tamizada")
@@ -15,12 +38,14 @@ public class Ingrediente {
     public Ingrediente() {}
 
     //Constructor básico con parámetros mínimos requeridos
+    @Ignore
     public Ingrediente(String nombre, String cantidad) {
         this.nombre = nombre;
         this.cantidad = cantidad;
     }
 
     //Constructor completo con todos los campos disponibles
+    @Ignore
     public Ingrediente(String nombre, String cantidad, String notasOpcionales) {
         this.nombre = nombre;
         this.cantidad = cantidad;
@@ -54,6 +79,15 @@ public class Ingrediente {
     }
 
     //GETTERS Y SETTERS
+    public long getId() {return id;}
+    public void setId(long id) {this.id = id;}
+
+    public long getRecetaId() {return recetaId;}
+    public void setRecetaId(long recetaId) {this.recetaId = recetaId;}
+
+    public int getOrden() {return orden;}
+    public void setOrden(int orden) {this.orden = orden;}
+
     public String getNombre() {return nombre;}
     public void setNombre(String nombre) {this.nombre = nombre;}
 
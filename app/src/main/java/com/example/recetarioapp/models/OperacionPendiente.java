@@ -0,0 +1,100 @@
+package com.example.recetarioapp.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+import java.util.Date;
+
+//Operación de escritura en Firebase pendiente de enviar (cola de salida / outbox)
+//- Una fila por receta: las ediciones repetidas se agrupan en una sola escritura
+//  (ver OperacionPendienteDAO.encolar para las reglas de agrupación)
+//- Sobrevive a cierres de la app y a la falta de red; ColaSalida la envía por lotes
+//- Sin clave foránea: una eliminación debe seguir en cola cuando la receta ya no existe
+//- Guarda la cuenta que hizo el cambio: solo se envía con esa sesión iniciada
+//- Cuenta los envíos fallidos: espera creciente entre reintentos, lotes cada vez más pequeños
+//  (una operación que siempre falla acaba sola en su lote) y, tras MAX_INTENTOS, se aparta
+//  hasta que la receta vuelva a cambiar
+@Entity(tableName = "operaciones_pendientes")
+public class OperacionPendiente {
+
+    //TIPOS DE OPERACIÓN
+    public static final String CREAR = "CREAR";
+    public static final String ACTUALIZAR = "ACTUALIZAR";
+    public static final String ELIMINAR = "ELIMINAR";
+
+    //REINTENTOS
+    public static final int MAX_INTENTOS = 10; //Fallos seguidos tras los que la operación se aparta
+    private static final long ESPERA_BASE_MS = 5_000; //Espera tras el primer fallo (se duplica)
+    private static final long ESPERA_MAX_MS = 60L * 60 * 1000; //Espera máxima entre reintentos
+
+    //ATRIBUTOS
+    @PrimaryKey
+    private long recetaId; //ID local de la receta (Room no reutiliza IDs autogenerados)
+    private String firebaseId; //Documento remoto (se asigna antes del primer envío de CREAR)
+    private String tipo; //CREAR, ACTUALIZAR o ELIMINAR
+    private int version; //Aumenta con cada cambio encolado (detecta ediciones durante el envío)
+    private Date fechaEncolada; //Primera vez que se encoló (orden de envío)
+    private String usuarioId; //Cuenta que hizo el cambio (null = encolada antes de guardarla)
+    @ColumnInfo(defaultValue = "0")
+    private int intentos; //Envíos fallidos seguidos (vuelve a 0 con cada cambio encolado)
+    private Date proximoIntento; //No se reenvía antes de esta fecha (null = en cuanto se pueda)
+
+    //Constructor vacío requerido para Room
+    public OperacionPendiente() {}
+
+    @Ignore
+    public OperacionPendiente(long recetaId, String firebaseId, String tipo, String usuarioId) {
+        this.recetaId = recetaId;
+        this.firebaseId = firebaseId;
+        this.tipo = tipo;
+        this.usuarioId = usuarioId;
+        this.version = 1;
+        this.fechaEncolada = new Date();
+    }
+
+    //Indica si la operación sube el documento completo (crear o actualizar)
+    public boolean esEscritura() {
+        return !ELIMINAR.equals(tipo);
+    }
+
+    //Espera antes del siguiente envío tras acumular este número de fallos (exponencial con tope)
+    public static long esperaTrasFallos(int intentos) {
+        if (intentos <= 0) return 0;
+        int desplazamiento = Math.min(intentos - 1, 20);
+        return Math.min(ESPERA_MAX_MS, ESPERA_BASE_MS << desplazamiento);
+    }
+
+    //Tamaño del lote cuyo primer elemento lleva este número de fallos: se parte por la mitad
+    //con cada fallo, así una operación que hace fallar todo el lote termina enviándose sola
+    public static int loteTrasFallos(int maximo, int intentos) {
+        if (intentos <= 0) return maximo;
+        return Math.max(1, maximo >> Math.min(intentos, 30));
+    }
+
+    //GETTERS Y SETTERS
+    public long getRecetaId() { return recetaId; }
+    public void setRecetaId(long recetaId) { this.recetaId = recetaId; }
+
+    public String getFirebaseId() { return firebaseId; }
+    public void setFirebaseId(String firebaseId) { this.firebaseId = firebaseId; }
+
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public Date getFechaEncolada() { return fechaEncolada; }
+    public void setFechaEncolada(Date fechaEncolada) { this.fechaEncolada = fechaEncolada; }
+
+    public String getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(String usuarioId) { this.usuarioId = usuarioId; }
+
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+
+    public Date getProximoIntento() { return proximoIntento; }
+    public void setProximoIntento(Date proximoIntento) { this.proximoIntento = proximoIntento; }
+}
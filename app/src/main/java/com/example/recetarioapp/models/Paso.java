@@ -1,10 +1,30 @@
 package com.example.recetarioapp.models;
 
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
 //Modelo que representa un paso individual en el proceso de preparación de una receta
 //Cada paso contiene un número de orden y una descripción detallada de la acción a realizar
 //La numeración permite mantener el orden secuencial del proceso de cocina
+//Mapeado a la tabla hija "pasos" (se borra en cascada con su receta), de modo que
+//el texto de los pasos solo se lee al abrir el detalle de una receta
+@Entity(tableName = "pasos",
+        foreignKeys = @ForeignKey(
+                entity = Receta.class,
+                parentColumns = "id",
+                childColumns = "recetaId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("recetaId")})
 public class Paso {
 
+    //CLAVES (gestionadas por RecetaDAO)
+    @PrimaryKey(autoGenerate = true)
+    private long id; //ID local auto-generado por Room
+    private long recetaId; //Receta a la que pertenece
+
     //ATRIBUTOS
     private int numeroPaso;      //Número secuencial del paso (1, 2, 3...)
     private String descripcion;  //Descripción detallada de la acción a realizar
@@ -14,6 +34,7 @@ public class Paso {
     }
 
     //Constructor completo con todos los campos
+    @Ignore
     public Paso(int numeroPaso, String descripcion) {
         this.numeroPaso = numeroPaso;
         this.descripcion = descripcion;
@@ -26,6 +47,20 @@ public class Paso {
     }
 
     //GETTERS Y SETTERS
+    public long getId() {
+        return id;
+    }
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getRecetaId() {
+        return recetaId;
+    }
+    public void setRecetaId(long recetaId) {
+        this.recetaId = recetaId;
+    }
+
     public int getNumeroPaso() {
         return numeroPaso;
     }
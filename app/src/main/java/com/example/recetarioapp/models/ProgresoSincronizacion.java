@@ -0,0 +1,57 @@
+package com.example.recetarioapp.models;
+
+//Estado observable de una sincronización Firebase → local (inmutable)
+//- Páginas y documentos ya escritos en Room mientras la descarga continúa
+//- enCurso = false cuando termina; error != null si terminó con fallo
+//- reintento > 0 mientras se espera o ejecuta un reintento tras un fallo
+public final class ProgresoSincronizacion {
+
+    //Estado inicial: ninguna sincronización en marcha
+    public static final ProgresoSincronizacion INACTIVA = new ProgresoSincronizacion(false, 0, 0, null, 0);
+
+    private final boolean enCurso;
+    private final int paginas; //Páginas descargadas y escritas
+    private final int documentos; //Documentos descargados y escritos
+    private final String error; //Mensaje de error o null
+    private final int reintento; //Número de reintento (0 = primer intento)
+
+    private ProgresoSincronizacion(boolean enCurso, int paginas, int documentos, String error, int reintento) {
+        this.enCurso = enCurso;
+        this.paginas = paginas;
+        this.documentos = documentos;
+        this.error = error;
+        this.reintento = reintento;
+    }
+
+    //==================== ESTADOS ====================
+
+    public static ProgresoSincronizacion iniciada() {
+        return new ProgresoSincronizacion(true, 0, 0, null, 0);
+    }
+
+    //reintento: número del intento en curso (0 = el primero), se conserva mientras avanza
+    public static ProgresoSincronizacion enCurso(int paginas, int documentos, int reintento) {
+        return new ProgresoSincronizacion(true, paginas, documentos, null, reintento);
+    }
+
+    //Sigue en curso: un intento falló y se repetirá tras una espera
+    public static ProgresoSincronizacion reintentando(int paginas, int documentos, int reintento) {
+        return new ProgresoSincronizacion(true, paginas, documentos, null, reintento);
+    }
+
+    public static ProgresoSincronizacion terminada(int paginas, int documentos) {
+        return new ProgresoSincronizacion(false, paginas, documentos, null, 0);
+    }
+
+    public static ProgresoSincronizacion fallida(int paginas, int documentos, String error) {
+        return new ProgresoSincronizacion(false, paginas, documentos, error, 0);
+    }
+
+    //GETTERS
+    public boolean isEnCurso() { return enCurso; }
+    public int getPaginas() { return paginas; }
+    public int getDocumentos() { return documentos; }
+    public String getError() { return error; }
+    public boolean hasError() { return error != null; }
+    public int getReintento() { return reintento; }
+}
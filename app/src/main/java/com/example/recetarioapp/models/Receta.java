@@ -1,8 +1,10 @@
 package com.example.recetarioapp.models;
 
 import com.example.recetarioapp.database.Converters;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 import androidx.room.TypeConverters;
 
@@ -16,7 +18,21 @@ import java.util.List;
 //complejos como listas y fechas
 //Contiene toda la información de una receta: información básica, ingredientes,
 //pasos de preparación, metadatos y relaciones con el usuario
-@Entity(tableName = "recetas")
+//Los ingredientes y pasos viven en sus propias tablas (ver RecetaCompleta);
+//en esta entidad solo se rellenan al cargar el detalle o al guardar
+//Las etiquetas se guardan crudas (columna tags) y se decodifican la primera vez
+//que se llama a getTags(); las listas se crean bajo demanda (memo thread-safe)
+//Índices: uno por cada filtro de RecetaDAO, compuesto con fechaCreacion para que
+//SQLite resuelva WHERE + ORDER BY recorriendo el índice sin ordenar en memoria
+@Entity(tableName = "recetas",
+        indices = {
+                @Index(value = {"isFav", "fechaCreacion"}),
+                @Index(value = {"categoria", "fechaCreacion"}),
+                @Index(value = {"dificultad", "fechaCreacion"}),
+                @Index(value = {"tiempoPreparacion"}),
+                @Index(value = {"fechaCreacion"}),
+                @Index(value = {"firebaseId"}, unique = true) //Una fila por documento remoto
+        })
 @TypeConverters(Converters.class)
 public class Receta {
     //ATRIBUTOS PRINCIPALES
@@ -32,23 +48,33 @@ public class Receta {
     private String categoria; //Categoría culinaria
     private String origen; //Origen geográfico o cultural
 
-    //LISTAS DE COMPONENTES
-    private List<Ingrediente> ingredientes; //Lista de ingredientes necesarios
-    private List<Paso> pasos; //Pasos de preparación ordenados
-    private List<String> tags; //Etiquetas para búsqueda y filtrado
+    //LISTAS DE COMPONENTES (se crean/decodifican bajo demanda, protegidas por bloqueoListas)
+    @Ignore
+    private List<Ingrediente> ingredientes; //Lista de ingredientes necesarios (tabla ingredientes)
+    @Ignore
+    private List<Paso> pasos; //Pasos de preparación ordenados (tabla pasos)
+    @Ignore
+    private List<String> tags; //Etiquetas para búsqueda y filtrado (decodificadas)
+    @ColumnInfo(name = "tags")
+    private byte[] tagsCodificados; //Valor crudo de la columna tags (ver Converters)
+    @Ignore
+    private final Object bloqueoListas = new Object();
 
     //METADATOS
     private Date fechaCreacion; //Fecha de creación del registro
     private Date fechaModificacion; //Fecha de última modificación
     private boolean isFav; //Indicador de favorito del usuario
     private String usuarioId; //ID del usuario propietario
+    @ColumnInfo(defaultValue = "0")
+    private long hashContenido; //Hash del contenido (RecetaMapper.hashContenido, 0 = sin calcular)
+    @Ignore
+    private Date actualizadoServidor; //Hora del servidor de la última escritura remota (solo al descargar)
+    @Ignore
+    private boolean eliminadaRemota; //Documento remoto marcado como borrado (lápida, solo al descargar)
 
     //Constructor vacío requerido para Room y Firebase
-    //Inicializa las listas y valores por defecto
+    //Inicializa los valores por defecto (las listas se crean al pedirlas)
     public Receta() {
-        this.ingredientes = new ArrayList<>();
-        this.pasos = new ArrayList<>();
-        this.tags = new ArrayList<>();
         this.fechaCreacion = new Date();
         this.fechaModificacion = new Date();
         this.isFav = false;
@@ -65,23 +91,29 @@ public class Receta {
 
     //Agrega un ingrediente a la lista de ingredientes de la receta
     public void addIngrediente(Ingrediente ingrediente) {
-        this.ingredientes.add(ingrediente);
+        getIngredientes().add(ingrediente);
     }
 
     //Agrega un paso a la lista de pasos de preparación
     public void addPaso(Paso paso) {
-        this.pasos.add(paso);
+        getPasos().add(paso);
     }
 
     //Agrega una etiqueta a la lista de tags, evitando duplicados
     public void addTag(String tag) {
-        if (!this.tags.contains(tag)) {
-            this.tags.add(tag);
+        List<String> etiquetas = getTags();
+        if (!etiquetas.contains(tag)) {
+            etiquetas.add(tag);
         }
     }
 
     //Convierte el tiempo de preparación en minutos a un formato legible
     public String getTiempoPrepFormateado() {
+        return formatearTiempo(tiempoPreparacion);
+    }
+
+    //Formatea un tiempo en minutos (compartido con RecetaResumen)
+    public static String formatearTiempo(int tiempoPreparacion) {
         if (tiempoPreparacion == 0) {
             return "-";
         }
@@ -125,14 +157,51 @@ public class Receta {
     public String getOrigen() { return origen; }
     public void setOrigen(String origen) { this.origen = origen; }
 
-    public List<Ingrediente> getIngredientes() { return ingredientes; }
-    public void setIngredientes(List<Ingrediente> ingredientes) { this.ingredientes = ingredientes; }
+    public List<Ingrediente> getIngredientes() {
+        synchronized (bloqueoListas) {
+            if (ingredientes == null) ingredientes = new ArrayList<>();
+            return ingredientes;
+        }
+    }
+    public void setIngredientes(List<Ingrediente> ingredientes) {
+        synchronized (bloqueoListas) { this.ingredientes = ingredientes; }
+    }
 
-    public List<Paso> getPasos() { return pasos; }
-    public void setPasos(List<Paso> pasos) { this.pasos = pasos; }
+    public List<Paso> getPasos() {
+        synchronized (bloqueoListas) {
+            if (pasos == null) pasos = new ArrayList<>();
+            return pasos;
+        }
+    }
+    public void setPasos(List<Paso> pasos) {
+        synchronized (bloqueoListas) { this.pasos = pasos; }
+    }
+
+    //Decodifica la columna tags la primera vez que se piden las etiquetas
+    public List<String> getTags() {
+        synchronized (bloqueoListas) {
+            if (tags == null) tags = Converters.blobToTags(tagsCodificados);
+            return tags;
+        }
+    }
+    public void setTags(List<String> tags) {
+        synchronized (bloqueoListas) { this.tags = tags; }
+    }
 
-    public List<String> getTags() { return tags; }
-    public void setTags(List<String> tags) { this.tags = tags; }
+    //Acceso de Room a la columna tags: si las etiquetas se decodificaron (y quizá se
+    //modificaron) se vuelven a codificar; si no, se devuelve el valor crudo sin tocarlo
+    public byte[] getTagsCodificados() {
+        synchronized (bloqueoListas) {
+            if (tags != null) tagsCodificados = Converters.tagsToBlob(tags);
+            return tagsCodificados;
+        }
+    }
+    public void setTagsCodificados(byte[] tagsCodificados) {
+        synchronized (bloqueoListas) {
+            this.tagsCodificados = tagsCodificados;
+            this.tags = null; //Invalida el memo
+        }
+    }
 
     public Date getFechaCreacion() { return fechaCreacion; }
     public void setFechaCreacion(Date fechaCreacion) { this.fechaCreacion = fechaCreacion; }
@@ -145,4 +214,13 @@ public class Receta {
 
     public String getUsuarioId() { return usuarioId; }
     public void setUsuarioId(String usuarioId) { this.usuarioId = usuarioId; }
+
+    public long getHashContenido() { return hashContenido; }
+    public void setHashContenido(long hashContenido) { this.hashContenido = hashContenido; }
+
+    public Date getActualizadoServidor() { return actualizadoServidor; }
+    public void setActualizadoServidor(Date actualizadoServidor) { this.actualizadoServidor = actualizadoServidor; }
+
+    public boolean isEliminadaRemota() { return eliminadaRemota; }
+    public void setEliminadaRemota(boolean eliminadaRemota) { this.eliminadaRemota = eliminadaRemota; }
 }
\ No newline at end of file
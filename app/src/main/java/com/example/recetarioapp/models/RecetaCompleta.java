@@ -0,0 +1,50 @@
+package com.example.recetarioapp.models;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+//POJO de Room que reúne una receta con sus ingredientes y pasos
+//- Se usa solo en la pantalla de detalle/edición, donde se necesitan las listas completas
+//- Room carga las tablas hijas mediante @Relation en la misma transacción
+//- toReceta() devuelve la Receta con las listas ya ordenadas
+public class RecetaCompleta {
+
+    @Embedded
+    private Receta receta; //Fila de la tabla recetas
+
+    @Relation(parentColumn = "id", entityColumn = "recetaId")
+    private List<Ingrediente> ingredientes; //Filas de la tabla ingredientes
+
+    @Relation(parentColumn = "id", entityColumn = "recetaId")
+    private List<Paso> pasos; //Filas de la tabla pasos
+
+    //Combina la receta con sus listas ordenadas (Room no garantiza el orden de @Relation)
+    public Receta toReceta() {
+        List<Ingrediente> ingredientesOrdenados =
+                ingredientes != null ? new ArrayList<>(ingredientes) : new ArrayList<>();
+        Collections.sort(ingredientesOrdenados, Comparator.comparingInt(Ingrediente::getOrden));
+
+        List<Paso> pasosOrdenados = pasos != null ? new ArrayList<>(pasos) : new ArrayList<>();
+        Collections.sort(pasosOrdenados, Comparator.comparingInt(Paso::getNumeroPaso)
+                .thenComparingLong(Paso::getId));
+
+        receta.setIngredientes(ingredientesOrdenados);
+        receta.setPasos(pasosOrdenados);
+        return receta;
+    }
+
+    //GETTERS Y SETTERS
+    public Receta getReceta() { return receta; }
+    public void setReceta(Receta receta) { this.receta = receta; }
+
+    public List<Ingrediente> getIngredientes() { return ingredientes; }
+    public void setIngredientes(List<Ingrediente> ingredientes) { this.ingredientes = ingredientes; }
+
+    public List<Paso> getPasos() { return pasos; }
+    public void setPasos(List<Paso> pasos) { this.pasos = pasos; }
+}
@@ -0,0 +1,101 @@
+package com.example.recetarioapp.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+//Objeto valor (inmutable) con el estado de filtrado de la lista de recetas
+//- Combina texto de búsqueda, categoría, dificultad, tiempo máximo, favoritas y etiquetas
+//- Cada método con...() devuelve una copia modificada, así el ViewModel puede
+//  comparar estados con equals() y no relanzar la consulta si nada cambia
+//- LocalDataSource lo traduce a una única sentencia SQL (ver construirConsultaFiltro)
+public final class RecetaFiltro {
+
+    //Filtro vacío: todas las recetas, más recientes primero
+    public static final RecetaFiltro SIN_FILTRO =
+            new RecetaFiltro("", null, null, 0, false, Collections.emptyList());
+
+    //ATRIBUTOS
+    private final String texto; //Texto libre (búsqueda FTS)
+    private final String categoria; //Categoría exacta o null
+    private final String dificultad; //Dificultad exacta o null
+    private final int tiempoMax; //Minutos máximos (0 = sin límite)
+    private final boolean soloFavoritas; //Solo recetas marcadas como favoritas
+    private final List<String> tags; //Etiquetas que deben aparecer todas
+
+    private RecetaFiltro(String texto, String categoria, String dificultad,
+                         int tiempoMax, boolean soloFavoritas, List<String> tags) {
+        this.texto = texto != null ? texto.trim() : "";
+        this.categoria = vacioANull(categoria);
+        this.dificultad = vacioANull(dificultad);
+        this.tiempoMax = Math.max(0, tiempoMax);
+        this.soloFavoritas = soloFavoritas;
+        this.tags = Collections.unmodifiableList(new ArrayList<>(tags));
+    }
+
+    //==================== COPIAS MODIFICADAS ====================
+
+    public RecetaFiltro conTexto(String texto) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+
+    public RecetaFiltro conCategoria(String categoria) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+
+    public RecetaFiltro conDificultad(String dificultad) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+
+    public RecetaFiltro conTiempoMax(int tiempoMax) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+
+    public RecetaFiltro conSoloFavoritas(boolean soloFavoritas) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+
+    public RecetaFiltro conTags(List<String> tags) {
+        return new RecetaFiltro(texto, categoria, dificultad, tiempoMax, soloFavoritas,
+                tags != null ? tags : Collections.emptyList());
+    }
+
+    //==================== CONSULTAS ====================
+
+    //Indica si hay texto libre o etiquetas (requiere el índice FTS)
+    public boolean usaTextoCompleto() {
+        return !texto.isEmpty() || !tags.isEmpty();
+    }
+
+    //Trata cadenas vacías como "sin filtro"
+    private static String vacioANull(String valor) {
+        return valor == null || valor.trim().isEmpty() ? null : valor.trim();
+    }
+
+    //GETTERS
+    public String getTexto() { return texto; }
+    public String getCategoria() { return categoria; }
+    public String getDificultad() { return dificultad; }
+    public int getTiempoMax() { return tiempoMax; }
+    public boolean isSoloFavoritas() { return soloFavoritas; }
+    public List<String> getTags() { return tags; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecetaFiltro)) return false;
+        RecetaFiltro otro = (RecetaFiltro) o;
+        return tiempoMax == otro.tiempoMax &&
+                soloFavoritas == otro.soloFavoritas &&
+                texto.equals(otro.texto) &&
+                Objects.equals(categoria, otro.categoria) &&
+                Objects.equals(dificultad, otro.dificultad) &&
+                tags.equals(otro.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(texto, categoria, dificultad, tiempoMax, soloFavoritas, tags);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.recetarioapp.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+import java.util.List;
+
+//Entidad sombra de búsqueda de texto completo (FTS4) asociada a la tabla recetas
+//- Cada fila comparte su rowid con el id local de la Receta que indexa
+//- Almacena el texto ya aplanado (ingredientes, pasos y etiquetas) para que
+//  las consultas MATCH usen el índice invertido en lugar de recorrer la tabla
+//- Se mantiene sincronizada desde RecetaDAO en cada inserción, actualización y borrado
+//- El tokenizador unicode61 ignora tildes y mayúsculas ("azucar" encuentra "Azúcar")
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "recetas_fts")
+public class RecetaFts {
+
+    //ATRIBUTOS
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowid; //Mismo valor que Receta.id
+    private String nombre; //Nombre de la receta
+    private String descripcion; //Descripción breve
+    private String ingredientes; //Nombres de ingredientes separados por espacios
+    private String pasos; //Texto de todos los pasos concatenado
+    private String tags; //Etiquetas separadas por espacios
+
+    //Constructor vacío requerido para Room
+    public RecetaFts() {}
+
+    //Construye la fila de índice a partir de una receta completa
+    @Ignore
+    public RecetaFts(Receta receta) {
+        this.rowid = receta.getId();
+        this.nombre = receta.getNombre();
+        this.descripcion = receta.getDescripcion();
+        this.ingredientes = aplanarIngredientes(receta.getIngredientes());
+        this.pasos = aplanarPasos(receta.getPasos());
+        this.tags = aplanar(receta.getTags());
+    }
+
+    //Concatena los nombres de los ingredientes en un único texto indexable
+    private static String aplanarIngredientes(List<Ingrediente> ingredientes) {
+        if (ingredientes == null) return "";
+        StringBuilder texto = new StringBuilder();
+        for (Ingrediente ingrediente : ingredientes) {
+            if (ingrediente != null && ingrediente.getNombre() != null) {
+                texto.append(ingrediente.getNombre()).append(' ');
+            }
+        }
+        return texto.toString().trim();
+    }
+
+    //Concatena las descripciones de los pasos en un único texto indexable
+    private static String aplanarPasos(List<Paso> pasos) {
+        if (pasos == null) return "";
+        StringBuilder texto = new StringBuilder();
+        for (Paso paso : pasos) {
+            if (paso != null && paso.getDescripcion() != null) {
+                texto.append(paso.getDescripcion()).append(' ');
+            }
+        }
+        return texto.toString().trim();
+    }
+
+    //Concatena una lista de strings separándolos por espacios
+    private static String aplanar(List<String> valores) {
+        if (valores == null) return "";
+        StringBuilder texto = new StringBuilder();
+        for (String valor : valores) {
+            if (valor != null) texto.append(valor).append(' ');
+        }
+        return texto.toString().trim();
+    }
+
+    //GETTERS Y SETTERS
+    public long getRowid() { return rowid; }
+    public void setRowid(long rowid) { this.rowid = rowid; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public String getDescripcion() { return descripcion; }
+    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+
+    public String getIngredientes() { return ingredientes; }
+    public void setIngredientes(String ingredientes) { this.ingredientes = ingredientes; }
+
+    public String getPasos() { return pasos; }
+    public void setPasos(String pasos) { this.pasos = pasos; }
+
+    public String getTags() { return tags; }
+    public void setTags(String tags) { this.tags = tags; }
+}
@@ -0,0 +1,79 @@
+package com.example.recetarioapp.models;
+
+import java.util.Objects;
+
+//Proyección ligera de Receta para las pantallas de listado
+//- Contiene solo las columnas que pinta RecetaAdapter en cada tarjeta
+//- Room la rellena directamente desde las consultas de RecetaDAO (sin listas ni fechas)
+//- La Receta completa se carga bajo demanda al abrir el detalle
+public class RecetaResumen {
+
+    //ATRIBUTOS (mismos nombres que las columnas de la tabla recetas)
+    private long id; //ID local de la receta
+    private String nombre; //Nombre de la receta
+    private String descripcion; //Descripción breve
+    private String imagenPortadaURL; //URL de la imagen principal
+    private int tiempoPreparacion; //Tiempo en minutos
+    private int porciones; //Número de porciones
+    private String dificultad; //Nivel de dificultad
+    private String categoria; //Categoría culinaria
+    private boolean isFav; //Indicador de favorito del usuario
+    private long hashContenido; //Hash del contenido (0 = sin calcular, ver mismoContenidoVisible)
+
+    //Constructor vacío requerido para Room
+    public RecetaResumen() {}
+
+    //Convierte el tiempo de preparación en minutos a un formato legible
+    public String getTiempoPrepFormateado() {
+        return Receta.formatearTiempo(tiempoPreparacion);
+    }
+
+    //Indica si dos versiones de la misma receta se pintan igual (DiffUtil)
+    //- Con ambos hashes calculados basta compararlos (y el favorito, que no entra en el hash)
+    //- Si alguno es 0 (filas anteriores a la migración 8 → 9 aún sin editar ni descargar)
+    //  se comparan todas las columnas que pinta la tarjeta
+    public boolean mismoContenidoVisible(RecetaResumen otra) {
+        if (isFav != otra.isFav) return false;
+        if (hashContenido != 0 && otra.hashContenido != 0) {
+            return hashContenido == otra.hashContenido;
+        }
+        return tiempoPreparacion == otra.tiempoPreparacion
+                && porciones == otra.porciones
+                && Objects.equals(nombre, otra.nombre)
+                && Objects.equals(descripcion, otra.descripcion)
+                && Objects.equals(imagenPortadaURL, otra.imagenPortadaURL)
+                && Objects.equals(dificultad, otra.dificultad)
+                && Objects.equals(categoria, otra.categoria);
+    }
+
+    //GETTERS Y SETTERS
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public String getDescripcion() { return descripcion; }
+    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+
+    public String getImagenPortadaURL() { return imagenPortadaURL; }
+    public void setImagenPortadaURL(String imagenPortadaURL) { this.imagenPortadaURL = imagenPortadaURL; }
+
+    public int getTiempoPreparacion() { return tiempoPreparacion; }
+    public void setTiempoPreparacion(int tiempoPreparacion) { this.tiempoPreparacion = tiempoPreparacion; }
+
+    public int getPorciones() { return porciones; }
+    public void setPorciones(int porciones) { this.porciones = porciones; }
+
+    public String getDificultad() { return dificultad; }
+    public void setDificultad(String dificultad) { this.dificultad = dificultad; }
+
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+
+    public boolean isFav() { return isFav; }
+    public void setFav(boolean fav) { isFav = fav; }
+
+    public long getHashContenido() { return hashContenido; }
+    public void setHashContenido(long hashContenido) { this.hashContenido = hashContenido; }
+}
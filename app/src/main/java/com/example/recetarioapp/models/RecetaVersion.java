@@ -0,0 +1,36 @@
+package com.example.recetarioapp.models;
+
+import java.util.Date;
+
+//Proyección mínima de Receta para la sincronización
+//- Solo lo necesario para decidir si una receta remota se inserta, se actualiza o se omite
+//  (y si una edición local cambia algo)
+//- RecetaDAO la carga por lotes de firebaseId (sin listas, etiquetas ni textos)
+public class RecetaVersion {
+
+    //ATRIBUTOS (mismos nombres que las columnas de la tabla recetas)
+    private long id; //ID local de la receta
+    private String firebaseId; //ID remoto en Firebase
+    private Date fechaModificacion; //Última modificación guardada en local
+    private boolean isFav; //Favorito local (no se sube a Firebase al marcarlo)
+    private long hashContenido; //Hash del contenido guardado (0 = sin calcular)
+
+    //Constructor vacío requerido para Room
+    public RecetaVersion() {}
+
+    //GETTERS Y SETTERS
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getFirebaseId() { return firebaseId; }
+    public void setFirebaseId(String firebaseId) { this.firebaseId = firebaseId; }
+
+    public Date getFechaModificacion() { return fechaModificacion; }
+    public void setFechaModificacion(Date fechaModificacion) { this.fechaModificacion = fechaModificacion; }
+
+    public boolean isFav() { return isFav; }
+    public void setFav(boolean fav) { isFav = fav; }
+
+    public long getHashContenido() { return hashContenido; }
+    public void setHashContenido(long hashContenido) { this.hashContenido = hashContenido; }
+}
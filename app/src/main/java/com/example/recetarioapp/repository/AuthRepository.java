@@ -31,6 +31,7 @@ public class AuthRepository {
     private final FirebaseAuth autenticacion;
     private final FirebaseFirestore firestore;
     private final UsuarioDAO usuarioDAO;
+    private final EntornoRecetas entornoRecetas; //Escucha en tiempo real a detener al cerrar sesión
 
     //Estado observable del usuario actual
     private final MutableLiveData<Usuario> usuarioActual = new MutableLiveData<>();
@@ -39,6 +40,7 @@ public class AuthRepository {
     public AuthRepository(Application app) {
         this.autenticacion = FirebaseAuth.getInstance();
         this.firestore = FirebaseFirestore.getInstance();
+        this.entornoRecetas = EntornoRecetas.getFirebase(app);
 
         //Inicializar acceso a base de datos local
         RecetasBD baseDatos = RecetasBD.getInstance(app);
@@ -112,11 +114,15 @@ public class AuthRepository {
     //Cierra la sesión actual del usuario
     //Limpia Firebase Auth y los datos locales del usuario
     public void logout() {
+        entornoRecetas.detenerTiempoReal(); //Sin sesión no se pueden leer sus recetas
         autenticacion.signOut();
         usuarioActual.setValue(null);
 
+        //La cola de salida no se vacía: guarda la cuenta de cada operación y solo envía las de la
+        //sesión iniciada, así los cambios sin subir de esta cuenta esperan a que vuelva a entrar
+
         //Limpiar datos de usuario de la base de datos local
-        RecetasBD.bdWriteExecutor.execute(() -> {
+        RecetasBD.bdEscritura.execute(() -> {
             usuarioDAO.eliminarTodos();
         });
     }
@@ -169,7 +175,7 @@ public class AuthRepository {
                 .set(usuarioMap)
                 .addOnSuccessListener(aVoid -> {
                     //Guardar también en base de datos local
-                    RecetasBD.bdWriteExecutor.execute(() -> {
+                    RecetasBD.bdEscritura.execute(() -> {
                         usuarioDAO.insertar(usuario);
                     });
 
@@ -197,7 +203,7 @@ public class AuthRepository {
                         actualizarUltimaConexion(uid);
 
                         //Guardar en base de datos local
-                        RecetasBD.bdWriteExecutor.execute(() -> {
+                        RecetasBD.bdEscritura.execute(() -> {
                             usuarioDAO.insertar(usuario);
                         });
 
@@ -0,0 +1,196 @@
+package com.example.recetarioapp.repository;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.example.recetarioapp.database.OperacionPendienteDAO;
+import com.example.recetarioapp.database.RecetaDAO;
+import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaCompleta;
+import com.example.recetarioapp.repository.remote.RemoteRecetaSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Cola de salida (outbox) de cambios locales hacia Firebase
+// - Las escrituras locales encolan su operación en la misma transacción (LocalDataSource)
+// - Los pendientes se envían en WriteBatch de hasta 500 operaciones, los más antiguos primero
+// - Se envía al guardar un cambio y cada vez que vuelve la conexión
+// - Un envío fallido deja la fila en la tabla: ninguna edición se pierde sin red
+// - Solo envía las operaciones de la cuenta con sesión iniciada (al cambiar de cuenta, las de
+//   la anterior esperan a que vuelva a entrar)
+// - Cada fallo aplaza las operaciones del lote (espera creciente, reintento programado) y parte
+//   el siguiente lote por la mitad: una operación que hace fallar el lote entero acaba sola y,
+//   tras OperacionPendiente.MAX_INTENTOS, se aparta sin bloquear a las demás
+// - Las actualizaciones suben solo los campos modificados (huellas_sincronizadas)
+// - Un update() sobre un documento borrado en remoto se resuelve como ese borrado (gana el
+//   remoto, como con una lápida): se descarta la copia local y se reenvía el resto del lote
+// - Una por EntornoRecetas y su fuente remota (un solo envío en curso a la vez)
+public final class ColaSalida {
+
+    private static final String TAG = "ColaSalida";
+
+    private final OperacionPendienteDAO operacionesDAO;
+    private final RecetaDAO recetaDAO;
+    private final RemoteRecetaSource fuenteRemota;
+
+    //Control de envío: uno a la vez; si llega otra petición durante el envío se repite al acabar
+    private final AtomicBoolean enviando = new AtomicBoolean(false);
+    private final AtomicBoolean repetirAlTerminar = new AtomicBoolean(false);
+
+    //Reintento programado tras un fallo (en el hilo principal, como CoordinadorSincronizacion)
+    private final Handler manejadorPrincipal = new Handler(Looper.getMainLooper());
+    private final Runnable reintento = this::enviar;
+
+    //Una por EntornoRecetas (la crea el entorno junto con su fuente remota)
+    ColaSalida(Context contexto, RemoteRecetaSource fuenteRemota) {
+        contexto = contexto.getApplicationContext();
+        RecetasBD baseDatos = RecetasBD.getInstance(contexto);
+        this.operacionesDAO = baseDatos.operacionPendienteDAO();
+        this.recetaDAO = baseDatos.recetaDAO();
+        this.fuenteRemota = fuenteRemota;
+        registrarConectividad(contexto);
+    }
+
+    //Envía los cambios pendientes cuando vuelve la red
+    private void registrarConectividad(Context contexto) {
+        ConnectivityManager gestor = contexto.getSystemService(ConnectivityManager.class);
+        if (gestor == null) return;
+        gestor.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network red) {
+                android.util.Log.d(TAG, "Conexión disponible, enviando pendientes");
+                enviar();
+            }
+        });
+    }
+
+    //==================== ENVÍO ====================
+
+    //Envía todos los pendientes de la cuenta con sesión por lotes (sin usuario no se envía nada)
+    public void enviar() {
+        String usuarioId = fuenteRemota.getUsuarioId();
+        if (usuarioId == null) return;
+        if (!enviando.compareAndSet(false, true)) {
+            repetirAlTerminar.set(true);
+            return;
+        }
+        RecetasBD.bdEscritura.execute(() -> enviarSiguienteLote(usuarioId));
+    }
+
+    //Prepara y envía el siguiente lote (en el hilo escritor, para leer un estado coherente)
+    private void enviarSiguienteLote(String usuarioId) {
+        operacionesDAO.reclamarSinUsuario(usuarioId);
+        List<OperacionPendiente> pendientes = operacionesDAO.getPendientes(usuarioId, new Date(),
+                RemoteRecetaSource.MAX_ESCRITURAS_LOTE);
+        if (pendientes.isEmpty()) {
+            programarReintento(usuarioId); //Quedan, si acaso, operaciones aplazadas
+            terminar(false);
+            return;
+        }
+
+        //Tras fallos, lotes más pequeños para aislar la operación que los hace fallar
+        int tamano = OperacionPendiente.loteTrasFallos(RemoteRecetaSource.MAX_ESCRITURAS_LOTE,
+                pendientes.get(0).getIntentos());
+        List<OperacionPendiente> lote = new ArrayList<>(pendientes.subList(0, Math.min(tamano, pendientes.size())));
+        boolean quedanPendientes = pendientes.size() > lote.size()
+                || pendientes.size() == RemoteRecetaSource.MAX_ESCRITURAS_LOTE;
+
+        //Las creaciones reciben su documento antes de enviarse (reintentos idempotentes)
+        List<Long> idsASubir = new ArrayList<>();
+        for (OperacionPendiente operacion : lote) {
+            if (!operacion.esEscritura()) continue;
+            if (operacion.getFirebaseId() == null) {
+                String firebaseId = fuenteRemota.nuevoIdReceta();
+                operacionesDAO.asignarFirebaseId(operacion.getRecetaId(), firebaseId);
+                operacion.setFirebaseId(firebaseId);
+            }
+            idsASubir.add(operacion.getRecetaId());
+        }
+
+        //Estado actual de cada receta: varias ediciones agrupadas suben una sola vez
+        //y huella de lo último subido para enviar solo los campos cambiados
+        Map<Long, Receta> recetas = new HashMap<>();
+        Map<Long, HuellaSincronizada> huellas = new HashMap<>();
+        if (!idsASubir.isEmpty()) {
+            for (RecetaCompleta completa : recetaDAO.getRecetasCompletas(idsASubir)) {
+                Receta receta = completa.toReceta();
+                recetas.put(receta.getId(), receta);
+            }
+            for (HuellaSincronizada huella : operacionesDAO.getHuellas(idsASubir)) {
+                huellas.put(huella.getRecetaId(), huella);
+            }
+        }
+
+        fuenteRemota.enviarLote(lote, recetas, huellas, new RemoteRecetaSource.OnLoteListener() {
+            @Override
+            public void onEnviado(List<HuellaSincronizada> huellasNuevas) {
+                RecetasBD.bdEscritura.execute(() -> {
+                    operacionesDAO.confirmarEnviadas(lote, huellasNuevas);
+                    android.util.Log.d(TAG, "Enviadas " + lote.size() + " operaciones pendientes");
+                    terminar(quedanPendientes);
+                });
+            }
+
+            @Override
+            public void onError(String mensaje, List<String> documentosInexistentes) {
+                if (!documentosInexistentes.isEmpty()) {
+                    //Otro dispositivo borró esas recetas: se eliminan en local con su huella y sus
+                    //pendientes (no se recrean con set()); las demás conservan su huella y se reenvían
+                    android.util.Log.w(TAG, "Borradas en remoto, se descartan en local: " + documentosInexistentes);
+                    RecetasBD.bdEscritura.execute(() -> {
+                        recetaDAO.aplicarCambiosRemotos(Collections.emptyList(), documentosInexistentes);
+                        terminar(true);
+                    });
+                    return;
+                }
+                //Sin reintento inmediato: se reintenta tras la espera, con el siguiente cambio o conexión
+                android.util.Log.w(TAG, "Error enviando " + lote.size() + " pendientes: " + mensaje);
+                RecetasBD.bdEscritura.execute(() -> {
+                    //Un fallo por haber cerrado sesión durante el envío no cuenta contra las operaciones
+                    if (usuarioId.equals(fuenteRemota.getUsuarioId())) {
+                        int apartadas = operacionesDAO.registrarFallo(lote, System.currentTimeMillis());
+                        if (apartadas > 0) {
+                            android.util.Log.e(TAG, apartadas + " operaciones apartadas tras "
+                                    + OperacionPendiente.MAX_INTENTOS + " fallos: " + mensaje);
+                        }
+                        programarReintento(usuarioId);
+                    }
+                    repetirAlTerminar.set(false);
+                    enviando.set(false);
+                });
+            }
+        });
+    }
+
+    //Programa un envío para cuando venza la operación aplazada más próxima (en el hilo escritor)
+    private void programarReintento(String usuarioId) {
+        Date ahora = new Date();
+        Date siguiente = operacionesDAO.getSiguienteReintento(usuarioId, ahora);
+        manejadorPrincipal.removeCallbacks(reintento);
+        if (siguiente != null) {
+            manejadorPrincipal.postDelayed(reintento, siguiente.getTime() - ahora.getTime());
+        }
+    }
+
+    //Libera el envío y continúa si quedan pendientes o se pidió otro envío mientras tanto
+    private void terminar(boolean quedanPendientes) {
+        enviando.set(false);
+        if (repetirAlTerminar.getAndSet(false) || quedanPendientes) {
+            enviar();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.recetarioapp.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.recetarioapp.models.ProgresoSincronizacion;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+//Coordinador (uno por EntornoRecetas) de la sincronización remota → local
+// - Máquina de estados atómica: INACTIVA → EN_CURSO → COMPLETADA / FALLIDA
+// - Single-flight: si ya hay una en curso, quien la pide se une a ella (mismo progreso)
+// - Reintenta los fallos con espera exponencial (2 s, 4 s, 8 s) antes de darla por fallida
+// - Una tarea que lanza una excepción o pasa PLAZO_SIN_AVANCE_MS sin avisar cuenta como
+//   intento fallido: el estado nunca se queda en EN_CURSO para siempre
+// - Un intento que falla (o agota su plazo) queda cancelado: la tarea lo ve en
+//   Notificador.isCancelado() y deja de trabajar antes de que empiece el reintento
+// - Publica el progreso acumulado de todos los intentos en un LiveData
+// - Los callbacks de un vuelo anterior (o de un intento ya sustituido) se ignoran
+public final class CoordinadorSincronizacion {
+
+    private static final String TAG = "CoordinadorSync";
+
+    //Reintentos tras el primer intento y espera del primero (se duplica en cada uno)
+    private static final int MAX_REINTENTOS = 3;
+    private static final long ESPERA_INICIAL_MS = 2000L;
+    //Tiempo máximo de un intento sin avances (cada página recibida lo renueva)
+    private static final long PLAZO_SIN_AVANCE_MS = 60_000L;
+
+    public enum Estado { INACTIVA, EN_CURSO, COMPLETADA, FALLIDA }
+
+    private final AtomicReference<Estado> estado = new AtomicReference<>(Estado.INACTIVA);
+    private final AtomicInteger intentoActual = new AtomicInteger(); //Identifica el intento vigente
+    private final MutableLiveData<ProgresoSincronizacion> progreso =
+            new MutableLiveData<>(ProgresoSincronizacion.INACTIVA);
+    private final Handler manejadorPrincipal = new Handler(Looper.getMainLooper());
+
+    //Acumulado de los intentos anteriores del vuelo en curso (solo dentro de synchronized)
+    private int paginasPrevias;
+    private int documentosPrevios;
+    private int reintentos;
+
+    //Uno por EntornoRecetas (la app comparte el de Firebase)
+    CoordinadorSincronizacion() {}
+
+    //==================== ARRANQUE (SINGLE-FLIGHT) ====================
+
+    //Inicia la sincronización o se une a la que está en curso
+    //La tarea solo se ejecuta si no había ninguna (la primera gana)
+    //Devuelve true en ambos casos: el final se observa en getProgreso()
+    public boolean sincronizar(Tarea tarea) {
+        while (true) {
+            Estado actual = estado.get();
+            if (actual == Estado.EN_CURSO) {
+                android.util.Log.d(TAG, "Sincronización en curso: uniéndose a ella");
+                return true;
+            }
+            if (estado.compareAndSet(actual, Estado.EN_CURSO)) break;
+        }
+
+        synchronized (this) {
+            paginasPrevias = 0;
+            documentosPrevios = 0;
+            reintentos = 0;
+        }
+        progreso.postValue(ProgresoSincronizacion.iniciada());
+        lanzar(tarea);
+        return true;
+    }
+
+    public Estado getEstado() {
+        return estado.get();
+    }
+
+    //Progreso de la sincronización en curso (o de la última)
+    public LiveData<ProgresoSincronizacion> getProgreso() {
+        return progreso;
+    }
+
+    //==================== INTENTOS Y REINTENTOS ====================
+
+    //Ejecuta un intento con un notificador ligado a él y su plazo sin avances
+    private void lanzar(Tarea tarea) {
+        int intento = intentoActual.incrementAndGet();
+        Notificador notificador = new Notificador(intento, tarea);
+        notificador.renovarPlazo();
+        try {
+            tarea.ejecutar(notificador);
+        } catch (RuntimeException e) {
+            android.util.Log.e(TAG, "La tarea de sincronización lanzó una excepción", e);
+            notificador.fallida(0, 0, "Error inesperado: " + e.getMessage(), true);
+        }
+    }
+
+    //Programa el siguiente intento o da la sincronización por fallida
+    private void fallar(Notificador notificador, int paginas, int documentos, String error, boolean reintentable) {
+        long espera;
+        int reintento;
+        int paginasTotales;
+        int documentosTotales;
+        synchronized (this) {
+            if (!notificador.esVigente()) return;
+            manejadorPrincipal.removeCallbacks(notificador.plazo);
+            notificador.cancelado = true; //El intento que sigue (si lo hay) será otro
+            paginasPrevias += paginas;
+            documentosPrevios += documentos;
+            paginasTotales = paginasPrevias;
+            documentosTotales = documentosPrevios;
+            if (!reintentable || reintentos >= MAX_REINTENTOS) {
+                intentoActual.incrementAndGet(); //Invalida callbacks tardíos
+                estado.set(Estado.FALLIDA);
+                progreso.postValue(ProgresoSincronizacion.fallida(paginasTotales, documentosTotales, error));
+                return;
+            }
+            reintento = ++reintentos;
+            espera = ESPERA_INICIAL_MS << (reintento - 1);
+            progreso.postValue(ProgresoSincronizacion.reintentando(paginasTotales, documentosTotales, reintento));
+        }
+
+        android.util.Log.w(TAG, "Intento fallido (" + error + "), reintento " + reintento + " en " + espera + " ms");
+        int intentoFallido = notificador.intento;
+        manejadorPrincipal.postDelayed(() -> {
+            //Solo si nadie ha cerrado o sustituido este vuelo mientras tanto
+            if (intentoActual.get() == intentoFallido && estado.get() == Estado.EN_CURSO) {
+                lanzar(notificador.tarea);
+            }
+        }, espera);
+    }
+
+    //==================== INTERFACES ====================
+
+    //Un intento de sincronización: debe acabar llamando a terminada() o fallida()
+    //y dejar de trabajar (sin avisar) en cuanto notificador.isCancelado()
+    public interface Tarea {
+        void ejecutar(Notificador notificador);
+    }
+
+    //Canal de un intento hacia el coordinador (seguro desde cualquier hilo)
+    public final class Notificador {
+        private final int intento;
+        private final Tarea tarea;
+        //Plazo vencido: el intento falla con lo último que avisó (reintentable)
+        private final Runnable plazo = this::plazoAgotado;
+
+        //Último avance comunicado (solo dentro de synchronized)
+        private int paginasAvisadas;
+        private int documentosAvisados;
+        //Intento fallido o con el plazo agotado: sus avisos se ignoran y la tarea debe parar
+        private volatile boolean cancelado;
+
+        private Notificador(int intento, Tarea tarea) {
+            this.intento = intento;
+            this.tarea = tarea;
+        }
+
+        private boolean esVigente() {
+            return !cancelado && intentoActual.get() == intento && estado.get() == Estado.EN_CURSO;
+        }
+
+        //true si este intento ya no es el vigente (falló, agotó el plazo o la sincronización acabó):
+        //la tarea no debe seguir descargando ni escribiendo
+        public boolean isCancelado() {
+            return !esVigente();
+        }
+
+        private void renovarPlazo() {
+            manejadorPrincipal.removeCallbacks(plazo);
+            manejadorPrincipal.postDelayed(plazo, PLAZO_SIN_AVANCE_MS);
+        }
+
+        private void plazoAgotado() {
+            int paginas;
+            int documentos;
+            synchronized (CoordinadorSincronizacion.this) {
+                paginas = paginasAvisadas;
+                documentos = documentosAvisados;
+            }
+            fallar(this, paginas, documentos, "Sin respuesta del servidor", true);
+        }
+
+        //Avance del intento (páginas y documentos escritos en este intento)
+        public void avanzar(int paginas, int documentos) {
+            synchronized (CoordinadorSincronizacion.this) {
+                if (!esVigente()) return;
+                paginasAvisadas = paginas;
+                documentosAvisados = documentos;
+                renovarPlazo();
+                progreso.postValue(ProgresoSincronizacion.enCurso(
+                        paginasPrevias + paginas, documentosPrevios + documentos, reintentos));
+            }
+        }
+
+        public void terminada(int paginas, int documentos) {
+            synchronized (CoordinadorSincronizacion.this) {
+                if (!esVigente()) return;
+                manejadorPrincipal.removeCallbacks(plazo);
+                intentoActual.incrementAndGet();
+                estado.set(Estado.COMPLETADA);
+                progreso.postValue(ProgresoSincronizacion.terminada(
+                        paginasPrevias + paginas, documentosPrevios + documentos));
+            }
+        }
+
+        //reintentable = false para fallos que no se arreglan repitiendo (p. ej. sin sesión)
+        public void fallida(int paginas, int documentos, String error, boolean reintentable) {
+            fallar(this, paginas, documentos, error, reintentable);
+        }
+    }
+}
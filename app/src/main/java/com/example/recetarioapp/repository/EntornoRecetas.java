@@ -0,0 +1,57 @@
+package com.example.recetarioapp.repository;
+
+import android.app.Application;
+
+import com.example.recetarioapp.repository.remote.FirebaseDataSource;
+import com.example.recetarioapp.repository.remote.RemoteRecetaSource;
+import com.example.recetarioapp.repository.storage.RecolectorImagenes;
+
+//Colaboradores con estado de RecetaRepository, ligados a una fuente remota concreta
+// - Cola de salida, coordinador de la sincronización, escucha en tiempo real y recolector
+//   de imágenes viven aquí en lugar de en estáticos: cada fuente remota tiene los suyos
+// - La app usa uno solo, sobre Firebase (getFirebase): todos los RecetaRepository lo comparten
+//   y así conservan el single-flight de la sincronización y una única escucha
+// - Las pruebas y los bancos de carga crean el suyo con InMemoryRecetaSource, sin heredar
+//   la fuente ni el estado de otro entorno
+public final class EntornoRecetas {
+
+    private static volatile EntornoRecetas firebase;
+
+    private final RemoteRecetaSource fuenteRemota;
+    private final ColaSalida colaSalida;
+    private final CoordinadorSincronizacion coordinador = new CoordinadorSincronizacion();
+    private final EscuchaTiempoReal tiempoReal = new EscuchaTiempoReal();
+    private final RecolectorImagenes recolectorImagenes;
+
+    //Entorno propio para una fuente remota (p. ej. InMemoryRecetaSource)
+    public EntornoRecetas(Application app, RemoteRecetaSource fuenteRemota) {
+        this.fuenteRemota = fuenteRemota;
+        this.colaSalida = new ColaSalida(app, fuenteRemota);
+        this.recolectorImagenes = new RecolectorImagenes(app);
+    }
+
+    //Entorno de la app sobre Firebase (se crea con la primera llamada)
+    public static EntornoRecetas getFirebase(Application app) {
+        if (firebase == null) {
+            synchronized (EntornoRecetas.class) {
+                if (firebase == null) {
+                    firebase = new EntornoRecetas(app, new FirebaseDataSource());
+                }
+            }
+        }
+        return firebase;
+    }
+
+    public RemoteRecetaSource getFuenteRemota() { return fuenteRemota; }
+    public ColaSalida getColaSalida() { return colaSalida; }
+    public CoordinadorSincronizacion getCoordinador() { return coordinador; }
+    public RecolectorImagenes getRecolectorImagenes() { return recolectorImagenes; }
+
+    EscuchaTiempoReal getTiempoReal() { return tiempoReal; }
+
+    //Deja de escuchar los cambios remotos (al cerrar sesión o desactivar el modo)
+    //La marca de agua se conserva: al reanudar solo llega lo modificado mientras tanto
+    public void detenerTiempoReal() {
+        tiempoReal.detener();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.recetarioapp.repository;
+
+import com.example.recetarioapp.repository.remote.RemoteRecetaSource;
+
+//Estado de la escucha en tiempo real de un EntornoRecetas (como mucho una activa)
+//- activar() reserva la escucha antes de registrarla (el registro es asíncrono)
+//- Si se detiene mientras se registraba, el registro recién creado se cancela al llegar
+final class EscuchaTiempoReal {
+
+    private RemoteRecetaSource.Suscripcion suscripcion;
+    private boolean activa;
+
+    //Reserva la escucha; false si ya había una activa o registrándose
+    synchronized boolean activar() {
+        if (activa) return false;
+        activa = true;
+        return true;
+    }
+
+    //Guarda el registro de la escucha reservada, o lo cancela si se detuvo mientras tanto
+    synchronized void registrar(RemoteRecetaSource.Suscripcion registro) {
+        if (activa) {
+            suscripcion = registro;
+        } else if (registro != null) {
+            registro.cancelar();
+        }
+    }
+
+    synchronized void detener() {
+        activa = false;
+        if (suscripcion != null) {
+            suscripcion.cancelar();
+            suscripcion = null;
+        }
+    }
+}
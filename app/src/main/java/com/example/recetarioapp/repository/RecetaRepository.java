@@ -3,22 +3,36 @@ package com.example.recetarioapp.repository;
 import android.app.Application;
 import android.net.Uri;
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
 
+import com.example.recetarioapp.database.RecetaDAO;
 import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.ProgresoSincronizacion;
 import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFiltro;
+import com.example.recetarioapp.models.RecetaResumen;
 import com.example.recetarioapp.repository.local.LocalDataSource;
-import com.example.recetarioapp.repository.remote.FirebaseDataSource;
+import com.example.recetarioapp.repository.remote.RemoteRecetaSource;
 import com.example.recetarioapp.repository.storage.ImageStorage;
-import com.google.firebase.auth.FirebaseAuth;
+import com.example.recetarioapp.repository.local.MarcaSincronizacion;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 //Repository principal que coordina todas las operaciones con recetas
 // - Implementa patrón Repository para abstraer origen de datos
 // - Proporciona API unificada para operaciones con recetas
 // - Sincroniza automáticamente entre base de datos local (Room) y remota (Firebase)
 // - Gestiona lógica de sincronización, resolución de conflictos y modo offline
+// - La fuente remota y sus colaboradores con estado se inyectan (EntornoRecetas):
+//   el entorno de Firebase por defecto
 public class RecetaRepository {
 
     //Configuración y logging
@@ -26,119 +40,130 @@ public class RecetaRepository {
 
     //Fuentes de datos
     private final LocalDataSource fuenteLocal;
-    private final FirebaseDataSource fuenteFirebase;
+    private final RemoteRecetaSource fuenteRemota;
     private final ImageStorage gestorImagenes;
+    private final MarcaSincronizacion marcaSincronizacion;
+    private final ColaSalida colaSalida;
 
-    //Control de sincronización global (static para toda la aplicación)
-    private static boolean sincronizacionGlobalRealizada = false;
+    //Margen para el desfase entre el reloj del dispositivo y el del servidor (marca tras descarga completa)
+    private static final long MARGEN_RELOJ_MS = 10 * 60 * 1000L;
 
-    //Constructor que inicializa todas las fuentes de datos
+    //Configuración de paginación: páginas de 20 filas, sin placeholders
+    private static final PagingConfig CONFIG_PAGINACION = new PagingConfig(20, 10, false);
+
+    //Sincronización única por entorno (single-flight, reintentos, progreso)
+    //Cada pasada solo descarga lo modificado desde la marca, así que puede repetirse a voluntad
+    private final CoordinadorSincronizacion coordinador;
+
+    //Escucha en tiempo real (opt-in), única por entorno
+    private final EscuchaTiempoReal tiempoReal;
+
+    //Constructor que inicializa todas las fuentes de datos (entorno de la app: Firebase)
     public RecetaRepository(Application app) {
+        this(app, EntornoRecetas.getFirebase(app));
+    }
+
+    //Constructor con el entorno inyectado (p. ej. el de las pruebas, sobre InMemoryRecetaSource)
+    public RecetaRepository(Application app, EntornoRecetas entorno) {
         this.fuenteLocal = new LocalDataSource(app);
-        this.fuenteFirebase = new FirebaseDataSource();
+        this.fuenteRemota = entorno.getFuenteRemota();
         this.gestorImagenes = new ImageStorage(app);
+        this.marcaSincronizacion = new MarcaSincronizacion(app);
+        this.colaSalida = entorno.getColaSalida();
+        this.coordinador = entorno.getCoordinador();
+        this.tiempoReal = entorno.getTiempoReal();
+        entorno.getRecolectorImagenes().programar(); //Limpieza periódica de imágenes huérfanas
 
         //Log de inicialización (sin sincronización automática)
-        android.util.Log.d(TAG, "Repository inicializado - Sincronización Global: " + sincronizacionGlobalRealizada);
+        android.util.Log.d(TAG, "Repository inicializado - Sincronización: " + coordinador.getEstado());
     }
 
     //==================== OPERACIONES DE LECTURA (SOLO LOCAL) ====================
 
-    //Obtiene todas las recetas ordenadas por fecha de creación
-    public LiveData<List<Receta>> getAllRecetas() {
-        return fuenteLocal.getAllRecetas();
-    }
-
     //Obtiene una receta específica por su ID local
     public LiveData<Receta> getRecetaById(long id) {
         return fuenteLocal.getRecetaById(id);
     }
 
-    //Obtiene todas las recetas marcadas como favoritas
-    public LiveData<List<Receta>> getFavs() {
-        return fuenteLocal.getFavoritas();
+    //Obtiene el resumen de las recetas más recientes (pantalla de inicio)
+    public LiveData<List<RecetaResumen>> getRecetasRecientes(int limite) {
+        return fuenteLocal.getRecetasRecientes(limite);
     }
 
-    //Busca recetas por nombre (búsqueda parcial)
-    public LiveData<List<Receta>> buscarPorNombre(String query) {
-        return fuenteLocal.buscarPorNombre(query);
+    //Cuenta el total de recetas guardadas
+    public LiveData<Integer> contarRecetas() {
+        return fuenteLocal.contarRecetas();
     }
 
-    //Filtra recetas por categoría específica
-    public LiveData<List<Receta>> getRecetasPorCategoria(String categoria) {
-        return fuenteLocal.getRecetasPorCategoria(categoria);
+    //Cuenta las recetas marcadas como favoritas
+    public LiveData<Integer> contarFavoritas() {
+        return fuenteLocal.contarFavoritas();
     }
 
-    //Filtra recetas por nivel de dificultad
-    public LiveData<List<Receta>> getRecetasPorDificultad(String dificultad) {
-        return fuenteLocal.getRecetasPorDificultad(dificultad);
+    //==================== LISTAS PAGINADAS (PAGING 3) ====================
+
+    //Recetas favoritas paginadas
+    public LiveData<PagingData<RecetaResumen>> getFavsPaginadas() {
+        return paginar(fuenteLocal::getFavoritasPaginadas);
+    }
+
+    //Lista de recetas paginada que sigue a un filtro compuesto cambiante (búsqueda, categoría...)
+    //- Un único Pager: cada PagingSource nueva lee el filtro vigente de filtroActual
+    //- fuenteActiva recibe la PagingSource en uso; al cambiar el filtro basta con invalidarla
+    public LiveData<PagingData<RecetaResumen>> filtrar(Supplier<RecetaFiltro> filtroActual,
+                                                       AtomicReference<PagingSource<Integer, RecetaResumen>> fuenteActiva) {
+        return paginar(() -> {
+            PagingSource<Integer, RecetaResumen> fuente = fuenteLocal.filtrar(filtroActual.get());
+            fuenteActiva.set(fuente);
+            return fuente;
+        });
     }
 
-    //Filtra recetas por tiempo máximo de preparación
-    public LiveData<List<Receta>> getRecetasPorTiempo(int tiempoMax) {
-        return fuenteLocal.getRecetasPorTiempo(tiempoMax);
+    //Filtra recetas que contienen un ingrediente concreto
+    public LiveData<PagingData<RecetaResumen>> getRecetasConIngrediente(String ingrediente) {
+        return paginar(() -> fuenteLocal.getRecetasConIngrediente(ingrediente));
+    }
+
+    //Crea un Pager que pide una PagingSource nueva a Room en cada invalidación
+    private LiveData<PagingData<RecetaResumen>> paginar(Supplier<PagingSource<Integer, RecetaResumen>> fabrica) {
+        Pager<Integer, RecetaResumen> pager = new Pager<>(CONFIG_PAGINACION, fabrica::get);
+        return PagingLiveData.getLiveData(pager);
     }
 
     //==================== OPERACIONES DE ESCRITURA (SINCRONIZADAS) ====================
 
     //Inserta una nueva receta con sincronización automática
+    //Estrategia: local primero; la subida a Firebase queda en la cola de salida
+    //y se envía en cuanto hay conexión (sin usuario se guarda solo en local)
     public void insertarReceta(Receta receta, OnRecetaGuardadaListener listener) {
-        //Verificar autenticación para sincronización con Firebase
-        if (FirebaseAuth.getInstance().getCurrentUser() != null) {
-            //Estrategia: Firebase primero
-            fuenteFirebase.guardarReceta(receta, firebaseId -> {
-                //Éxito en Firebase - guardar local con firebaseId
-                receta.setFirebaseId(firebaseId);
-                fuenteLocal.insertar(receta, localId -> {
-                    receta.setId(localId);
-                    listener.onSuccess(receta);
-                }, listener::onError);
-            }, error -> {
-                //Falló Firebase - guardar solo local (modo offline)
-                android.util.Log.w(TAG, "Modo offline, guardando solo local: " + error);
-                fuenteLocal.insertar(receta, localId -> {
-                    receta.setId(localId);
-                    listener.onSuccess(receta);
-                }, listener::onError);
-            });
-        } else {
-            //No hay usuario - guardar solo local
-            fuenteLocal.insertar(receta, localId -> {
-                receta.setId(localId);
-                listener.onSuccess(receta);
-            }, listener::onError);
+        String usuarioId = fuenteRemota.getUsuarioId();
+        if (usuarioId != null) {
+            receta.setUsuarioId(usuarioId);
         }
+        fuenteLocal.insertar(receta, usuarioId, localId -> {
+            receta.setId(localId);
+            listener.onSuccess(receta);
+            colaSalida.enviar();
+        }, listener::onError);
     }
 
     //Actualiza una receta existente con sincronización
     public void actualizarReceta(Receta receta, OnRecetaGuardadaListener listener) {
-        fuenteLocal.actualizar(receta, () -> {
-            //Éxito local - notificar inmediatamente
+        fuenteLocal.actualizar(receta, fuenteRemota.getUsuarioId(), () -> {
+            //Éxito local - notificar inmediatamente y subir en segundo plano
             listener.onSuccess(receta);
-
-            //Sincronizar con Firebase si es posible (async, no bloqueante)
-            if (FirebaseAuth.getInstance().getCurrentUser() != null && receta.getFirebaseId() != null) {
-                fuenteFirebase.actualizarReceta(receta,
-                        NOOP_RUNNABLE,
-                        error -> android.util.Log.w(TAG, "Error sincronizando actualización: " + error)
-                );
-            }
+            colaSalida.enviar();
+            gestorImagenes.limpiarSinReferencias(); //La imagen anterior pudo quedarse sin uso
         }, listener::onError);
     }
 
     //Elimina una receta con sincronización
     public void eliminarReceta(Receta receta, OnRecetaEliminadaListener listener) {
-        fuenteLocal.eliminar(receta, () -> {
-            //Éxito local - notificar inmediatamente
+        fuenteLocal.eliminar(receta, fuenteRemota.getUsuarioId(), () -> {
+            //Éxito local - notificar inmediatamente y subir en segundo plano
             listener.onSuccess();
-
-            //Sincronizar con Firebase si es posible (async, no bloqueante)
-            if (FirebaseAuth.getInstance().getCurrentUser() != null && receta.getFirebaseId() != null) {
-                fuenteFirebase.eliminarReceta(receta.getFirebaseId(),
-                        NOOP_RUNNABLE,
-                        error -> android.util.Log.w(TAG, "Error al eliminar en Firebase: " + error)
-                );
-            }
+            colaSalida.enviar();
+            gestorImagenes.limpiarSinReferencias(); //La imagen anterior pudo quedarse sin uso
         }, listener::onError);
     }
 
@@ -147,78 +172,215 @@ public class RecetaRepository {
         fuenteLocal.establecerFavorita(id, esFavorito);
     }
 
+    //Estados de favorito pendientes de escribir (ID receta → estado a mostrar)
+    public LiveData<Map<Long, Boolean>> getFavoritosPendientes() {
+        return fuenteLocal.getFavoritosPendientes();
+    }
+
     //==================== GESTIÓN DE IMÁGENES ====================
 
     //Guarda una imagen en almacenamiento interno y devuelve la ruta
-    public void guardarImagenLocal(Uri uri, OnImagenSubidaListener listener) {
-        gestorImagenes.guardarImagen(uri, listener);
+    //Devuelve la importación para cancelarla, o null si no se pudo iniciar (ya notificado)
+    public Future<?> guardarImagenLocal(Uri uri, OnImagenSubidaListener listener) {
+        return gestorImagenes.guardarImagen(uri, listener);
     }
 
     //==================== SINCRONIZACIÓN FIREBASE → LOCAL ====================
 
-    //Sincroniza recetas desde Firebase a la base de datos local
-    public void sincronizarFBaLocal() {
-        //Control GLOBAL para evitar sincronizaciones duplicadas
-        if (!sincronizacionGlobalRealizada && FirebaseAuth.getInstance().getCurrentUser() != null) {
-            android.util.Log.d(TAG, "SINCRONIZACIÓN GLOBAL iniciada");
+    //Sincroniza recetas desde Firebase a la base de datos local (incremental y por páginas)
+    //- Solo descarga los documentos modificados desde la marca de agua del usuario
+    //- Cada página se fusiona en su propia transacción mientras se descarga la siguiente
+    //  (como mucho una página por adelantado: la memoria no crece con el tamaño de la cuenta)
+    //- La marca es la hora del servidor de la última escritura (actualizadoServidor), no el reloj
+    //  del dispositivo: una edición subida tarde o un reloj desajustado no hacen perder cambios
+    //- En la descarga incremental la marca avanza con cada página escrita (vienen ordenadas por
+    //  hora del servidor); en la completa, solo al terminar (vienen ordenadas por ID) y a la hora
+    //  en que empezó menos MARGEN_RELOJ_MS: los documentos antiguos sin actualizadoServidor no
+    //  pueden dar la marca, y lo escrito mientras se descargaba vuelve a pedirse la próxima vez
+    //- Los borrados llegan como lápidas (ver RecetaMapper.CAMPO_ELIMINADA) con su hora del servidor
+    //- Si no hay ninguna receta sincronizada en local (BD nueva o borrada) se descarga todo
+    //- El avance (páginas, documentos) se publica en getProgresoSincronizacion()
+    //- Si ya hay una en curso (de cualquier pantalla) se une a ella en vez de lanzar otra
+    //- Los fallos se reintentan con espera creciente (CoordinadorSincronizacion);
+    //  cada reintento continúa desde la marca de la última página escrita
+    //- Un intento cancelado por el coordinador (plazo agotado) deja de pedir páginas: no se
+    //  solapa con su reintento
+    //- Devuelve false si no se ha iniciado (sin usuario)
+    public boolean sincronizarFBaLocal() {
+        if (fuenteRemota.getUsuarioId() == null) {
+            android.util.Log.d(TAG, "SINCRONIZACIÓN omitida - sin usuario");
+            return false;
+        }
+        return coordinador.sincronizar(this::descargarCambios);
+    }
+
+    //Un intento de sincronización: descarga y fusiona por páginas desde la marca
+    private void descargarCambios(CoordinadorSincronizacion.Notificador notificador) {
+        String usuarioId = fuenteRemota.getUsuarioId();
+        if (usuarioId == null) {
+            notificador.fallida(0, 0, "Sesión cerrada", false); //Reintentar no lo arregla
+            return;
+        }
+
+        //Aprovechar para subir los cambios que quedaron en la cola de salida
+        colaSalida.enviar();
+
+        fuenteLocal.contarSincronizadas(sincronizadas -> {
+            if (notificador.isCancelado()) return; //Agotó el plazo antes de empezar a descargar
+            long marca = sincronizadas > 0 ? marcaSincronizacion.getMarca(usuarioId) : 0L;
+            android.util.Log.d(TAG, "SINCRONIZACIÓN iniciada desde marca " + marca);
 
-            fuenteFirebase.obtenerRecetasUsuario(recetas -> {
-                android.util.Log.d(TAG, "Descargadas " + recetas.size() + " recetas de Firebase");
+            //Estado de este intento: solo se modifica en el hilo escritor (callbacks de la fusión)
+            EstadoDescarga estado = new EstadoDescarga();
+            long inicioDescarga = System.currentTimeMillis();
 
-                if (recetas.isEmpty()) {
-                    sincronizacionGlobalRealizada = true;
-                    android.util.Log.d(TAG, "No hay recetas para sincronizar");
+            fuenteRemota.descargarRecetasUsuario(marca, (recetas, numeroPagina, hayMas, procesada) -> {
+                //Intento sustituido (p. ej. plazo agotado): sin procesada() la descarga se detiene aquí
+                if (notificador.isCancelado()) {
+                    android.util.Log.d(TAG, "Intento cancelado, se descarta la página " + numeroPagina);
                     return;
                 }
-
-                //Procesamiento en background con control de duplicados
-                RecetasBD.bdWriteExecutor.execute(() -> {
-                    List<Receta> recetasSinDuplicados = new ArrayList<>();
-                    int duplicadosEncontrados = 0;
-
-                    for (Receta recetaFirebase : recetas) {
-                        if (recetaFirebase.getFirebaseId() == null) {
-                            android.util.Log.w(TAG, "Receta sin firebaseId, omitiendo");
-                            continue;
-                        }
-
-                        //Verificar si ya existe en local por firebaseId
-                        Receta existente = fuenteLocal.getRecetaByFirebaseId(recetaFirebase.getFirebaseId());
-                        if (existente == null) {
-                            recetasSinDuplicados.add(recetaFirebase);
-                            android.util.Log.d(TAG, "Nueva receta: " + recetaFirebase.getNombre());
-                        } else {
-                            duplicadosEncontrados++;
-                            android.util.Log.d(TAG, "Receta ya existe: " + recetaFirebase.getFirebaseId());
-                        }
+                fuenteLocal.fusionarRemotas(recetas, resultado -> {
+                    if (estado.error != null) return; //Una página anterior falló: no avanzar la marca
+                    estado.sumar(recetas.size(), resultado);
+                    estado.marca = Math.max(estado.marca, mayorActualizacionServidor(recetas));
+                    if (marca > 0) {
+                        marcaSincronizacion.avanzar(usuarioId, estado.marca);
+                    } else if (!hayMas) {
+                        marcaSincronizacion.avanzar(usuarioId, inicioDescarga - MARGEN_RELOJ_MS);
                     }
-
-                    //Insertar solo las recetas nuevas
-                    if (!recetasSinDuplicados.isEmpty()) {
-                        fuenteLocal.insertarVarias(recetasSinDuplicados);
-                        android.util.Log.d(TAG, "Insertadas " + recetasSinDuplicados.size() + " recetas nuevas");
+                    if (notificador.isCancelado()) return; //La página quedó escrita: la marca es válida
+                    notificador.avanzar(estado.paginas, estado.documentos);
+                    if (hayMas) {
+                        procesada.run(); //Ya se puede entregar la siguiente página
+                    } else {
+                        terminarSincronizacion(estado, notificador);
+                    }
+                }, errorFusion -> {
+                    android.util.Log.e(TAG, "Error fusionando página " + numeroPagina + ": " + errorFusion);
+                    if (estado.error == null) {
+                        estado.error = errorFusion;
+                        terminarSincronizacion(estado, notificador); //La marca se queda en la última página escrita
                     }
-
-                    android.util.Log.d(TAG, "Resumen: " + duplicadosEncontrados + " duplicados evitados, " +
-                            recetasSinDuplicados.size() + " nuevas insertadas");
-
-                    sincronizacionGlobalRealizada = true;
-                    android.util.Log.d(TAG, "SINCRONIZACIÓN GLOBAL completada");
                 });
-            }, error -> {
+            }, error -> RecetasBD.bdEscritura.execute(() -> {
+                //En el hilo escritor: después de las páginas que ya estaban en cola
                 android.util.Log.w(TAG, "Error en sincronización: " + error);
-                sincronizacionGlobalRealizada = true; //Marcar como completada incluso en error
-            });
+                if (estado.error == null) {
+                    estado.error = error;
+                    terminarSincronizacion(estado, notificador);
+                }
+            }));
+        });
+    }
+
+    //Comunica el resultado del intento al coordinador (llamar en el hilo escritor)
+    private static void terminarSincronizacion(EstadoDescarga estado,
+                                               CoordinadorSincronizacion.Notificador notificador) {
+        if (estado.error != null) {
+            notificador.fallida(estado.paginas, estado.documentos, estado.error, true);
         } else {
-            android.util.Log.d(TAG, "SINCRONIZACIÓN omitida - Global: " + sincronizacionGlobalRealizada +
-                    ", Usuario: " + (FirebaseAuth.getInstance().getCurrentUser() != null));
+            android.util.Log.d(TAG, "SINCRONIZACIÓN completada - " + estado.paginas + " páginas, " +
+                    estado.insertadas + " nuevas, " + estado.actualizadas + " actualizadas, " +
+                    estado.eliminadas + " eliminadas, " + estado.omitidas + " sin cambios");
+            notificador.terminada(estado.paginas, estado.documentos);
         }
+        android.util.Log.d(TAG, "Executors BD - " + RecetasBD.resumenMetricas());
     }
 
-    //==================== UTILIDADES ====================
+    //Progreso de la sincronización en curso (o de la última)
+    public LiveData<ProgresoSincronizacion> getProgresoSincronizacion() {
+        return coordinador.getProgreso();
+    }
 
-    //Runnable vacío para operaciones que no requieren acción en callback
-    private static final Runnable NOOP_RUNNABLE = () -> {};
+    //Acumulado de un intento de descarga por páginas
+    private static final class EstadoDescarga {
+        int paginas;
+        int documentos;
+        int insertadas;
+        int actualizadas;
+        int omitidas;
+        int eliminadas;
+        long marca; //Mayor hora del servidor de las páginas escritas
+        String error;
+
+        void sumar(int documentosPagina, RecetaDAO.ResultadoFusion resultado) {
+            paginas++;
+            documentos += documentosPagina;
+            insertadas += resultado.insertadas;
+            actualizadas += resultado.actualizadas;
+            omitidas += resultado.omitidas;
+            eliminadas += resultado.eliminadas;
+        }
+    }
+
+    //==================== SINCRONIZACIÓN EN TIEMPO REAL (OPT-IN) ====================
+
+    //Activa o desactiva la escucha en tiempo real (la preferencia se recuerda entre sesiones)
+    public void setTiempoReal(boolean activado) {
+        marcaSincronizacion.setTiempoReal(activado);
+        if (activado) {
+            iniciarTiempoReal();
+        } else {
+            detenerTiempoReal();
+        }
+    }
+
+    public boolean isTiempoReal() {
+        return marcaSincronizacion.isTiempoReal();
+    }
+
+    //Empieza a escuchar los cambios remotos si el usuario lo activó y hay sesión
+    //- Reanuda desde la marca de agua: solo llegan los documentos modificados desde entonces
+    //- Cada snapshot se aplica a Room en una transacción y avanza la marca
+    //- Las ediciones de otros dispositivos aparecen sin volver a descargar todo
+    public void iniciarTiempoReal() {
+        String usuarioId = fuenteRemota.getUsuarioId();
+        if (usuarioId == null || !marcaSincronizacion.isTiempoReal()) return;
+        if (!tiempoReal.activar()) return;
+
+        fuenteLocal.contarSincronizadas(sincronizadas -> {
+            long marca = sincronizadas > 0 ? marcaSincronizacion.getMarca(usuarioId) : 0L;
+            RemoteRecetaSource.Suscripcion registro = fuenteRemota.escucharCambios(marca, cambios ->
+                    fuenteLocal.aplicarCambiosRemotos(cambios.getModificadas(), cambios.getEliminadas(),
+                            resultado -> {
+                                android.util.Log.d(TAG, "Tiempo real: " + resultado.insertadas + " nuevas, " +
+                                        resultado.actualizadas + " actualizadas, " + resultado.eliminadas + " eliminadas");
+                                marcaSincronizacion.avanzar(usuarioId, mayorActualizacionServidor(cambios.getModificadas()));
+                            },
+                            error -> android.util.Log.e(TAG, "Error aplicando cambios remotos: " + error)),
+                    error -> {
+                        android.util.Log.w(TAG, "Escucha en tiempo real detenida: " + error);
+                        detenerTiempoReal();
+                    });
+
+            //Sin registro (p. ej. la sesión se cerró entre medias) se libera la reserva para
+            //poder reintentar; si se detuvo mientras se registraba, se cancela el registro recién creado
+            if (registro == null) {
+                tiempoReal.detener();
+            } else {
+                tiempoReal.registrar(registro);
+            }
+        });
+    }
+
+    //Deja de escuchar los cambios remotos (al cerrar sesión o desactivar el modo)
+    //La marca de agua se conserva: al reanudar solo llega lo modificado mientras tanto
+    public void detenerTiempoReal() {
+        tiempoReal.detener();
+    }
+
+    //Mayor hora del servidor (ms) de un lote descargado, para avanzar la marca de agua
+    //Los documentos sin ella (antiguos o con la escritura aún sin confirmar) no la mueven
+    private static long mayorActualizacionServidor(List<Receta> recetas) {
+        long mayor = 0L;
+        for (Receta receta : recetas) {
+            if (receta.getActualizadoServidor() != null) {
+                mayor = Math.max(mayor, receta.getActualizadoServidor().getTime());
+            }
+        }
+        return mayor;
+    }
 
     //==================== INTERFACES DE CALLBACK ====================
 
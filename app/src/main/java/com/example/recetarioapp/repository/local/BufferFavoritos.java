@@ -0,0 +1,117 @@
+package com.example.recetarioapp.repository.local;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.recetarioapp.database.RecetaDAO;
+import com.example.recetarioapp.database.RecetasBD;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+//Buffer de escritura diferida (write-behind) para los cambios de favorito
+//- Agrupa los toques por ID de receta durante una ventana corta: solo cuenta el último estado
+//- Al cerrar la ventana escribe todos los cambios en una transacción (una sola invalidación de Room)
+//- Publica los estados pendientes para que la UI los muestre antes de que lleguen a la BD
+//- Único para toda la app: los ViewModels de cada pantalla comparten el mismo estado pendiente
+public final class BufferFavoritos {
+
+    private static final String TAG = "BufferFavoritos";
+
+    //Ventana de agrupación y margen antes de retirar el estado optimista
+    private static final long VENTANA_MS = 300;
+
+    private static volatile BufferFavoritos INSTANCE;
+
+    private final RecetaDAO recetaDAO;
+    private final Handler manejador = new Handler(Looper.getMainLooper());
+    private final Object bloqueo = new Object();
+
+    //Cambios aún no escritos (ID receta → estado final deseado)
+    private final Map<Long, Boolean> porEscribir = new HashMap<>();
+    //Estados que la UI debe mostrar hasta que la BD los refleje
+    private final Map<Long, Boolean> visibles = new HashMap<>();
+    private boolean volcadoProgramado = false;
+
+    private final MutableLiveData<Map<Long, Boolean>> pendientes =
+            new MutableLiveData<>(Collections.emptyMap());
+
+    private BufferFavoritos(RecetaDAO recetaDAO) {
+        this.recetaDAO = recetaDAO;
+    }
+
+    //Obtiene la instancia única del buffer
+    static BufferFavoritos getInstance(RecetaDAO recetaDAO) {
+        if (INSTANCE == null) {
+            synchronized (BufferFavoritos.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BufferFavoritos(recetaDAO);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    //Registra un cambio de favorito; se escribirá al cerrar la ventana actual
+    public void marcar(long id, boolean esFavorito) {
+        synchronized (bloqueo) {
+            porEscribir.put(id, esFavorito);
+            visibles.put(id, esFavorito);
+            publicar();
+            if (!volcadoProgramado) {
+                volcadoProgramado = true;
+                manejador.postDelayed(this::volcar, VENTANA_MS);
+            }
+        }
+    }
+
+    //Estados de favorito pendientes de escribir (ID receta → estado a mostrar)
+    public LiveData<Map<Long, Boolean>> getPendientes() {
+        return pendientes;
+    }
+
+    //Escribe todos los cambios acumulados en una sola transacción en el hilo escritor
+    private void volcar() {
+        Map<Long, Boolean> lote;
+        synchronized (bloqueo) {
+            lote = new HashMap<>(porEscribir);
+            porEscribir.clear();
+            volcadoProgramado = false;
+        }
+        if (lote.isEmpty()) return;
+
+        RecetasBD.bdEscritura.execute(() -> {
+            try {
+                recetaDAO.aplicarFavoritos(lote);
+            } catch (RuntimeException excepcion) {
+                Log.e(TAG, "Error guardando favoritos: " + excepcion.getMessage());
+            }
+            //Dar tiempo a que la consulta invalidada entregue los datos nuevos antes de
+            //retirar el estado optimista (evita un parpadeo al valor anterior)
+            manejador.postDelayed(() -> retirarVisibles(lote), VENTANA_MS);
+        });
+    }
+
+    //Retira de la UI los estados ya escritos, salvo los que se han vuelto a cambiar
+    private void retirarVisibles(Map<Long, Boolean> escritos) {
+        synchronized (bloqueo) {
+            for (Map.Entry<Long, Boolean> cambio : escritos.entrySet()) {
+                Long id = cambio.getKey();
+                if (!porEscribir.containsKey(id) && cambio.getValue().equals(visibles.get(id))) {
+                    visibles.remove(id);
+                }
+            }
+            publicar();
+        }
+    }
+
+    //Publica una copia inmutable del estado visible
+    private void publicar() {
+        pendientes.postValue(Collections.unmodifiableMap(new HashMap<>(visibles)));
+    }
+}
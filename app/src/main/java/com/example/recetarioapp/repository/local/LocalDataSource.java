@@ -2,75 +2,105 @@ package com.example.recetarioapp.repository.local;
 
 import android.app.Application;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingSource;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import com.example.recetarioapp.database.OperacionPendienteDAO;
 import com.example.recetarioapp.database.RecetaDAO;
 import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.OperacionPendiente;
 import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFiltro;
+import com.example.recetarioapp.models.RecetaResumen;
+import com.example.recetarioapp.models.RecetaVersion;
+import com.example.recetarioapp.repository.mappers.RecetaMapper;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 //Fuente de datos local que encapsula todas las operaciones con Room Database
 // - Proporciona API abstracta para las operaciones CRUD locales
 // - Separa lógica de acceso a datos del resto de la aplicación
-// - Todas las operaciones de escritura se ejecutan en background mediante ExecutorService (de RecetasBD)
+// - Todas las operaciones de escritura se ejecutan en el hilo escritor único de RecetasBD (bdEscritura)
+// - Las escrituras que deben subirse a Firebase encolan su operación en la misma transacción
 public class LocalDataSource {
 
+    private final RecetasBD baseDatos;
     private final RecetaDAO recetaDAO;
+    private final OperacionPendienteDAO operacionesDAO;
+    private final BufferFavoritos bufferFavoritos;
+    private final RecetaMapper mapeador;
 
     //Constructor que inicializa la conexión con la base de datos local
     public LocalDataSource(Application app) {
-        RecetasBD baseDatos = RecetasBD.getInstance(app);
+        this.baseDatos = RecetasBD.getInstance(app);
         this.recetaDAO = baseDatos.recetaDAO();
+        this.operacionesDAO = baseDatos.operacionPendienteDAO();
+        this.bufferFavoritos = BufferFavoritos.getInstance(recetaDAO);
+        this.mapeador = new RecetaMapper();
     }
 
     //==================== OPERACIONES DE LECTURA OBSERVABLES ====================
 
-    //Obtiene todas las recetas ordenadas por fecha de creación (más recientes primero)
-    public LiveData<List<Receta>> getAllRecetas() {
-        return recetaDAO.getAllRecetas();
+    //Obtiene una receta específica por su ID local, con ingredientes y pasos
+    public LiveData<Receta> getRecetaById(long id) {
+        return Transformations.map(recetaDAO.getRecetaCompletaById(id),
+                completa -> completa != null ? completa.toReceta() : null);
     }
 
-    //Obtiene una receta específica por su ID local
-    public LiveData<Receta> getRecetaById(long id) {
-        return recetaDAO.getRecetaById(id);
+    //Obtiene el resumen de las recetas más recientes
+    public LiveData<List<RecetaResumen>> getRecetasRecientes(int limite) {
+        return recetaDAO.getRecetasRecientes(limite);
     }
 
-    //Obtiene todas las recetas marcadas como favoritas
-    public LiveData<List<Receta>> getFavoritas() {
-        return recetaDAO.getFavs();
+    //Cuenta el total de recetas guardadas
+    public LiveData<Integer> contarRecetas() {
+        return recetaDAO.contarRecetas();
     }
 
-    //Busca recetas cuyo nombre contenga el texto de búsqueda
-    public LiveData<List<Receta>> buscarPorNombre(String query) {
-        return recetaDAO.buscarPorNombre(query);
+    //Cuenta las recetas marcadas como favoritas
+    public LiveData<Integer> contarFavoritas() {
+        return recetaDAO.contarFavoritas();
     }
 
-    //Filtra recetas por categoría específica
-    public LiveData<List<Receta>> getRecetasPorCategoria(String categoria) {
-        return recetaDAO.getRecetasPorCategoria(categoria);
+    //==================== OPERACIONES DE LECTURA PAGINADAS ====================
+
+    //Fuente paginada de las recetas favoritas
+    public PagingSource<Integer, RecetaResumen> getFavoritasPaginadas() {
+        return recetaDAO.getFavsPaginadas();
     }
 
-    //Filtra recetas por nivel de dificultad
-    public LiveData<List<Receta>> getRecetasPorDificultad(String dificultad) {
-        return recetaDAO.getRecetasPorDificultad(dificultad);
+    //Fuente paginada de la lista de recetas con cualquier combinación de filtros
+    public PagingSource<Integer, RecetaResumen> filtrar(RecetaFiltro filtro) {
+        return recetaDAO.filtrar(construirConsultaFiltro(filtro));
     }
 
-    //Filtra recetas por tiempo máximo de preparación
-    public LiveData<List<Receta>> getRecetasPorTiempo(int tiempoMax) {
-        return recetaDAO.getRecetasPorTiempo(tiempoMax);
+    //Filtra recetas que contienen un ingrediente concreto
+    public PagingSource<Integer, RecetaResumen> getRecetasConIngrediente(String ingrediente) {
+        return recetaDAO.getRecetasConIngrediente(ingrediente.trim());
     }
 
     //==================== OPERACIONES DE ESCRITURA ASÍNCRONAS ====================
 
     //Inserta una nueva receta en la base de datos local
     //Actualiza automáticamente las fechas de creación y modificación
-    public void insertar(Receta receta, OnInsertListener listener, OnErrorListener errorListener) {
-        RecetasBD.bdWriteExecutor.execute(() -> {
+    //usuarioId: cuenta a cuyo nombre se encola su creación en Firebase (null = solo local, ver ColaSalida)
+    public void insertar(Receta receta, String usuarioId, OnInsertListener listener, OnErrorListener errorListener) {
+        RecetasBD.bdEscritura.execute(() -> {
             try {
                 //Establecer timestamps antes de insertar
                 receta.setFechaCreacion(new Date());
                 receta.setFechaModificacion(new Date());
+                receta.setHashContenido(mapeador.hashContenido(receta));
 
-                long idGenerado = recetaDAO.insert(receta);
+                long idGenerado = baseDatos.runInTransaction(() -> {
+                    long id = recetaDAO.insert(receta);
+                    if (usuarioId != null) {
+                        operacionesDAO.encolar(id, receta.getFirebaseId(), OperacionPendiente.CREAR, usuarioId);
+                    }
+                    return id;
+                });
                 listener.onInserted(idGenerado);
             } catch (Exception excepcion) {
                 errorListener.onError(excepcion.getMessage());
@@ -80,11 +110,28 @@ public class LocalDataSource {
 
     //Actualiza una receta existente en la base de datos local
     //Actualiza automáticamente la fecha de modificación
-    public void actualizar(Receta receta, Runnable onSuccess, OnErrorListener errorListener) {
-        RecetasBD.bdWriteExecutor.execute(() -> {
+    //usuarioId: cuenta a cuyo nombre se encola la actualización en Firebase si la receta se ha
+    //subido o va a subirse (null = solo local)
+    //Si ni el hash de contenido ni el favorito cambian no se escribe ni se encola nada
+    public void actualizar(Receta receta, String usuarioId, Runnable onSuccess, OnErrorListener errorListener) {
+        RecetasBD.bdEscritura.execute(() -> {
             try {
-                receta.setFechaModificacion(new Date());
-                recetaDAO.update(receta);
+                long hash = mapeador.hashContenido(receta);
+                baseDatos.runInTransaction(() -> {
+                    RecetaVersion guardada = recetaDAO.getVersion(receta.getId());
+                    if (guardada != null && guardada.getHashContenido() != 0
+                            && guardada.getHashContenido() == hash && guardada.isFav() == receta.isFav()) {
+                        return; //Guardado sin cambios
+                    }
+                    receta.setFechaModificacion(new Date());
+                    receta.setHashContenido(hash);
+                    completarFirebaseId(receta);
+                    recetaDAO.update(receta);
+                    if (usuarioId != null) {
+                        operacionesDAO.encolar(receta.getId(), receta.getFirebaseId(),
+                                OperacionPendiente.ACTUALIZAR, usuarioId);
+                    }
+                });
                 if (onSuccess != null) onSuccess.run();
             } catch (Exception excepcion) {
                 if (errorListener != null) errorListener.onError(excepcion.getMessage());
@@ -93,10 +140,18 @@ public class LocalDataSource {
     }
 
     //Elimina una receta de la base de datos local
-    public void eliminar(Receta receta, Runnable onSuccess, OnErrorListener errorListener) {
-        RecetasBD.bdWriteExecutor.execute(() -> {
+    //usuarioId: cuenta a cuyo nombre se encola el borrado del documento en Firebase (null = solo local)
+    public void eliminar(Receta receta, String usuarioId, Runnable onSuccess, OnErrorListener errorListener) {
+        RecetasBD.bdEscritura.execute(() -> {
             try {
-                recetaDAO.delete(receta);
+                baseDatos.runInTransaction(() -> {
+                    completarFirebaseId(receta);
+                    recetaDAO.delete(receta);
+                    if (usuarioId != null) {
+                        operacionesDAO.encolar(receta.getId(), receta.getFirebaseId(),
+                                OperacionPendiente.ELIMINAR, usuarioId);
+                    }
+                });
                 onSuccess.run();
             } catch (Exception excepcion) {
                 errorListener.onError(excepcion.getMessage());
@@ -104,30 +159,132 @@ public class LocalDataSource {
         });
     }
 
+    //Recupera el firebaseId guardado si la copia en memoria no lo tiene
+    //(la cola de salida lo asigna al subir una receta que ya estaba cargada en pantalla)
+    private void completarFirebaseId(Receta receta) {
+        if (receta.getFirebaseId() == null) {
+            receta.setFirebaseId(recetaDAO.getFirebaseId(receta.getId()));
+        }
+    }
+
     //==================== OPERACIONES ESPECIALIZADAS ====================
 
-    //Busca una receta por su ID de Firebase (para sincronización)
-    public Receta getRecetaByFirebaseId(String firebaseId) {
-        try {
-            return recetaDAO.getRecetaByFirebaseId(firebaseId);
-        } catch (Exception excepcion) {
-            android.util.Log.e("LocalDataSource", "Error buscando receta por firebaseId: " + excepcion.getMessage());
-            return null;
-        }
+    //Aplica un lote de cambios de la escucha en tiempo real (una transacción por lote)
+    public void aplicarCambiosRemotos(List<Receta> modificadas, List<String> eliminadas,
+                                      OnFusionListener listener, OnErrorListener errorListener) {
+        RecetasBD.bdEscritura.execute(() -> {
+            try {
+                listener.onFusionada(recetaDAO.aplicarCambiosRemotos(modificadas, eliminadas));
+            } catch (Exception excepcion) {
+                errorListener.onError(excepcion.getMessage());
+            }
+        });
+    }
+
+    //Cuenta en segundo plano las recetas que ya vinieron de Firebase
+    //(0 = BD nueva o borrada: la sincronización debe descargar todo)
+    public void contarSincronizadas(OnContadoListener listener) {
+        RecetasBD.bdLectura.execute(() ->
+                listener.onContado(recetaDAO.contarConFirebaseId())
+        );
+    }
+
+    //Fusiona las recetas descargadas de Firebase (insertar nuevas, actualizar cambiadas)
+    //Búsqueda y escritura van en una sola tarea del hilo escritor y una sola transacción
+    public void fusionarRemotas(List<Receta> recetas, OnFusionListener listener, OnErrorListener errorListener) {
+        RecetasBD.bdEscritura.execute(() -> {
+            try {
+                listener.onFusionada(recetaDAO.fusionarRemotas(recetas));
+            } catch (Exception excepcion) {
+                errorListener.onError(excepcion.getMessage());
+            }
+        });
     }
 
     //Establece o remueve el estado de favorito de una receta
+    //Pasa por BufferFavoritos: los toques rápidos se agrupan en una sola escritura
     public void establecerFavorita(long id, boolean esFavorito) {
-        RecetasBD.bdWriteExecutor.execute(() ->
-                recetaDAO.actualizarFavorita(id, esFavorito)
-        );
+        bufferFavoritos.marcar(id, esFavorito);
     }
 
-    //Inserta múltiples recetas en lote (para sincronización)
-    public void insertarVarias(List<Receta> recetas) {
-        RecetasBD.bdWriteExecutor.execute(() ->
-                recetaDAO.insertAll(recetas)
-        );
+    //Estados de favorito aún no escritos, para mostrarlos de forma optimista
+    public LiveData<Map<Long, Boolean>> getFavoritosPendientes() {
+        return bufferFavoritos.getPendientes();
+    }
+
+    //==================== UTILIDADES DE BÚSQUEDA ====================
+
+    //Traduce un RecetaFiltro a una única sentencia SQL parametrizada
+    //- Las igualdades van primero para que SQLite use los índices compuestos
+    //  (categoria, fechaCreacion), (dificultad, fechaCreacion) o (isFav, fechaCreacion)
+    //- El texto y las etiquetas se resuelven con un único MATCH sobre recetas_fts
+    //- Con tiempo máximo se ordena por tiempo (como el chip de recetas rápidas)
+    //Visible en el paquete para comprobar su plan de consulta en las pruebas instrumentadas
+    static SimpleSQLiteQuery construirConsultaFiltro(RecetaFiltro filtro) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(RecetaDAO.COLUMNAS_RESUMEN)
+                .append(" FROM recetas");
+        List<Object> argumentos = new ArrayList<>();
+        List<String> condiciones = new ArrayList<>();
+
+        if (filtro.usaTextoCompleto()) {
+            sql.append(" JOIN recetas_fts ON recetas.id = recetas_fts.rowid");
+            condiciones.add("recetas_fts MATCH ?");
+            argumentos.add(construirConsultaFts(filtro.getTexto(), filtro.getTags()));
+        }
+        if (filtro.getCategoria() != null) {
+            condiciones.add("recetas.categoria = ?");
+            argumentos.add(filtro.getCategoria());
+        }
+        if (filtro.getDificultad() != null) {
+            condiciones.add("recetas.dificultad = ?");
+            argumentos.add(filtro.getDificultad());
+        }
+        if (filtro.isSoloFavoritas()) {
+            condiciones.add("recetas.isFav = 1");
+        }
+        if (filtro.getTiempoMax() > 0) {
+            condiciones.add("recetas.tiempoPreparacion <= ?");
+            argumentos.add(filtro.getTiempoMax());
+        }
+
+        if (!condiciones.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+        sql.append(filtro.getTiempoMax() > 0
+                ? " ORDER BY recetas.tiempoPreparacion ASC"
+                : " ORDER BY recetas.fechaCreacion DESC");
+
+        return new SimpleSQLiteQuery(sql.toString(), argumentos.toArray());
+    }
+
+    //Convierte el texto escrito por el usuario y las etiquetas en una expresión MATCH segura para FTS4
+    //Cada palabra se limpia de operadores y se busca como prefijo ("tart" → "tart*")
+    //para mantener la búsqueda incremental mientras se escribe
+    //Las etiquetas se restringen a su columna ("tags:vegano")
+    private static String construirConsultaFts(String query, List<String> tags) {
+        StringBuilder consulta = new StringBuilder();
+        anadirTerminos(consulta, query, "", "*");
+        if (tags != null) {
+            for (String tag : tags) {
+                anadirTerminos(consulta, tag, "tags:", "");
+            }
+        }
+
+        //Consulta sin términos válidos: frase vacía que no devuelve resultados
+        return consulta.length() > 0 ? consulta.toString() : "\"\"";
+    }
+
+    //Añade cada palabra de un texto a la expresión MATCH (términos unidos con AND implícito)
+    private static void anadirTerminos(StringBuilder consulta, String texto,
+                                       String columna, String sufijo) {
+        if (texto == null) return;
+        for (String palabra : texto.trim().split("\\s+")) {
+            //Conservar solo letras y dígitos para no inyectar sintaxis FTS (", *, -, OR...)
+            String limpia = palabra.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (limpia.isEmpty()) continue;
+            if (consulta.length() > 0) consulta.append(' ');
+            consulta.append(columna).append(limpia).append(sufijo);
+        }
     }
 
     //==================== INTERFACES DE CALLBACK ====================
@@ -137,6 +294,16 @@ public class LocalDataSource {
         void onInserted(long id);
     }
 
+    //Interfaz para recibir un recuento calculado en segundo plano
+    public interface OnContadoListener {
+        void onContado(int total);
+    }
+
+    //Interfaz para recibir el recuento de una fusión de recetas remotas
+    public interface OnFusionListener {
+        void onFusionada(RecetaDAO.ResultadoFusion resultado);
+    }
+
     //Interfaz para manejar errores en operaciones asíncronas
     public interface OnErrorListener {
         void onError(String mensaje);
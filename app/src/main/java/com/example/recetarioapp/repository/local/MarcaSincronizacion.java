@@ -0,0 +1,51 @@
+package com.example.recetarioapp.repository.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+//Marca de agua de la sincronización incremental Firebase → local
+//- Guarda, por usuario, la mayor hora del servidor (actualizadoServidor) ya aplicada en Room
+//- La siguiente sincronización solo pide documentos escritos en el servidor desde esa hora
+//- No usa fechaModificacion: la pone el dispositivo que edita, así que una edición hecha sin
+//  conexión y subida más tarde, o un reloj adelantado, dejarían cambios por debajo de la marca
+//- También recuerda si el usuario activó la sincronización en tiempo real (opt-in)
+public class MarcaSincronizacion {
+
+    private static final String PREFERENCIAS = "RecetarioPrefs";
+    //Prefijo nuevo: las marcas antiguas eran fechas del dispositivo y se descartan
+    //(la primera sincronización tras actualizar descarga todo una vez)
+    private static final String PREFIJO_CLAVE = "sync_marca_servidor_";
+    private static final String CLAVE_TIEMPO_REAL = "sync_tiempo_real";
+
+    private final SharedPreferences preferencias;
+
+    public MarcaSincronizacion(Context contexto) {
+        this.preferencias = contexto.getSharedPreferences(PREFERENCIAS, Context.MODE_PRIVATE);
+    }
+
+    //Devuelve la marca del usuario en milisegundos (0 = nunca sincronizado)
+    public long getMarca(String usuarioId) {
+        return preferencias.getLong(PREFIJO_CLAVE + usuarioId, 0L);
+    }
+
+    //Avanza la marca del usuario (nunca retrocede)
+    public void avanzar(String usuarioId, long marca) {
+        if (marca > getMarca(usuarioId)) {
+            preferencias.edit().putLong(PREFIJO_CLAVE + usuarioId, marca).apply();
+        }
+    }
+
+    //Indica si la sincronización en tiempo real está activada (desactivada por defecto)
+    public boolean isTiempoReal() {
+        return preferencias.getBoolean(CLAVE_TIEMPO_REAL, false);
+    }
+
+    public void setTiempoReal(boolean activado) {
+        preferencias.edit().putBoolean(CLAVE_TIEMPO_REAL, activado).apply();
+    }
+
+    //Olvida la marca del usuario para forzar una descarga completa
+    public void reiniciar(String usuarioId) {
+        preferencias.edit().remove(PREFIJO_CLAVE + usuarioId).apply();
+    }
+}
@@ -3,37 +3,48 @@ package com.example.recetarioapp.repository.mappers;
 import com.example.recetarioapp.models.Ingrediente;
 import com.example.recetarioapp.models.Paso;
 import com.example.recetarioapp.models.Receta;
+import com.google.firebase.Timestamp;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 //Mapper especializado para conversiones bidireccionales entre objetos Receta y Map
 // - Resuelve incompatibilidad entre objetos Java complejos y estructura plana de Firebase
 // - Proporciona serialización/deserialización completa de todos los componentes
 // - Maneja listas anidadas de ingredientes y pasos
+// - Calcula huellas por campo para subir solo los campos modificados (update())
+// - Calcula el hash de contenido de una receta (se guarda en Room y en el documento)
 public class RecetaMapper {
 
+    //Versión del formato de documento que genera toMap()
+    //Incrementar al añadir, quitar o cambiar campos: fuerza un set() completo en la siguiente subida
+    public static final int VERSION_ESQUEMA = 2;
+
+    //Campo con la hora del servidor de la última escritura (FieldValue.serverTimestamp())
+    //- Lo añade la fuente remota al escribir; toMap() no lo incluye (no entra en las huellas)
+    //- La descarga incremental y la escucha filtran y ordenan por él
+    public static final String CAMPO_ACTUALIZADO_SERVIDOR = "actualizadoServidor";
+
+    //Marca de borrado (lápida): los documentos no se borran, se marcan con eliminada = true
+    //- Así el borrado lleva hora del servidor y llega a la descarga incremental y a la escucha
+    //  aunque el documento sea anterior a la marca de agua del otro dispositivo
+    //- toMap() no lo incluye: una receta subida de nuevo no lo cambia
+    public static final String CAMPO_ELIMINADA = "eliminada";
+
     //==================== CONVERSIÓN RECETA → MAP ====================
 
     //Convierte un objeto Receta completo a Map para almacenamiento en Firebase
     public Map<String, Object> toMap(Receta receta) {
         Map<String, Object> map = new HashMap<>();
 
-        //Atributos básicos de la receta
-        map.put("nombre", receta.getNombre());
-        map.put("descripcion", receta.getDescripcion());
-        map.put("imagenPortadaUrl", receta.getImagenPortadaURL());
-        map.put("tiempoPreparacion", receta.getTiempoPreparacion());
-        map.put("porciones", receta.getPorciones());
-        map.put("dificultad", receta.getDificultad());
-        map.put("categoria", receta.getCategoria());
-        map.put("origen", receta.getOrigen());
-
-        //Conversión de listas complejas a estructuras Firebase-compatibles
-        map.put("ingredientes", ingredientesToMapList(receta.getIngredientes()));
-        map.put("pasos", pasosToMapList(receta.getPasos()));
-        map.put("etiquetas", receta.getTags());
+        //Contenido de la receta (atributos básicos y listas) y su hash
+        Map<String, Object> contenido = contenidoToMap(receta);
+        map.putAll(contenido);
+        map.put("hashContenido", huella(contenido));
 
         //Metadatos
         map.put("fechaCreacion", receta.getFechaCreacion());
@@ -44,6 +55,15 @@ public class RecetaMapper {
         return map;
     }
 
+    //Campos de la lápida de un documento borrado (la fuente remota añade la hora del servidor)
+    //Conserva usuarioId para que la lápida entre en las consultas del usuario
+    public Map<String, Object> lapida(String usuarioId) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(CAMPO_ELIMINADA, true);
+        map.put("usuarioId", usuarioId);
+        return map;
+    }
+
     //==================== CONVERSIÓN MAP → RECETA ====================
 
     //Reconstruye un objeto Receta completo desde un Map de Firebase
@@ -62,14 +82,148 @@ public class RecetaMapper {
         receta.setUsuarioId(getString(map, "usuarioId"));
         receta.setFav(getBoolean(map, "esFavorita"));
 
+        //Fechas remotas (la sincronización compara fechaModificacion con la copia local)
+        Date fechaCreacion = getDate(map, "fechaCreacion");
+        if (fechaCreacion != null) receta.setFechaCreacion(fechaCreacion);
+        Date fechaModificacion = getDate(map, "fechaModificacion");
+        if (fechaModificacion != null) receta.setFechaModificacion(fechaModificacion);
+        receta.setActualizadoServidor(getDate(map, CAMPO_ACTUALIZADO_SERVIDOR)); //null si aún no resuelta
+        receta.setEliminadaRemota(getBoolean(map, CAMPO_ELIMINADA));
+
         //Reconstrucción de listas complejas
         receta.setIngredientes(mapListToIngredientes(map.get("ingredientes")));
         receta.setPasos(mapListToPasos(map.get("pasos")));
         receta.setTags(mapListToStrings(map.get("etiquetas")));
 
+        //Hash de contenido del documento (documentos antiguos sin él: se calcula)
+        Object hashRemoto = map.get("hashContenido");
+        receta.setHashContenido(hashRemoto instanceof Number
+                ? ((Number) hashRemoto).longValue()
+                : hashContenido(receta));
+
         return receta;
     }
 
+    //==================== HASH DE CONTENIDO ====================
+
+    //Hash estable del contenido de una receta: textos, números, ingredientes, pasos y etiquetas
+    //No incluye IDs, fechas, favorito ni usuario (no cambian lo que se ve de la receta)
+    public long hashContenido(Receta receta) {
+        return huella(contenidoToMap(receta));
+    }
+
+    //Campos de contenido con el mismo formato que el documento de Firebase
+    private Map<String, Object> contenidoToMap(Receta receta) {
+        Map<String, Object> map = new HashMap<>();
+
+        //Atributos básicos de la receta
+        map.put("nombre", receta.getNombre());
+        map.put("descripcion", receta.getDescripcion());
+        map.put("imagenPortadaUrl", receta.getImagenPortadaURL());
+        map.put("tiempoPreparacion", receta.getTiempoPreparacion());
+        map.put("porciones", receta.getPorciones());
+        map.put("dificultad", receta.getDificultad());
+        map.put("categoria", receta.getCategoria());
+        map.put("origen", receta.getOrigen());
+
+        //Conversión de listas complejas a estructuras Firebase-compatibles
+        map.put("ingredientes", ingredientesToMapList(receta.getIngredientes()));
+        map.put("pasos", pasosToMapList(receta.getPasos()));
+        map.put("etiquetas", receta.getTags());
+
+        return map;
+    }
+
+    //==================== HUELLAS Y DIFERENCIAS POR CAMPO ====================
+
+    //Calcula la huella (hash de 64 bits) de cada campo de un documento generado por toMap()
+    public Map<String, Long> huellas(Map<String, Object> documento) {
+        Map<String, Long> huellas = new TreeMap<>();
+        for (Map.Entry<String, Object> campo : documento.entrySet()) {
+            huellas.put(campo.getKey(), huella(campo.getValue()));
+        }
+        return huellas;
+    }
+
+    //Campos del documento cuya huella difiere de la última subida (o que no existían)
+    //Los campos que ya no están en el documento se ignoran: eso es un cambio de esquema
+    public Map<String, Object> diferencias(Map<String, Object> documento, Map<String, Long> huellasAnteriores) {
+        Map<String, Object> cambiados = new HashMap<>();
+        for (Map.Entry<String, Object> campo : documento.entrySet()) {
+            Long anterior = huellasAnteriores.get(campo.getKey());
+            if (anterior == null || anterior != huella(campo.getValue())) {
+                cambiados.put(campo.getKey(), campo.getValue());
+            }
+        }
+        return cambiados;
+    }
+
+    //Codifica las huellas para la tabla huellas_sincronizadas ("campo=hex;campo=hex")
+    public String codificarHuellas(Map<String, Long> huellas) {
+        StringBuilder texto = new StringBuilder();
+        for (Map.Entry<String, Long> campo : new TreeMap<>(huellas).entrySet()) {
+            if (texto.length() > 0) texto.append(';');
+            texto.append(campo.getKey()).append('=').append(Long.toHexString(campo.getValue()));
+        }
+        return texto.toString();
+    }
+
+    //Decodifica las huellas guardadas (texto vacío o null → sin huellas)
+    public Map<String, Long> decodificarHuellas(String texto) {
+        Map<String, Long> huellas = new HashMap<>();
+        if (texto == null || texto.isEmpty()) return huellas;
+        for (String par : texto.split(";")) {
+            int separador = par.indexOf('=');
+            if (separador <= 0) continue;
+            huellas.put(par.substring(0, separador),
+                    Long.parseUnsignedLong(par.substring(separador + 1), 16));
+        }
+        return huellas;
+    }
+
+    //Huella FNV-1a de 64 bits sobre la forma canónica de un valor
+    private long huella(Object valor) {
+        StringBuilder canonico = new StringBuilder();
+        escribirCanonico(canonico, valor);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : canonico.toString().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //Forma canónica estable: tipo + valor, mapas ordenados por clave, listas en orden
+    private void escribirCanonico(StringBuilder salida, Object valor) {
+        if (valor == null) {
+            salida.append('n');
+        } else if (valor instanceof String) {
+            String texto = (String) valor;
+            salida.append('s').append(texto.length()).append(':').append(texto);
+        } else if (valor instanceof Date) {
+            salida.append('t').append(((Date) valor).getTime());
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            salida.append('v').append(valor);
+        } else if (valor instanceof List) {
+            salida.append('[');
+            for (Object elemento : (List<?>) valor) {
+                escribirCanonico(salida, elemento);
+                salida.append(',');
+            }
+            salida.append(']');
+        } else if (valor instanceof Map) {
+            salida.append('{');
+            for (Map.Entry<?, ?> entrada : new TreeMap<>((Map<?, ?>) valor).entrySet()) {
+                salida.append(entrada.getKey()).append('=');
+                escribirCanonico(salida, entrada.getValue());
+                salida.append(',');
+            }
+            salida.append('}');
+        } else {
+            salida.append('o').append(valor);
+        }
+    }
+
     //==================== CONVERSORES DE INGREDIENTES ====================
 
     //Serializa una lista de Ingredientes a lista de Maps para Firebase
@@ -184,6 +338,18 @@ public class RecetaMapper {
         return 0;
     }
 
+    //Obtiene una fecha de forma segura desde un Map
+    //Firestore devuelve Timestamp aunque se haya guardado un Date
+    private Date getDate(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        } else if (value instanceof Date) {
+            return (Date) value;
+        }
+        return null;
+    }
+
     //Obtiene un boolean de forma segura desde un Map
     private boolean getBoolean(Map<String, Object> map, String key) {
         Object value = map.get(key);
@@ -0,0 +1,28 @@
+package com.example.recetarioapp.repository.remote;
+
+import com.example.recetarioapp.models.Receta;
+
+import java.util.Collections;
+import java.util.List;
+
+//Lote de cambios remotos de un snapshot de Firestore, ya convertidos a modelos
+//- modificadas: documentos añadidos o modificados (ADDED/MODIFIED)
+//- eliminadas: firebaseId de los documentos borrados (REMOVED)
+//- No depende de Firestore: la fusión en Room puede alimentarse con lotes construidos a mano
+public final class CambiosRemotos {
+
+    private final List<Receta> modificadas;
+    private final List<String> eliminadas;
+
+    public CambiosRemotos(List<Receta> modificadas, List<String> eliminadas) {
+        this.modificadas = Collections.unmodifiableList(modificadas);
+        this.eliminadas = Collections.unmodifiableList(eliminadas);
+    }
+
+    public List<Receta> getModificadas() { return modificadas; }
+    public List<String> getEliminadas() { return eliminadas; }
+
+    public boolean isEmpty() {
+        return modificadas.isEmpty() && eliminadas.isEmpty();
+    }
+}
@@ -1,24 +1,51 @@
 package com.example.recetarioapp.repository.remote;
 
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
 import com.example.recetarioapp.models.Receta;
 import com.example.recetarioapp.repository.mappers.RecetaMapper;
+import com.example.recetarioapp.utils.EjecutorMonitorizado;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 //Fuente de datos remota que maneja todas las operaciones con Firebase Firestore
 // - Proporciona API para operaciones CRUD en la nube
 // - Incluye autenticación de usuarios y sincronización de datos
 // - Utiliza RecetaMapper para conversión entre objetos Receta y estructura Firebase
-public class FirebaseDataSource {
+// - Implementación real de RemoteRecetaSource
+public class FirebaseDataSource implements RemoteRecetaSource {
 
     //Constantes de configuración
     private static final String COLECCION_RECETAS = "recetas";
 
+    //Documentos por página en la descarga (memoria acotada y primera página visible antes)
+    private static final int TAM_PAGINA_DESCARGA = 200;
+
+    //Conversión de páginas descargadas y de snapshots fuera del hilo principal (un hilo: conserva el orden)
+    private static final EjecutorMonitorizado ejecutorDescarga = new EjecutorMonitorizado("sync-descarga", 1);
+
     //Dependencias de Firebase
     private final FirebaseFirestore firestore;
     private final FirebaseAuth autenticacion;
@@ -31,101 +58,257 @@ public class FirebaseDataSource {
         this.mapeador = new RecetaMapper();
     }
 
-    //==================== OPERACIONES CRUD EN FIREBASE ====================
+    //==================== SESIÓN ====================
 
-    //Guarda una nueva receta en Firebase Firestore
-    public void guardarReceta(Receta receta, OnSuccessListener listener, OnErrorListener errorListener) {
+    @Override
+    public String getUsuarioId() {
         FirebaseUser usuario = autenticacion.getCurrentUser();
-        if (usuario == null) {
-            errorListener.onError("Usuario no autenticado");
-            return;
-        }
+        return usuario != null ? usuario.getUid() : null;
+    }
+
+    //==================== ENVÍO POR LOTES (COLA DE SALIDA) ====================
 
-        //Asociar receta al usuario actual
-        receta.setUsuarioId(usuario.getUid());
-        Map<String, Object> datosReceta = mapeador.toMap(receta);
-
-        firestore.collection(COLECCION_RECETAS)
-                .add(datosReceta)
-                .addOnSuccessListener(documento ->
-                        listener.onSuccess(documento.getId())
-                )
-                .addOnFailureListener(error ->
-                        errorListener.onError(error.getMessage())
-                );
+    //Genera el ID de un documento nuevo sin escribirlo (Firestore lo crea en el cliente)
+    @Override
+    public String nuevoIdReceta() {
+        return firestore.collection(COLECCION_RECETAS).document().getId();
     }
 
-    //Actualiza una receta existente en Firebase
-    public void actualizarReceta(Receta receta, Runnable onSuccess, OnErrorListener errorListener) {
-        if (receta.getFirebaseId() == null) {
-            errorListener.onError("La receta no tiene ID de Firebase");
+    //Envía un lote de operaciones pendientes en un único WriteBatch (todas o ninguna)
+    //- Qué se escribe de cada operación lo decide PlanLote (set, update de los campos
+    //  cambiados o lápida de borrado; ver RemoteRecetaSource.enviarLote)
+    //- Cada escritura pone actualizadoServidor con la hora del servidor: la descarga incremental
+    //  no depende del reloj del dispositivo ni de cuándo se subió una edición hecha sin conexión
+    //El listener recibe las huellas nuevas de las recetas subidas para guardarlas tras confirmar
+    @Override
+    public void enviarLote(List<OperacionPendiente> operaciones, Map<Long, Receta> recetas,
+                           Map<Long, HuellaSincronizada> huellasAnteriores, OnLoteListener listener) {
+        FirebaseUser usuario = autenticacion.getCurrentUser();
+        if (usuario == null) {
+            listener.onError("Usuario no autenticado", Collections.emptyList());
+            return;
+        }
+        if (operaciones.size() > MAX_ESCRITURAS_LOTE) {
+            listener.onError("Lote demasiado grande: " + operaciones.size(), Collections.emptyList());
             return;
         }
 
-        Map<String, Object> datosReceta = mapeador.toMap(receta);
+        PlanLote plan = PlanLote.planificar(operaciones, recetas, huellasAnteriores, usuario.getUid(), mapeador);
+        WriteBatch lote = firestore.batch();
+        List<DocumentReference> actualizados = new ArrayList<>(); //Destinos de update()
+        for (PlanLote.Escritura escritura : plan.escrituras) {
+            DocumentReference documento = firestore.collection(COLECCION_RECETAS).document(escritura.firebaseId);
+            Map<String, Object> campos = new HashMap<>(escritura.campos);
+            campos.put(RecetaMapper.CAMPO_ACTUALIZADO_SERVIDOR, FieldValue.serverTimestamp());
+            switch (escritura.tipo) {
+                case SET:
+                    lote.set(documento, campos);
+                    break;
+                case UPDATE:
+                    lote.update(documento, campos);
+                    actualizados.add(documento);
+                    break;
+                case LAPIDA:
+                    lote.set(documento, campos, SetOptions.merge());
+                    break;
+            }
+        }
 
-        firestore.collection(COLECCION_RECETAS)
-                .document(receta.getFirebaseId())
-                .set(datosReceta)
-                .addOnSuccessListener(aVoid -> onSuccess.run())
-                .addOnFailureListener(error ->
-                        errorListener.onError(error.getMessage())
-                );
+        lote.commit()
+                .addOnSuccessListener(aVoid -> listener.onEnviado(plan.huellasNuevas))
+                .addOnFailureListener(error -> {
+                    //update() sobre un documento borrado en remoto falla con NOT_FOUND
+                    boolean documentoInexistente = error instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) error).getCode()
+                            == FirebaseFirestoreException.Code.NOT_FOUND;
+                    if (!documentoInexistente || actualizados.isEmpty()) {
+                        listener.onError(error.getMessage(), Collections.emptyList());
+                        return;
+                    }
+                    buscarInexistentes(actualizados, inexistentes ->
+                            listener.onError(error.getMessage(), inexistentes));
+                });
     }
 
-    //Elimina una receta de Firebase
-    public void eliminarReceta(String firebaseId, Runnable onSuccess, OnErrorListener errorListener) {
-        firestore.collection(COLECCION_RECETAS)
-                .document(firebaseId)
-                .delete()
-                .addOnSuccessListener(aVoid -> onSuccess.run())
-                .addOnFailureListener(error ->
-                        errorListener.onError(error.getMessage())
-                );
+    //Lee en el servidor los destinos de update() de un lote fallido y entrega los que no existen
+    //- Firestore no indica qué escritura del lote hizo fallar el commit
+    //- Solo ocurre tras un NOT_FOUND; si alguna lectura falla ese documento no se cuenta
+    private void buscarInexistentes(List<DocumentReference> documentos, Consumer<List<String>> resultado) {
+        List<Task<DocumentSnapshot>> lecturas = new ArrayList<>(documentos.size());
+        for (DocumentReference documento : documentos) {
+            lecturas.add(documento.get(Source.SERVER));
+        }
+        Tasks.whenAllComplete(lecturas).addOnCompleteListener(ejecutorDescarga, terminadas -> {
+            List<String> inexistentes = new ArrayList<>();
+            for (Task<DocumentSnapshot> lectura : lecturas) {
+                if (lectura.isSuccessful() && !lectura.getResult().exists()) {
+                    inexistentes.add(lectura.getResult().getId());
+                }
+            }
+            resultado.accept(inexistentes);
+        });
     }
 
-    //Obtiene todas las recetas del usuario autenticado actual desde Firebase
-    public void obtenerRecetasUsuario(OnRecetasListener listener, OnErrorListener errorListener) {
+    //==================== DESCARGA POR PÁGINAS ====================
+
+    //Descarga las recetas del usuario escritas en el servidor desde una hora (ms), página a página
+    //- modificadasDesde = 0 descarga todas las recetas del usuario, ordenadas por ID de documento
+    //  (así entran también los documentos antiguos que aún no tienen actualizadoServidor)
+    //- Con marca filtra con >= sobre actualizadoServidor para no perder documentos con la
+    //  misma hora que la marca (los ya aplicados se omiten en la fusión local)
+    //- Orden ascendente por actualizadoServidor con cursor startAfter: cada página
+    //  escrita permite avanzar la marca aunque la descarga se interrumpa después
+    //- La página siguiente se pide al entregar la actual, así se descarga mientras la actual
+    //  se escribe en Room; como mucho hay una página descargada por adelantado: la siguiente
+    //  no se entrega (ni se pide la posterior) hasta que el listener da la actual por procesada
+    //- Requiere el índice compuesto (usuarioId, actualizadoServidor) en Firestore
+    @Override
+    public void descargarRecetasUsuario(long modificadasDesde, OnPaginaListener listener,
+                                        OnErrorListener errorListener) {
         FirebaseUser usuario = autenticacion.getCurrentUser();
         if (usuario == null) {
             errorListener.onError("Usuario no autenticado");
             return;
         }
 
-        firestore.collection(COLECCION_RECETAS)
-                .whereEqualTo("usuarioId", usuario.getUid())
-                .get()
-                .addOnSuccessListener(consulta -> {
-                    List<Receta> recetas = new ArrayList<>();
-
-                    for (QueryDocumentSnapshot documento : consulta) {
-                        //Reconstruir receta desde los datos de Firebase
-                        Receta receta = mapeador.fromMap(documento.getData());
-                        receta.setFirebaseId(documento.getId());
-                        recetas.add(receta);
-                    }
+        Query consultaRecetas = firestore.collection(COLECCION_RECETAS)
+                .whereEqualTo("usuarioId", usuario.getUid());
+        if (modificadasDesde > 0) {
+            consultaRecetas = consultaRecetas
+                    .whereGreaterThanOrEqualTo(RecetaMapper.CAMPO_ACTUALIZADO_SERVIDOR, new Date(modificadasDesde))
+                    .orderBy(RecetaMapper.CAMPO_ACTUALIZADO_SERVIDOR);
+        } else {
+            consultaRecetas = consultaRecetas.orderBy(FieldPath.documentId());
+        }
 
-                    listener.onRecetasLoaded(recetas);
-                })
-                .addOnFailureListener(error ->
-                        errorListener.onError(error.getMessage())
-                );
+        new DescargaPaginada(consultaRecetas, listener, errorListener).pedir(null, 1);
     }
 
-    //==================== INTERFACES DE CALLBACK ====================
+    //Una descarga por páginas con como mucho una página por adelantado
+    //(callbacks en ejecutorDescarga, en orden)
+    private final class DescargaPaginada {
+        private final Query consulta;
+        private final OnPaginaListener listener;
+        private final OnErrorListener errorListener;
 
-    //Interfaz para recibir el ID generado al guardar en Firebase
-    public interface OnSuccessListener {
-        void onSuccess(String firebaseId);
-    }
+        //Protegidos por this
+        private boolean anteriorProcesada = true; //El listener terminó con la última página entregada
+        private Runnable siguiente; //Página ya descargada esperando a que se procese la anterior
 
-    //Interfaz para recibir listas de recetas desde Firebase
-    public interface OnRecetasListener {
-        void onRecetasLoaded(List<Receta> recetas);
+        DescargaPaginada(Query consulta, OnPaginaListener listener, OnErrorListener errorListener) {
+            this.consulta = consulta;
+            this.listener = listener;
+            this.errorListener = errorListener;
+        }
+
+        //Descarga una página y la entrega en cuanto se haya procesado la anterior
+        void pedir(DocumentSnapshot cursor, int numeroPagina) {
+            Query pagina = cursor != null ? consulta.startAfter(cursor) : consulta;
+            pagina.limit(TAM_PAGINA_DESCARGA)
+                    .get()
+                    .addOnSuccessListener(ejecutorDescarga, resultado -> {
+                        List<DocumentSnapshot> documentos = resultado.getDocuments();
+                        boolean hayMas = documentos.size() == TAM_PAGINA_DESCARGA;
+                        DocumentSnapshot ultimo = hayMas ? documentos.get(documentos.size() - 1) : null;
+
+                        List<Receta> recetas = new ArrayList<>(documentos.size());
+                        for (DocumentSnapshot documento : documentos) {
+                            //Reconstruir receta desde los datos de Firebase
+                            Receta receta = mapeador.fromMap(documento.getData());
+                            receta.setFirebaseId(documento.getId());
+                            recetas.add(receta);
+                        }
+
+                        Runnable entrega = () -> entregar(recetas, numeroPagina, ultimo);
+                        synchronized (this) {
+                            if (!anteriorProcesada) {
+                                siguiente = entrega; //Se entrega desde procesada()
+                                return;
+                            }
+                        }
+                        entrega.run();
+                    })
+                    .addOnFailureListener(ejecutorDescarga, error ->
+                            errorListener.onError(error.getMessage())
+                    );
+        }
+
+        //Entrega una página y pide la siguiente mientras el listener la procesa
+        private void entregar(List<Receta> recetas, int numeroPagina, DocumentSnapshot ultimo) {
+            synchronized (this) {
+                anteriorProcesada = false;
+            }
+            boolean hayMas = ultimo != null;
+            if (hayMas) pedir(ultimo, numeroPagina + 1);
+            listener.onPagina(recetas, numeroPagina, hayMas, this::procesada);
+        }
+
+        //El listener terminó con la página entregada: entregar la siguiente si ya llegó
+        private void procesada() {
+            Runnable entrega;
+            synchronized (this) {
+                anteriorProcesada = true;
+                entrega = siguiente;
+                siguiente = null;
+            }
+            if (entrega != null) ejecutorDescarga.execute(entrega);
+        }
     }
 
-    //Interfaz para manejar errores en operaciones con Firebase
-    public interface OnErrorListener {
-        void onError(String mensaje);
+    //==================== ESCUCHA EN TIEMPO REAL (OPT-IN) ====================
+
+    //Escucha las recetas del usuario escritas en el servidor desde una hora (ms) y entrega solo los cambios
+    //- El primer snapshot trae los documentos escritos desde la marca (no toda la colección)
+    //- Cada snapshot posterior entrega únicamente getDocumentChanges() como un CambiosRemotos
+    //- Los borrados llegan como lápidas (MODIFIED con eliminada = true) entre las modificadas;
+    //  REMOVED solo aparece con documentos borrados por versiones anteriores de la app
+    //- Se ignoran los cambios locales aún sin confirmar (ya están en Room)
+    //- Los snapshots se convierten en ejecutorDescarga (en orden, fuera del hilo principal)
+    //- Devuelve la suscripción para cancelar la escucha al cerrar sesión
+    @Override
+    public Suscripcion escucharCambios(long modificadasDesde, OnCambiosListener listener,
+                                       OnErrorListener errorListener) {
+        FirebaseUser usuario = autenticacion.getCurrentUser();
+        if (usuario == null) {
+            errorListener.onError("Usuario no autenticado");
+            return null;
+        }
+
+        Query consultaRecetas = firestore.collection(COLECCION_RECETAS)
+                .whereEqualTo("usuarioId", usuario.getUid());
+        if (modificadasDesde > 0) {
+            consultaRecetas = consultaRecetas
+                    .whereGreaterThanOrEqualTo(RecetaMapper.CAMPO_ACTUALIZADO_SERVIDOR, new Date(modificadasDesde));
+        }
+
+        //Snapshots en ejecutorDescarga: la conversión a Receta no ocupa el hilo principal
+        ListenerRegistration registro = consultaRecetas.addSnapshotListener(ejecutorDescarga, (consulta, error) -> {
+            if (error != null) {
+                errorListener.onError(error.getMessage());
+                return;
+            }
+            if (consulta == null) return;
+
+            List<Receta> modificadas = new ArrayList<>();
+            List<String> eliminadas = new ArrayList<>();
+            for (DocumentChange cambio : consulta.getDocumentChanges()) {
+                QueryDocumentSnapshot documento = cambio.getDocument();
+                if (documento.getMetadata().hasPendingWrites()) continue; //Eco de un cambio propio
+
+                if (cambio.getType() == DocumentChange.Type.REMOVED) {
+                    eliminadas.add(documento.getId());
+                } else {
+                    Receta receta = mapeador.fromMap(documento.getData());
+                    receta.setFirebaseId(documento.getId());
+                    modificadas.add(receta);
+                }
+            }
+
+            CambiosRemotos cambios = new CambiosRemotos(modificadas, eliminadas);
+            if (!cambios.isEmpty()) {
+                listener.onCambios(cambios);
+            }
+        });
+        return registro::remove;
     }
-}
\ No newline at end of file
+}
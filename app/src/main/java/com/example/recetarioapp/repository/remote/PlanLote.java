@@ -0,0 +1,82 @@
+package com.example.recetarioapp.repository.remote;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.repository.mappers.RecetaMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//Decisión de cómo escribir un lote de operaciones pendientes, sin acceso al almacén remoto
+//- Cada RemoteRecetaSource la aplica sobre su almacén añadiendo su hora del servidor
+//  (FirebaseDataSource en un WriteBatch; la fuente en memoria de las pruebas, en sus mapas)
+//- CREAR, o ACTUALIZAR sin huella previa (o de otro esquema) → set() del documento completo
+//- ACTUALIZAR con huella → update() solo de los campos cuya huella cambió; sin cambios no escribe
+//- ELIMINAR → lápida (eliminada = true) con set() + merge: no falla si el documento ya no existe
+final class PlanLote {
+
+    enum Tipo { SET, UPDATE, LAPIDA }
+
+    //Una escritura del lote (campos sin actualizadoServidor: lo pone la fuente)
+    static final class Escritura {
+        final Tipo tipo;
+        final String firebaseId;
+        final Map<String, Object> campos;
+
+        Escritura(Tipo tipo, String firebaseId, Map<String, Object> campos) {
+            this.tipo = tipo;
+            this.firebaseId = firebaseId;
+            this.campos = campos;
+        }
+    }
+
+    //Escrituras en el orden de las operaciones
+    final List<Escritura> escrituras = new ArrayList<>();
+    //Huellas de lo que se sube, para guardarlas cuando el lote se confirme
+    final List<HuellaSincronizada> huellasNuevas = new ArrayList<>();
+
+    private PlanLote() {}
+
+    //Decide la escritura de cada operación (ver RemoteRecetaSource.enviarLote)
+    //- Las recetas a subir pasan a ser del usuario indicado
+    //- Se omiten las operaciones sin firebaseId y las escrituras cuya receta ya no existe
+    static PlanLote planificar(List<OperacionPendiente> operaciones, Map<Long, Receta> recetas,
+                               Map<Long, HuellaSincronizada> huellasAnteriores, String usuarioId,
+                               RecetaMapper mapeador) {
+        PlanLote plan = new PlanLote();
+        for (OperacionPendiente operacion : operaciones) {
+            String firebaseId = operacion.getFirebaseId();
+            if (firebaseId == null) continue;
+
+            if (!operacion.esEscritura()) {
+                plan.escrituras.add(new Escritura(Tipo.LAPIDA, firebaseId, mapeador.lapida(usuarioId)));
+                continue;
+            }
+
+            Receta receta = recetas.get(operacion.getRecetaId());
+            if (receta == null) continue;
+            receta.setUsuarioId(usuarioId);
+            Map<String, Object> datos = mapeador.toMap(receta);
+
+            HuellaSincronizada anterior = huellasAnteriores.get(operacion.getRecetaId());
+            if (OperacionPendiente.CREAR.equals(operacion.getTipo()) || anterior == null
+                    || anterior.getEsquema() != RecetaMapper.VERSION_ESQUEMA) {
+                plan.escrituras.add(new Escritura(Tipo.SET, firebaseId, datos));
+            } else {
+                Map<String, Object> cambiados = mapeador.diferencias(datos,
+                        mapeador.decodificarHuellas(anterior.getHuellas()));
+                if (cambiados.isEmpty()) continue; //Ya está en el remoto tal cual
+                plan.escrituras.add(new Escritura(Tipo.UPDATE, firebaseId, cambiados));
+            }
+
+            HuellaSincronizada nueva = new HuellaSincronizada();
+            nueva.setRecetaId(operacion.getRecetaId());
+            nueva.setEsquema(RecetaMapper.VERSION_ESQUEMA);
+            nueva.setHuellas(mapeador.codificarHuellas(mapeador.huellas(datos)));
+            plan.huellasNuevas.add(nueva);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.recetarioapp.repository.remote;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+
+import java.util.List;
+import java.util.Map;
+
+//Fuente remota de recetas usada por la sincronización (cola de salida, descarga y tiempo real)
+// - FirebaseDataSource: implementación real sobre Firestore y FirebaseAuth
+// - InMemoryRecetaSource (src/sharedTest, fuera del APK): implementación en memoria,
+//   determinista, para pruebas de carga y caminos sin conexión sin servicios de Google
+// - EntornoRecetas la reúne con su cola de salida, coordinador y escucha; RecetaRepository
+//   recibe el entorno por constructor
+// - Los callbacks pueden llegar en cualquier hilo (nunca se asume el principal)
+public interface RemoteRecetaSource {
+
+    //Máximo de operaciones por lote (límite de un WriteBatch de Firestore)
+    int MAX_ESCRITURAS_LOTE = 500;
+
+    //ID del usuario con sesión iniciada o null si no hay sesión
+    String getUsuarioId();
+
+    //Genera el ID de un documento nuevo sin escribirlo
+    String nuevoIdReceta();
+
+    //Envía un lote de operaciones pendientes de forma atómica (todas o ninguna)
+    //- Qué escribir de cada operación lo decide PlanLote (común a todas las fuentes)
+    //- recetas: estado actual de cada receta a subir, indexado por ID local
+    //- huellasAnteriores: huella de lo último subido de cada receta, indexada por ID local
+    void enviarLote(List<OperacionPendiente> operaciones, Map<Long, Receta> recetas,
+                    Map<Long, HuellaSincronizada> huellasAnteriores, OnLoteListener listener);
+
+    //Descarga por páginas las recetas del usuario escritas en el servidor desde una hora (ms, 0 = todas)
+    //- Con marca, en orden ascendente de la hora del servidor (Receta.getActualizadoServidor())
+    //- Sin marca, en un orden estable cualquiera (la marca solo puede avanzar al terminar)
+    void descargarRecetasUsuario(long modificadasDesde, OnPaginaListener listener,
+                                 OnErrorListener errorListener);
+
+    //Escucha los cambios de las recetas del usuario escritas en el servidor desde una hora (ms)
+    //Devuelve la suscripción para cancelarla, o null si no se pudo iniciar
+    Suscripcion escucharCambios(long modificadasDesde, OnCambiosListener listener,
+                                OnErrorListener errorListener);
+
+    //==================== INTERFACES DE CALLBACK ====================
+
+    //Escucha activa que se puede cancelar
+    interface Suscripcion {
+        void cancelar();
+    }
+
+    //Interfaz para el resultado del envío de un lote
+    //- onEnviado: huellas nuevas de las recetas subidas
+    //- onError: documentosInexistentes = firebaseId de los documentos a los que apuntaba un
+    //  update() y que ya no existen (vacía si el fallo es por otro motivo)
+    interface OnLoteListener {
+        void onEnviado(List<HuellaSincronizada> huellas);
+        void onError(String mensaje, List<String> documentosInexistentes);
+    }
+
+    //Interfaz para recibir cada página de la descarga (hayMas = false en la última)
+    //- procesada: llamar cuando la página se haya escrito; hasta entonces no se entrega la
+    //  siguiente (como mucho se descarga una por adelantado). Sin llamarla la descarga se detiene
+    interface OnPaginaListener {
+        void onPagina(List<Receta> recetas, int numeroPagina, boolean hayMas, Runnable procesada);
+    }
+
+    //Interfaz para recibir cada lote de cambios de la escucha en tiempo real
+    interface OnCambiosListener {
+        void onCambios(CambiosRemotos cambios);
+    }
+
+    //Interfaz para manejar errores en operaciones remotas
+    interface OnErrorListener {
+        void onError(String mensaje);
+    }
+}
@@ -1,53 +1,223 @@
 package com.example.recetarioapp.repository.storage;
 
 import android.app.Application;
+import android.content.Context;
 import android.net.Uri;
+import com.example.recetarioapp.database.ImagenDAO;
 import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.Imagen;
 import com.example.recetarioapp.repository.RecetaRepository;
+import com.example.recetarioapp.utils.EjecutorMonitorizado;
 import com.example.recetarioapp.utils.ImageHelper;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 //Gestor especializado para el almacenamiento y manejo de imágenes
 // - Proporciona operaciones para guardar imágenes en almacenamiento interno
 // - Gestiona ciclo de vida de imágenes
 // - Todas las operaciones se ejecutan en background para no bloquear hilo principal
+// - Usa su propio executor: la compresión JPEG no ocupa los hilos de la base de datos
+//   (hilos según CPUs y presupuesto de memoria, cola acotada e importaciones cancelables)
+// - Almacén direccionado por contenido: la misma foto importada dos veces comparte archivo
+//   y las imágenes que ninguna receta usa se borran tras un periodo de gracia
+// - Las escrituras en la tabla imagenes pasan por el hilo escritor único de RecetasBD
 public class ImageStorage {
 
+    private static final String TAG = "ImageStorage";
+
+    //Tiempo que se conserva una imagen sin referencias (p. ej. importada y aún sin guardar la receta)
+    private static final long GRACIA_SIN_REFERENCIAS_MS = 24L * 60 * 60 * 1000;
+    //Máximo de imágenes borradas por pasada de limpieza
+    private static final int LOTE_LIMPIEZA = 50;
+
+    //Memoria de una importación en curso: bitmap de 1200 px decodificado, rendiciones y JPEG en memoria
+    private static final long MEMORIA_POR_IMPORTACION = 1200L * 1200 * 4 * 2;
+    private static final int MAX_HILOS = 4;
+    //Importaciones en espera como máximo; con la cola llena se rechazan (el usuario puede reintentar)
+    private static final int CAPACIDAD_COLA = 8;
+
+    //Executor dedicado a procesar imágenes (decodificar, escalar y comprimir)
+    public static final EjecutorMonitorizado ejecutorImagenes =
+            new EjecutorMonitorizado("imagenes", calcularHilos(), CAPACIDAD_COLA);
+
+    //Las importaciones comparten el almacén (lectura); las limpiezas lo necesitan en exclusiva
+    //para no borrar un archivo que una importación acaba de reutilizar
+    static final ReentrantReadWriteLock bloqueoAlmacen = new ReentrantReadWriteLock();
+
     private final Application aplicacion;
+    private final ImagenDAO imagenDAO;
+
+    //Hilos del executor: un núcleo libre para la UI y tantas importaciones simultáneas como quepan
+    //en una cuarta parte del heap (mínimo 1, máximo MAX_HILOS)
+    private static int calcularHilos() {
+        int porCpu = Runtime.getRuntime().availableProcessors() - 1;
+        long presupuesto = Runtime.getRuntime().maxMemory() / 4;
+        int porMemoria = (int) Math.min(Integer.MAX_VALUE, presupuesto / MEMORIA_POR_IMPORTACION);
+        return Math.max(1, Math.min(MAX_HILOS, Math.min(porCpu, porMemoria)));
+    }
 
     //Constructor que recibe el contexto de la aplicación
     public ImageStorage(Application app) {
         this.aplicacion = app;
+        this.imagenDAO = RecetasBD.getInstance(app).imagenDAO();
     }
 
     //Guarda una imagen desde una URI al almacenamiento interno de la aplicación
-    public void guardarImagen(Uri uri, RecetaRepository.OnImagenSubidaListener listener) {
+    //El origen se lee una sola vez: el hash de sus bytes se calcula mientras se decodifica y,
+    //si esos bytes ya se importaron (y el archivo sigue ahí), se devuelve esa ruta sin codificar
+    //Progreso real: decodificación y codificación (0-100)
+    //Devuelve la importación para cancelarla (cancel(true)), o null si no se pudo encolar
+    //Una importación cancelada no notifica al listener
+    public Future<?> guardarImagen(Uri uri, RecetaRepository.OnImagenSubidaListener listener) {
         if (uri == null) {
             listener.onError("URI inválida");
-            return;
+            return null;
         }
 
         //Ejecutar en background para no bloquear la UI
-        RecetasBD.bdWriteExecutor.execute(() -> {
-            try {
-                //Notificar progreso inicial
-                listener.onProgress(50);
-
-                //Guardar imagen usando el helper especializado
-                String ruta = ImageHelper.saveImageToInternalStorage(
-                        aplicacion.getApplicationContext(), uri);
-
-                if (ruta != null) {
-                    //Éxito - notificar completado
-                    listener.onProgress(100);
-                    listener.onSuccess(ruta);
-                } else {
-                    //Error en el guardado
-                    listener.onError("Error al guardar imagen en almacenamiento interno");
+        try {
+            return ejecutorImagenes.enviar(() -> {
+                bloqueoAlmacen.readLock().lock();
+                try {
+                    importar(uri, listener);
+                } catch (Exception excepcion) {
+                    //Error inesperado
+                    listener.onError("Error inesperado: " + excepcion.getMessage());
+                } finally {
+                    bloqueoAlmacen.readLock().unlock();
+                }
+            });
+        } catch (RejectedExecutionException colaLlena) {
+            android.util.Log.w(TAG, "Cola de imágenes llena - " + ejecutorImagenes.resumen());
+            listener.onError("Hay demasiadas imágenes en proceso, inténtalo de nuevo en unos segundos");
+            return null;
+        }
+    }
+
+    //Importación en el hilo actual (del executor de imágenes)
+    private void importar(Uri uri, RecetaRepository.OnImagenSubidaListener listener) {
+        Context contexto = aplicacion.getApplicationContext();
+        listener.onProgress(0);
+        long tamano = ImageHelper.tamanoOrigen(contexto, uri);
+
+        //Guardar imagen usando el helper especializado (nombre = hash del contenido)
+        //Tras decodificar, una importación anterior de los mismos bytes evita codificar de nuevo
+        AtomicReference<String> hashOrigen = new AtomicReference<>();
+        String ruta = ImageHelper.saveImageToInternalStorage(contexto, uri, tamano,
+                listener::onProgress, hash -> {
+                    hashOrigen.set(hash);
+                    return buscarImportada(hash);
+                });
+        if (cancelada()) return;
+
+        if (ruta != null) {
+            //Registrar antes de notificar: la receta que la use sumará su referencia
+            //(en el escritor único, por delante de la escritura de esa receta)
+            String hash = Imagen.hashDeRuta(ruta);
+            if (hash != null) {
+                try {
+                    escribir(() -> {
+                        imagenDAO.registrarImportacion(hash, hashOrigen.get());
+                        return null;
+                    });
+                } catch (InterruptedException interrupcion) {
+                    Thread.currentThread().interrupt();
+                    cancelada();
+                    return;
                 }
-            } catch (Exception excepcion) {
-                //Error inesperado
-                listener.onError("Error inesperado: " + excepcion.getMessage());
             }
-        });
+
+            //Éxito - notificar completado
+            listener.onProgress(100);
+            listener.onSuccess(ruta);
+        } else {
+            //Error en el guardado
+            listener.onError("Error al guardar imagen en almacenamiento interno");
+        }
+    }
+
+    //True si se canceló la importación en curso (hilo interrumpido por cancel(true))
+    private static boolean cancelada() {
+        if (!Thread.currentThread().isInterrupted()) return false;
+        android.util.Log.d(TAG, "Importación de imagen cancelada");
+        return true;
+    }
+
+    //Ruta de una importación anterior de los mismos bytes, o null (solo lectura: la fecha de uso
+    //la renueva registrarImportacion al terminar)
+    private String buscarImportada(String hashOrigen) {
+        if (hashOrigen == null) return null;
+        Imagen imagen = imagenDAO.getPorHashOrigen(hashOrigen);
+        if (imagen == null) return null;
+        File archivo = new File(ImageHelper.getImagesDirectory(aplicacion), imagen.getHash() + ".jpg");
+        if (!archivo.exists()) return null; //Se borró el archivo: importar de nuevo
+        android.util.Log.d(TAG, "Imagen ya importada, se reutiliza: " + archivo.getName());
+        return archivo.getAbsolutePath();
+    }
+
+    //Ejecuta una escritura de la tabla imagenes en el hilo escritor único de RecetasBD y espera
+    //su resultado (desde el executor de imágenes, nunca desde el propio escritor)
+    static <T> T escribir(Callable<T> escritura) throws InterruptedException {
+        FutureTask<T> tarea = new FutureTask<>(escritura);
+        RecetasBD.bdEscritura.execute(tarea);
+        try {
+            return tarea.get();
+        } catch (ExecutionException fallo) {
+            throw new IllegalStateException("Error al escribir en imagenes", fallo.getCause());
+        }
+    }
+
+    //==================== LIMPIEZA DE IMÁGENES SIN REFERENCIAS ====================
+
+    //Borra (en background) las imágenes que ninguna receta usa desde hace más del periodo de gracia
+    //Se llama tras eliminar o actualizar una receta, que es cuando una imagen puede quedarse sin uso
+    public void limpiarSinReferencias() {
+        try {
+            ejecutorImagenes.execute(() -> {
+                bloqueoAlmacen.writeLock().lock();
+                try {
+                    borrarSinReferencias();
+                } finally {
+                    bloqueoAlmacen.writeLock().unlock();
+                }
+            });
+        } catch (RejectedExecutionException colaLlena) {
+            //Sin prisa: la siguiente actualización o el recolector periódico lo harán
+            android.util.Log.d(TAG, "Limpieza aplazada: cola de imágenes llena");
+        }
+    }
+
+    private void borrarSinReferencias() {
+        Date limite = new Date(System.currentTimeMillis() - GRACIA_SIN_REFERENCIAS_MS);
+        List<Imagen> candidatas = imagenDAO.getSinReferencias(limite, LOTE_LIMPIEZA);
+        if (candidatas.isEmpty()) return;
+        List<String> hashes = new ArrayList<>(candidatas.size());
+        for (Imagen imagen : candidatas) hashes.add(imagen.getHash());
+
+        //Primero las filas (solo las que siguen sin referencias), después los archivos
+        List<String> borradas;
+        try {
+            borradas = escribir(() -> imagenDAO.eliminarSinReferencias(hashes));
+        } catch (InterruptedException interrupcion) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (String hash : borradas) {
+            String ruta = new File(ImageHelper.getImagesDirectory(aplicacion), hash + ".jpg").getAbsolutePath();
+            ImageHelper.eliminarImagen(ruta);
+        }
+        if (!borradas.isEmpty()) {
+            android.util.Log.d(TAG, "Imágenes sin referencias borradas: " + borradas.size());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,272 @@
+package com.example.recetarioapp.repository.storage;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.recetarioapp.database.ImagenDAO;
+import com.example.recetarioapp.database.RecetaDAO;
+import com.example.recetarioapp.database.RecetasBD;
+import com.example.recetarioapp.models.Imagen;
+import com.example.recetarioapp.utils.ImageHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+//Recolector en segundo plano de imágenes huérfanas en recetas_images
+// - Cubre lo que el recuento de referencias no ve: imágenes antiguas con nombre UUID,
+//   rendiciones sueltas, temporales de escrituras interrumpidas y archivos sin fila en imagenes
+// - Recorre el directorio en streaming y lo compara con las rutas imagenPortadaURL de Room
+//   (consulta ligera, solo esa columna) y con las imágenes recién importadas
+// - Solo borra archivos más antiguos que el periodo de gracia (una importación en curso
+//   todavía no tiene receta que la referencie)
+// - Incremental y acotado: cada pasada examina un tramo de nombres en orden y recuerda
+//   dónde se quedó; borra como mucho MAX_BORRADOS archivos
+// - Programado: primera pasada poco después de arrancar y luego periódica mientras la app vive
+// - Cada pasada se ejecuta con el almacén en exclusiva (sin importaciones a la vez)
+public final class RecolectorImagenes {
+
+    private static final String TAG = "RecolectorImagenes";
+
+    private static final String PREFERENCIAS = "RecetarioPrefs";
+    private static final String CLAVE_CURSOR = "gc_imagenes_cursor";
+
+    private static final long GRACIA_MS = 24L * 60 * 60 * 1000; //Archivos de menos de 24 h no se tocan
+    private static final long RETARDO_INICIAL_MS = 60_000L; //No competir con el arranque
+    private static final long INTERVALO_MS = 6L * 60 * 60 * 1000; //Vuelta completa terminada
+    private static final long INTERVALO_PENDIENTE_MS = 5L * 60 * 1000; //Quedan tramos por examinar
+
+    //Límites de cada pasada
+    static final int MAX_EXAMINADOS = 500;
+    static final int MAX_BORRADOS = 100;
+
+    private final Context contexto;
+    private final RecetaDAO recetaDAO;
+    private final ImagenDAO imagenDAO;
+    private final SharedPreferences preferencias;
+    private final Handler manejadorPrincipal = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean programado = new AtomicBoolean(false);
+
+    //Métricas acumuladas desde el arranque
+    private volatile String ultimasMetricas = "sin pasadas";
+    private long bytesRecuperadosTotal;
+    private int archivosBorradosTotal;
+
+    //Uno por EntornoRecetas (la app comparte el de Firebase)
+    public RecolectorImagenes(Context contexto) {
+        this.contexto = contexto.getApplicationContext();
+        RecetasBD bd = RecetasBD.getInstance(this.contexto);
+        this.recetaDAO = bd.recetaDAO();
+        this.imagenDAO = bd.imagenDAO();
+        this.preferencias = this.contexto.getSharedPreferences(PREFERENCIAS, Context.MODE_PRIVATE);
+    }
+
+    //==================== PROGRAMACIÓN ====================
+
+    //Programa las pasadas periódicas (solo la primera llamada tiene efecto)
+    public void programar() {
+        if (programado.compareAndSet(false, true)) {
+            programarSiguiente(RETARDO_INICIAL_MS);
+        }
+    }
+
+    private void programarSiguiente(long retardoMs) {
+        //Las pasadas van al executor de imágenes con el almacén en exclusiva:
+        //nunca coinciden con una importación
+        manejadorPrincipal.postDelayed(() -> {
+            try {
+                ImageStorage.ejecutorImagenes.execute(() -> {
+                    boolean vueltaCompleta = true;
+                    ImageStorage.bloqueoAlmacen.writeLock().lock();
+                    try {
+                        vueltaCompleta = ejecutarPasada();
+                    } finally {
+                        ImageStorage.bloqueoAlmacen.writeLock().unlock();
+                        programarSiguiente(vueltaCompleta ? INTERVALO_MS : INTERVALO_PENDIENTE_MS);
+                    }
+                });
+            } catch (RejectedExecutionException colaLlena) {
+                //Importaciones en marcha: probar más tarde
+                programarSiguiente(INTERVALO_PENDIENTE_MS);
+            }
+        }, retardoMs);
+    }
+
+    //==================== PASADA ====================
+
+    //Ejecuta una pasada acotada (en el hilo actual, que no debe ser el principal)
+    //Devuelve true si ha terminado la vuelta completa al directorio
+    public boolean ejecutarPasada() {
+        long inicio = System.nanoTime();
+        File directorio = ImageHelper.getImagesDirectory(contexto);
+        if (!directorio.isDirectory()) return true;
+
+        //Nombres de archivo protegidos: los que usa alguna receta y los recién importados
+        Set<String> protegidos = new HashSet<>();
+        for (String ruta : recetaDAO.getRutasImagenes()) {
+            protegidos.add(new File(ruta).getName());
+        }
+        long limite = System.currentTimeMillis() - GRACIA_MS;
+        for (String hash : imagenDAO.getHashesEnUso(new Date(limite))) {
+            protegidos.add(hash + ".jpg");
+        }
+
+        String cursor = preferencias.getString(CLAVE_CURSOR, "");
+        Resultado resultado = recolectar(RecolectorImagenes::recorrerEnStreaming, directorio, protegidos,
+                limite, cursor, MAX_EXAMINADOS, MAX_BORRADOS);
+
+        //Olvidar las filas de las imágenes borradas (solo si siguen sin referencias)
+        List<String> hashesBorrados = new ArrayList<>();
+        for (String nombre : resultado.borrados) {
+            String hash = Imagen.hashDeRuta(nombre);
+            if (hash != null) hashesBorrados.add(hash);
+        }
+        if (!hashesBorrados.isEmpty()) {
+            try {
+                ImageStorage.escribir(() -> imagenDAO.eliminarSinReferencias(hashesBorrados));
+            } catch (InterruptedException interrupcion) {
+                Thread.currentThread().interrupt(); //Las filas sin archivo las olvida limpiarSinReferencias
+            }
+        }
+        preferencias.edit().putString(CLAVE_CURSOR, resultado.siguienteCursor).apply();
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        synchronized (this) {
+            bytesRecuperadosTotal += resultado.bytesRecuperados;
+            archivosBorradosTotal += resultado.borrados.size();
+            ultimasMetricas = String.format(Locale.ROOT,
+                    "examinados=%d, borrados=%d, recuperados=%d KB, duración=%d ms, vuelta=%s | total: %d archivos, %d KB",
+                    resultado.examinados, resultado.borrados.size(), resultado.bytesRecuperados / 1024,
+                    duracionMs, resultado.vueltaCompleta ? "completa" : "pendiente",
+                    archivosBorradosTotal, bytesRecuperadosTotal / 1024);
+        }
+        android.util.Log.d(TAG, "Pasada de limpieza: " + ultimasMetricas);
+        return resultado.vueltaCompleta;
+    }
+
+    //Resumen de la última pasada (archivos examinados y borrados, bytes recuperados, duración)
+    public String getUltimasMetricas() {
+        return ultimasMetricas;
+    }
+
+    //==================== NÚCLEO (SIN ROOM) ====================
+
+    //Examina, en orden de nombre, hasta maxExaminados archivos posteriores al cursor y borra los
+    //huérfanos anteriores a limiteMs (como mucho maxBorrados)
+    //- Un archivo se conserva si su imagen completa (sin sufijo de rendición) está protegida
+    //- Los temporales (.tmp) antiguos se borran siempre: nunca los referencia una receta
+    //- listado: cómo se recorre el directorio (sin clases de Android: se prueba en la JVM)
+    static Resultado recolectar(Listado listado, File directorio, Set<String> protegidos, long limiteMs,
+                                String cursor, int maxExaminados, int maxBorrados) {
+        //Los maxExaminados nombres más pequeños tras el cursor, sin cargar todo el listado
+        PriorityQueue<String> tramo = new PriorityQueue<>(maxExaminados, Collections.reverseOrder());
+        boolean[] hayMas = {false};
+        listado.recorrer(directorio, nombre -> {
+            if (nombre.compareTo(cursor) <= 0) return;
+            if (tramo.size() < maxExaminados) {
+                tramo.add(nombre);
+            } else if (nombre.compareTo(tramo.peek()) < 0) {
+                tramo.poll();
+                tramo.add(nombre);
+                hayMas[0] = true;
+            } else {
+                hayMas[0] = true;
+            }
+        });
+
+        List<String> ordenados = new ArrayList<>(tramo);
+        Collections.sort(ordenados);
+
+        Resultado resultado = new Resultado();
+        String ultimo = cursor;
+        boolean cortado = false;
+        for (String nombre : ordenados) {
+            if (resultado.borrados.size() >= maxBorrados) {
+                cortado = true; //Lote lleno: el resto en la siguiente pasada
+                break;
+            }
+            ultimo = nombre;
+            resultado.examinados++;
+
+            File archivo = new File(directorio, nombre);
+            if (!archivo.isFile() || archivo.lastModified() >= limiteMs) continue;
+            boolean temporal = nombre.endsWith(".tmp");
+            if (!temporal && protegidos.contains(nombreCompleta(nombre))) continue;
+
+            long tamano = archivo.length();
+            if (archivo.delete()) {
+                resultado.borrados.add(nombre);
+                resultado.bytesRecuperados += tamano;
+            }
+        }
+
+        resultado.vueltaCompleta = !hayMas[0] && !cortado;
+        resultado.siguienteCursor = resultado.vueltaCompleta ? "" : ultimo;
+        return resultado;
+    }
+
+    //Nombre de la imagen completa a la que pertenece un archivo (quita el sufijo de rendición)
+    static String nombreCompleta(String nombre) {
+        for (ImageHelper.Rendicion rendicion : ImageHelper.Rendicion.values()) {
+            String sufijo = rendicion.getSufijo() + ".jpg";
+            if (!rendicion.getSufijo().isEmpty() && nombre.endsWith(sufijo)) {
+                return nombre.substring(0, nombre.length() - sufijo.length()) + ".jpg";
+            }
+        }
+        return nombre;
+    }
+
+    //Forma de recorrer los nombres de un directorio
+    interface Listado {
+        void recorrer(File directorio, Consumer<String> visitante);
+    }
+
+    //Con list(): todos los nombres en un array (cualquier versión de Android y la JVM)
+    static final Listado LISTADO_COMPLETO = (directorio, visitante) -> {
+        String[] nombres = directorio.list();
+        if (nombres == null) return;
+        for (String nombre : nombres) {
+            visitante.accept(nombre);
+        }
+    };
+
+    //Recorre los nombres del directorio: en streaming desde API 26, con list() en versiones anteriores
+    private static void recorrerEnStreaming(File directorio, Consumer<String> visitante) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            LISTADO_COMPLETO.recorrer(directorio, visitante);
+            return;
+        }
+        try (DirectoryStream<Path> entradas = Files.newDirectoryStream(directorio.toPath())) {
+            for (Path entrada : entradas) {
+                visitante.accept(entrada.getFileName().toString());
+            }
+        } catch (IOException e) {
+            android.util.Log.w(TAG, "No se pudo listar el directorio de imágenes", e);
+        }
+    }
+
+    //Resultado de una pasada
+    static final class Resultado {
+        int examinados;
+        final List<String> borrados = new ArrayList<>();
+        long bytesRecuperados;
+        boolean vueltaCompleta;
+        String siguienteCursor = "";
+    }
+}
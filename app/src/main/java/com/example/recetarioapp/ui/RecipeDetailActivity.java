@@ -25,6 +25,9 @@ import com.example.recetarioapp.models.Receta;
 import com.example.recetarioapp.utils.*;
 import com.example.recetarioapp.viewmodels.RecetaViewModel;
 
+import java.util.Collections;
+import java.util.Map;
+
 //Activity para mostrar los detalles completos de una receta
 // - Visualización completa de todos los datos de la receta
 // - Gestión de favoritos
@@ -43,6 +46,9 @@ public class RecipeDetailActivity extends AppCompatActivity {
     //Receta actual siendo mostrada
     private Receta recetaActual;
 
+    //Favoritos cambiados pendientes de guardar (se muestran antes de llegar a la BD)
+    private Map<Long, Boolean> favoritosPendientes = Collections.emptyMap();
+
     //Componentes de UI
     private CollapsingToolbarLayout collapsingToolbar;
     private MaterialToolbar toolbar;
@@ -83,17 +89,20 @@ public class RecipeDetailActivity extends AppCompatActivity {
         observarCambiosFavoritos();
     }
 
-    //Observa cambios en el estado de favoritos para actualizar la UI
+    //Observa los favoritos pendientes de guardar para actualizar el icono al instante
     private void observarCambiosFavoritos() {
-        viewModel.getFavoritoActualizado().observe(this, idReceta -> {
-            if (recetaActual != null && idReceta == recetaActual.getId()) {
-                //Actualizar estado local y icono
-                recetaActual.setFav(!recetaActual.isFav());
-                actualizarIconoFavorito();
-            }
+        viewModel.getFavoritosPendientes().observe(this, pendientes -> {
+            favoritosPendientes = pendientes;
+            actualizarIconoFavorito();
         });
     }
 
+    //Estado de favorito a mostrar: el pendiente si existe, si no el guardado en la BD
+    private boolean esFavoritaMostrada() {
+        Boolean pendiente = favoritosPendientes.get(recetaActual.getId());
+        return pendiente != null ? pendiente : recetaActual.isFav();
+    }
+
     //Inicializa las referencias a las vistas del layout
     private void inicializarVistas() {
         collapsingToolbar = findViewById(R.id.collapsing_toolbar);
@@ -134,20 +143,26 @@ public class RecipeDetailActivity extends AppCompatActivity {
                 uri -> {
                     //Manejar imagen seleccionada
                     if (uri != null && recetaActual != null) {
-                        //GUARDAR EN ALMACENAMIENTO INTERNO
-                        String internalImagePath = ImageHelper.saveImageToInternalStorage(this, uri);
-
-                        if (internalImagePath != null) {
-                            //Actualizar UI y base de datos
-                            recetaActual.setImagenPortadaURL(internalImagePath);
-                            ImageLoader.loadRecipeImage(this, internalImagePath, imagenReceta);
-
-                            //GUARDAR CAMBIO EN LA BASE DE DATOS
-                            viewModel.actualizarReceta(recetaActual);
-                            Toast.makeText(this, "Imagen actualizada", Toast.LENGTH_SHORT).show();
-                        } else {
-                            Toast.makeText(this, "Error al guardar imagen", Toast.LENGTH_SHORT).show();
-                        }
+                        //GUARDAR EN ALMACENAMIENTO INTERNO (en segundo plano; reutiliza la imagen si ya se importó)
+                        viewModel.guardarImagenLocal(uri, new RecetaViewModel.OnImagenSubidaListener() {
+                            @Override
+                            public void onImagenSubida(String internalImagePath) {
+                                runOnUiThread(() -> {
+                                    //Actualizar UI y base de datos
+                                    recetaActual.setImagenPortadaURL(internalImagePath);
+                                    ImageLoader.loadRecipeImage(RecipeDetailActivity.this, internalImagePath, imagenReceta);
+
+                                    //GUARDAR CAMBIO EN LA BASE DE DATOS
+                                    viewModel.actualizarReceta(recetaActual);
+                                    Toast.makeText(RecipeDetailActivity.this, "Imagen actualizada", Toast.LENGTH_SHORT).show();
+                                });
+                            }
+
+                            @Override
+                            public void onError(String mensaje) {
+                                Toast.makeText(RecipeDetailActivity.this, "Error al guardar imagen", Toast.LENGTH_SHORT).show();
+                            }
+                        });
                     }
                 }
         );
@@ -235,7 +250,7 @@ public class RecipeDetailActivity extends AppCompatActivity {
     private void alternarFavorito() {
         if (recetaActual == null) return;
 
-        boolean nuevoEstado = !recetaActual.isFav();
+        boolean nuevoEstado = !esFavoritaMostrada();
         viewModel.marcarFavorita(recetaActual.getId(), nuevoEstado);
 
         Toast.makeText(this,
@@ -247,7 +262,7 @@ public class RecipeDetailActivity extends AppCompatActivity {
     private void actualizarIconoFavorito() {
         if (recetaActual == null) return;
         botonFavorito.setImageResource(
-                recetaActual.isFav() ? R.drawable.ic_fav : R.drawable.ic_fav_no
+                esFavoritaMostrada() ? R.drawable.ic_fav : R.drawable.ic_fav_no
         );
     }
 
@@ -4,7 +4,7 @@ import android.content.Intent;
 import android.widget.Toast;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
-import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaResumen;
 import com.example.recetarioapp.ui.RecipeDetailActivity;
 import com.example.recetarioapp.viewmodels.RecetaViewModel;
 
@@ -51,14 +51,14 @@ public abstract class BaseFragment extends Fragment {
     }
 
     //Abre la Activity de detalle para una receta específica
-    protected void openRecipeDetail(Receta receta) {
+    protected void openRecipeDetail(RecetaResumen receta) {
         Intent intent = new Intent(getContext(), RecipeDetailActivity.class);
         intent.putExtra(RecipeDetailActivity.EXTRA_RECETA_ID, receta.getId());
         startActivity(intent);
     }
 
     //Alterna el estado de favorito de una receta
-    protected void toggleFavorite(Receta receta, boolean isFavorite) {
+    protected void toggleFavorite(RecetaResumen receta, boolean isFavorite) {
         viewModel.marcarFavorita(receta.getId(), isFavorite);
         showToast(isFavorite ? "Añadida a favoritos" : "Quitada de favoritos");
     }
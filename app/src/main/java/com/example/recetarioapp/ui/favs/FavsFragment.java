@@ -8,13 +8,16 @@ import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.recetarioapp.R;
-import com.example.recetarioapp.adapters.RecetaAdapter;
+import com.example.recetarioapp.adapters.RecetaPagingAdapter;
 import com.example.recetarioapp.ui.base.BaseFragment;
 import com.example.recetarioapp.utils.ViewExtensions;
 
+import kotlin.Unit;
+
 //Fragment para mostrar la lista de recetas marcadas como favoritas
 // - Muestra lista de recetas favoritas del usuario
 // - Gestiona estados vacíos cuando no hay favoritos
@@ -28,8 +31,8 @@ public class FavsFragment extends BaseFragment {
     //Layout que se muestra cuando no hay recetas favoritas
     private FrameLayout layoutEmpty;
 
-    //Adaptador para gestionar la lista de recetas
-    private RecetaAdapter adapter;
+    //Adaptador paginado para gestionar la lista de recetas
+    private RecetaPagingAdapter adapter;
 
     //Crea la vista del fragmento inflando el layout correspondiente
     @Override
@@ -57,7 +60,7 @@ public class FavsFragment extends BaseFragment {
 
     //Configura el RecyclerView para mostrar la lista de recetas favoritas
     private void setupRecyclerView() {
-        adapter = new RecetaAdapter();
+        adapter = new RecetaPagingAdapter();
         rvFavoritas.setLayoutManager(new LinearLayoutManager(getContext()));
         rvFavoritas.setAdapter(adapter);
 
@@ -69,19 +72,25 @@ public class FavsFragment extends BaseFragment {
             toggleFavorite(receta, isFav);
             if (!isFav) showToast("Quitada de favoritos");
         });
+
+        //Mostrar/u ocultar elementos según si hay favoritos al terminar cada carga
+        adapter.addLoadStateListener(estados -> {
+            if (estados.getRefresh() instanceof LoadState.NotLoading) {
+                boolean sinFavoritas = adapter.getItemCount() == 0;
+                ViewExtensions.setVisible(rvFavoritas, !sinFavoritas);
+                ViewExtensions.setVisible(layoutEmpty, sinFavoritas);
+            }
+            return Unit.INSTANCE;
+        });
     }
 
-    //Observa los cambios en la lista de recetas favoritas
+    //Observa los cambios en la lista paginada de recetas favoritas
     private void observeData() {
-        viewModel.getFavs().observe(getViewLifecycleOwner(), favoritas -> {
-            if (favoritas == null) return;
+        viewModel.getFavoritasPaginadas().observe(getViewLifecycleOwner(), favoritas ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), favoritas));
 
-            //Actualizar la lista del adaptador con las recetas favoritas
-            adapter.submitList(favoritas);
-
-            //Mostrar/u ocultar elementos según si hay favoritos
-            ViewExtensions.setVisible(rvFavoritas, !favoritas.isEmpty());
-            ViewExtensions.setVisible(layoutEmpty, favoritas.isEmpty());
-        });
+        //Favoritos pendientes de guardar: se muestran antes de que la BD los refleje
+        viewModel.getFavoritosPendientes().observe(getViewLifecycleOwner(),
+                adapter::setFavoritosPendientes);
     }
 }
\ No newline at end of file
@@ -14,11 +14,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.recetarioapp.R;
 import com.example.recetarioapp.adapters.RecetaAdapter;
-import com.example.recetarioapp.models.Receta;
 import com.example.recetarioapp.ui.AboutActivity;
 import com.example.recetarioapp.ui.base.BaseFragment;
 import com.example.recetarioapp.utils.ViewExtensions;
-import java.util.List;
 
 //Fragment principal que muestra el dashboard de la aplicación
 // - Estadísticas de recetas (total, favoritas, categorías)
@@ -96,31 +94,34 @@ public class FragmentHome extends BaseFragment {
 
     //Observa los cambios en los datos de recetas y favoritos
     private void observeData() {
-        //Observar todas las recetas para estadísticas y lista reciente
-        viewModel.getTodasLasRecetas().observe(getViewLifecycleOwner(), recetas -> {
-            if (recetas == null) return;
-
-            //Actualizar contador de recetas totales
-            tvTotalRecetas.setText(String.valueOf(recetas.size()));
+        //Contador de recetas totales (COUNT en SQLite, sin cargar filas)
+        viewModel.getTotalRecetas().observe(getViewLifecycleOwner(), total -> {
+            if (total != null) {
+                tvTotalRecetas.setText(String.valueOf(total));
+            }
+        });
 
-            //Obtener las 5 recetas más recientes (o todas si hay menos de 5)
-            List<Receta> recetasRecientes = recetas.size() > 5
-                    ? recetas.subList(0, 5)
-                    : recetas;
+        //Las 5 recetas más recientes (resumen ligero para la lista)
+        viewModel.getRecetasRecientes().observe(getViewLifecycleOwner(), recetasRecientes -> {
+            if (recetasRecientes == null) return;
 
             //Actualizar lista de recetas recientes
             adapter.submitList(recetasRecientes);
 
             //Mostrar/ocultar elementos según si hay recetas
-            ViewExtensions.setVisible(rvRecetasRecientes, !recetas.isEmpty());
-            ViewExtensions.setVisible(layoutEmptyState, recetas.isEmpty());
+            ViewExtensions.setVisible(rvRecetasRecientes, !recetasRecientes.isEmpty());
+            ViewExtensions.setVisible(layoutEmptyState, recetasRecientes.isEmpty());
         });
 
         //Observar recetas favoritas para actualizar contador
-        viewModel.getFavs().observe(getViewLifecycleOwner(), favoritas -> {
-            if (favoritas != null) {
-                tvTotalFavoritas.setText(String.valueOf(favoritas.size()));
+        viewModel.getTotalFavoritas().observe(getViewLifecycleOwner(), totalFavoritas -> {
+            if (totalFavoritas != null) {
+                tvTotalFavoritas.setText(String.valueOf(totalFavoritas));
             }
         });
+
+        //Favoritos pendientes de guardar: se muestran antes de que la BD los refleje
+        viewModel.getFavoritosPendientes().observe(getViewLifecycleOwner(),
+                adapter::setFavoritosPendientes);
     }
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -21,19 +22,22 @@ import com.example.recetarioapp.utils.RecipeFilterDialog;
 import com.example.recetarioapp.viewmodels.RecetaViewModel;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
+import com.google.android.material.materialswitch.MaterialSwitch;
 import com.example.recetarioapp.R;
-import com.example.recetarioapp.adapters.RecetaAdapter;
-import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.adapters.RecetaPagingAdapter;
+import com.example.recetarioapp.models.RecetaFiltro;
+import com.example.recetarioapp.models.RecetaResumen;
 import com.example.recetarioapp.ui.base.BaseFragment;
 import com.example.recetarioapp.utils.ViewExtensions;
 
-import java.util.List;
+import kotlin.Unit;
 
 //Fragment para mostrar y gestionar la lista de recetas
 // - Búsqueda en tiempo real de recetas
-// - Filtrado por categorías y tiempo de preparación
+// - Filtrado por categorías y tiempo de preparación (combinable con la búsqueda)
 // - Gestión de estados vacíos
 // - Actualización mediante gesto pull-to-refresh
+// - Interruptor de la sincronización en tiempo real (opt-in, se recuerda entre sesiones)
 // - Navegación a detalles de recetas
 public class RecipesFragment extends BaseFragment {
 
@@ -41,8 +45,9 @@ public class RecipesFragment extends BaseFragment {
     private EditText etBuscar;
     private RecyclerView rvRecetas;
     private SwipeRefreshLayout swipeRefresh;
+    private MaterialSwitch switchTiempoReal;
     private LinearLayout layoutEmpty;
-    private RecetaAdapter adapter;
+    private RecetaPagingAdapter adapter;
     private RecetaViewModel viewModel;
 
     //Vistas para estado vacío
@@ -80,26 +85,16 @@ public class RecipesFragment extends BaseFragment {
         setupSearch();
         setupFilters();
         setupSwipeRefresh();
+        setupTiempoReal();
         observeData();
         setupFavoritoObserver();
     }
 
-    //Configura el observador para actualizaciones de estado de favoritos
+    //Configura el observador de favoritos pendientes de guardar
+    //El adapter los muestra al instante y repinta solo las filas afectadas
     private void setupFavoritoObserver() {
-        viewModel.getFavoritoActualizado().observe(getViewLifecycleOwner(), recetaId -> {
-            //Actualizar el item específico en el adapter cuando cambia un favorito
-            if (adapter != null) {
-                //Buscar la receta en la lista actual y actualizar su estado
-                for (int i = 0; i < adapter.getItemCount(); i++) {
-                    Receta receta = adapter.getRecetaEn(i);
-                    if (receta != null && receta.getId() == recetaId) {
-                        receta.setFav(!receta.isFav()); //Invertir estado
-                        adapter.notifyItemChanged(i);
-                        break;
-                    }
-                }
-            }
-        });
+        viewModel.getFavoritosPendientes().observe(getViewLifecycleOwner(),
+                adapter::setFavoritosPendientes);
     }
 
     //Inicializa las referencias a las vistas del layout
@@ -107,6 +102,7 @@ public class RecipesFragment extends BaseFragment {
         etBuscar = view.findViewById(R.id.et_buscar);
         rvRecetas = view.findViewById(R.id.rv_recetas);
         swipeRefresh = view.findViewById(R.id.swipe_refresh);
+        switchTiempoReal = view.findViewById(R.id.switch_tiempo_real);
         layoutEmpty = view.findViewById(R.id.layout_empty);
 
         //Configurar vistas de estado vacío
@@ -129,15 +125,23 @@ public class RecipesFragment extends BaseFragment {
         });
     }
 
-    //Configura el RecyclerView para mostrar la lista de recetas
+    //Configura el RecyclerView para mostrar la lista paginada de recetas
     private void setupRecyclerView() {
-        adapter = new RecetaAdapter();
+        adapter = new RecetaPagingAdapter();
         rvRecetas.setLayoutManager(new LinearLayoutManager(getContext()));
         rvRecetas.setAdapter(adapter);
 
         //Configurar listeners para interacciones con recetas
         adapter.setOnRecetaClickListener(this::openRecipeDetail);
         adapter.setOnFavClickListener(this::toggleFavorite);
+
+        //Actualizar estado vacío cuando termina de cargarse la primera página
+        adapter.addLoadStateListener(estados -> {
+            if (estados.getRefresh() instanceof LoadState.NotLoading) {
+                actualizarEstadoVacio(adapter.getItemCount() == 0);
+            }
+            return Unit.INSTANCE;
+        });
     }
 
     //Configura el sistema de búsqueda en tiempo real
@@ -151,16 +155,8 @@ public class RecipesFragment extends BaseFragment {
                 currentSearchQuery = s.toString();
                 isSearching = !currentSearchQuery.trim().isEmpty();
 
-                if (isSearching) {
-                    //Activar modo búsqueda
-                    viewModel.buscar(currentSearchQuery);
-                    desmarcarTodosLosChips();
-                    switchToSearchMode();
-                } else {
-                    //Volver al modo normal
-                    viewModel.buscar("");
-                    switchToNormalMode();
-                }
+                //Actualiza solo el texto del filtro; los chips activos se mantienen
+                viewModel.buscar(currentSearchQuery);
             }
 
             @Override
@@ -168,26 +164,13 @@ public class RecipesFragment extends BaseFragment {
         });
     }
 
-    //Cambia al modo de búsqueda observando recetas filtradas
-    private void switchToSearchMode() {
-        viewModel.getTodasLasRecetas().removeObservers(getViewLifecycleOwner());
-        viewModel.getRecetasFiltradas().observe(getViewLifecycleOwner(), this::actualizarLista);
-    }
-
-    //Cambia al modo normal observando todas las recetas
-    private void switchToNormalMode() {
-        viewModel.getRecetasFiltradas().removeObservers(getViewLifecycleOwner());
-        viewModel.getTodasLasRecetas().observe(getViewLifecycleOwner(), this::actualizarLista);
-    }
-
     //Configura los chips de filtro rápido
     private void setupFilters() {
         //Chip para mostrar todas las recetas
         chipTodas.setOnCheckedChangeListener((button, isChecked) -> {
             if (isChecked) {
                 desmarcarOtrosChips(chipTodas);
-                limpiarBusqueda();
-                observeData();
+                aplicarFiltroRapido(RecetaFiltro.SIN_FILTRO);
             }
         });
 
@@ -195,8 +178,8 @@ public class RecipesFragment extends BaseFragment {
         chipPostres.setOnCheckedChangeListener((button, isChecked) -> {
             if (isChecked) {
                 desmarcarOtrosChips(chipPostres);
-                limpiarBusqueda();
-                filtrarPorCategoria(getString(R.string.categoria_postres));
+                aplicarFiltroRapido(RecetaFiltro.SIN_FILTRO
+                        .conCategoria(getString(R.string.categoria_postres)));
             }
         });
 
@@ -204,8 +187,8 @@ public class RecipesFragment extends BaseFragment {
         chipPrincipales.setOnCheckedChangeListener((button, isChecked) -> {
             if (isChecked) {
                 desmarcarOtrosChips(chipPrincipales);
-                limpiarBusqueda();
-                filtrarPorCategoria(getString(R.string.categoria_principales));
+                aplicarFiltroRapido(RecetaFiltro.SIN_FILTRO
+                        .conCategoria(getString(R.string.categoria_principales)));
             }
         });
 
@@ -213,14 +196,18 @@ public class RecipesFragment extends BaseFragment {
         chipRapidas.setOnCheckedChangeListener((button, isChecked) -> {
             if (isChecked) {
                 desmarcarOtrosChips(chipRapidas);
-                limpiarBusqueda();
-                filtrarPorTiempo(30);
+                aplicarFiltroRapido(RecetaFiltro.SIN_FILTRO.conTiempoMax(30));
             }
         });
 
         //Botón para filtros avanzados
         requireView().findViewById(R.id.btn_filtros).setOnClickListener(v ->
-                RecipeFilterDialog.show(requireContext(), viewModel, this::actualizarLista));
+                RecipeFilterDialog.show(requireContext(), viewModel, filtro -> desmarcarTodosLosChips()));
+    }
+
+    //Aplica el filtro de un chip conservando el texto de búsqueda escrito
+    private void aplicarFiltroRapido(RecetaFiltro filtroChip) {
+        viewModel.aplicarFiltro(filtroChip.conTexto(currentSearchQuery));
     }
 
     //Desmarca todos los chips excepto el seleccionado
@@ -253,51 +240,36 @@ public class RecipesFragment extends BaseFragment {
     private void setupSwipeRefresh() {
         swipeRefresh.setColorSchemeResources(R.color.color_primary);
         swipeRefresh.setOnRefreshListener(() -> {
-            //Sincronizar datos y mantener el filtro actual
-            viewModel.sincronizar();
-            if (isSearching) {
-                viewModel.buscar(currentSearchQuery);
-            } else {
-                //Reaplicar filtro actual después de sincronizar
-                if (chipPostres.isChecked()) {
-                    filtrarPorCategoria(getString(R.string.categoria_postres));
-                } else if (chipPrincipales.isChecked()) {
-                    filtrarPorCategoria(getString(R.string.categoria_principales));
-                } else if (chipRapidas.isChecked()) {
-                    filtrarPorTiempo(30);
-                } else {
-                    observeData();
-                }
+            //Sincronizar datos; Room invalida la consulta del filtro actual con cada página escrita
+            if (!viewModel.sincronizar()) {
+                swipeRefresh.setRefreshing(false); //No se ha iniciado: nada que esperar
             }
-            swipeRefresh.setRefreshing(false);
         });
-    }
 
-    //Inicia la observación de datos según el modo actual
-    private void observeData() {
-        switchToNormalMode();
+        //El indicador sigue visible hasta que se escribe la última página
+        viewModel.getProgresoSincronizacion().observe(getViewLifecycleOwner(), progreso -> {
+            if (!progreso.isEnCurso()) {
+                swipeRefresh.setRefreshing(false);
+            }
+        });
     }
 
-    //Filtra recetas por categoría específica
-    private void filtrarPorCategoria(String categoria) {
-        viewModel.filtrarPorCategoria(categoria).observe(getViewLifecycleOwner(),
-                this::actualizarLista);
+    //Configura el interruptor de la sincronización en tiempo real
+    //El estado inicial se pone antes del listener para no reactivar la escucha al abrir la pantalla
+    private void setupTiempoReal() {
+        switchTiempoReal.setChecked(viewModel.isSincronizacionTiempoReal());
+        switchTiempoReal.setOnCheckedChangeListener((button, isChecked) ->
+                viewModel.setSincronizacionTiempoReal(isChecked));
     }
 
-    //Filtra recetas por tiempo máximo de preparación
-    private void filtrarPorTiempo(int tiempo) {
-        viewModel.filtrarPorTiempo(tiempo).observe(getViewLifecycleOwner(),
-                this::actualizarLista);
+    //Observa la lista paginada del filtro actual (un único observador para todos los modos)
+    private void observeData() {
+        viewModel.getRecetasFiltradas().observe(getViewLifecycleOwner(), datos ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), datos));
     }
 
-    //Actualiza la lista de recetas en el adapter
-    private void actualizarLista(List<Receta> recetas) {
-        if (recetas == null) return;
-
-        //Actualizar adapter y verificar si la lista está vacía
-        adapter.submitList(recetas);
-        boolean isEmpty = recetas.isEmpty();
-
+    //Muestra la lista o el estado vacío según el resultado cargado
+    private void actualizarEstadoVacio(boolean isEmpty) {
         ViewExtensions.setVisible(rvRecetas, !isEmpty);
         ViewExtensions.setVisible(layoutEmpty, isEmpty);
 
@@ -345,17 +317,8 @@ public class RecipesFragment extends BaseFragment {
 
     //Alterna el estado de favorito de una receta
     @Override
-    protected void toggleFavorite(Receta receta, boolean isFav) {
+    protected void toggleFavorite(RecetaResumen receta, boolean isFav) {
         viewModel.marcarFavorita(receta.getId(), isFav);
         //El observer maneja la actualización de la interfaz
     }
-
-    //Reanuda la observación de datos cuando el fragmento vuelve a primer plano
-    @Override
-    public void onResume() {
-        super.onResume();
-        if (isSearching) {
-            viewModel.buscar(currentSearchQuery);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,121 @@
+package com.example.recetarioapp.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Executor con nombre y métricas para las tareas en segundo plano de la app
+//- Hilos con nombre ("bd-escritura-1", "bd-lectura-2"...) para identificarlos en trazas
+//- Mide la profundidad de la cola y el tiempo que cada tarea espera antes de ejecutarse
+//- Registra errores no capturados para que una tarea fallida no desaparezca en silencio
+//- Opcionalmente con cola acotada: al llenarse, execute()/enviar() lanzan RejectedExecutionException
+public final class EjecutorMonitorizado implements Executor {
+
+    private final String nombre;
+    private final ThreadPoolExecutor pool;
+
+    //Métricas acumuladas (nanosegundos de espera en cola)
+    private final AtomicLong tareasEjecutadas = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong tareasRechazadas = new AtomicLong();
+
+    //Crea un pool de tamaño fijo con cola ilimitada
+    public EjecutorMonitorizado(String nombre, int hilos) {
+        this(nombre, hilos, Integer.MAX_VALUE);
+    }
+
+    //Crea un pool de tamaño fijo que admite como mucho capacidadCola tareas en espera
+    public EjecutorMonitorizado(String nombre, int hilos, int capacidadCola) {
+        this.nombre = nombre;
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, nombre + "-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        this.pool.allowCoreThreadTimeOut(true); //Liberar hilos inactivos
+    }
+
+    //Encola una tarea registrando cuándo entró en la cola
+    @Override
+    public void execute(@NonNull Runnable tarea) {
+        long encolada = System.nanoTime();
+        try {
+            pool.execute(() -> medir(tarea, encolada));
+        } catch (RejectedExecutionException colaLlena) {
+            tareasRechazadas.incrementAndGet();
+            throw colaLlena;
+        }
+    }
+
+    //Encola una tarea cancelable: cancel(true) la retira si no ha empezado o interrumpe su hilo
+    public Future<?> enviar(@NonNull Runnable tarea) {
+        FutureTask<Void> futura = new FutureTask<>(tarea, null);
+        execute(futura);
+        return futura;
+    }
+
+    //Ejecuta la tarea registrando su espera en cola y sus errores
+    private void medir(Runnable tarea, long encolada) {
+        long espera = System.nanoTime() - encolada;
+        esperaTotalNanos.addAndGet(espera);
+        esperaMaximaNanos.accumulateAndGet(espera, Math::max);
+        tareasEjecutadas.incrementAndGet();
+        try {
+            tarea.run();
+        } catch (RuntimeException excepcion) {
+            android.util.Log.e("EjecutorMonitorizado",
+                    "Error en tarea de " + nombre + ": " + excepcion.getMessage(), excepcion);
+        }
+    }
+
+    //==================== MÉTRICAS ====================
+
+    public String getNombre() { return nombre; }
+
+    //Tareas esperando en cola (sin contar las que se están ejecutando)
+    public int getTareasEnCola() { return pool.getQueue().size(); }
+
+    //Tareas ejecutándose en este momento
+    public int getTareasActivas() { return pool.getActiveCount(); }
+
+    //Tareas que ya han empezado a ejecutarse desde el arranque
+    public long getTareasEjecutadas() { return tareasEjecutadas.get(); }
+
+    //Tareas rechazadas por tener la cola llena
+    public long getTareasRechazadas() { return tareasRechazadas.get(); }
+
+    //Número de hilos del pool
+    public int getHilos() { return pool.getMaximumPoolSize(); }
+
+    //Tiempo medio de espera en cola, en milisegundos
+    public double getEsperaMediaMs() {
+        long ejecutadas = tareasEjecutadas.get();
+        return ejecutadas == 0 ? 0 : esperaTotalNanos.get() / 1_000_000.0 / ejecutadas;
+    }
+
+    //Mayor tiempo de espera en cola observado, en milisegundos
+    public double getEsperaMaximaMs() {
+        return esperaMaximaNanos.get() / 1_000_000.0;
+    }
+
+    //Resumen legible para logs
+    public String resumen() {
+        return String.format(Locale.ROOT,
+                "%s: hilos=%d cola=%d activas=%d ejecutadas=%d rechazadas=%d esperaMedia=%.1fms esperaMax=%.1fms",
+                nombre, getHilos(), getTareasEnCola(), getTareasActivas(), getTareasEjecutadas(), getTareasRechazadas(),
+                getEsperaMediaMs(), getEsperaMaximaMs());
+    }
+}
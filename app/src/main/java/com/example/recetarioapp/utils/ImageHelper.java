@@ -1,15 +1,30 @@
 package com.example.recetarioapp.utils;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.net.Uri;
 import android.util.Log;
 
+import com.example.recetarioapp.models.Imagen;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.UUID;
+import java.io.InterruptedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
 
 //Helper para gestionar operaciones con imágenes en almacenamiento interno
 // - Guardar imágenes desde URI con optimización de memoria y tamaño
@@ -17,6 +32,13 @@ import java.util.UUID;
 // - Verificar existencia de archivos de imagen
 // - Proporcionar acceso a archivos de imagen
 // - Manejo de errores robusto con logging
+// - Genera varias resoluciones (rendiciones) de cada imagen al guardarla:
+//   <hash>.jpg (completa), <hash>_detalle.jpg y <hash>_mini.jpg en recetas_images
+//   La receta guarda la ruta de la completa; las demás se deducen de ella
+// - Direccionamiento por contenido: <hash> es el SHA-256 del JPEG completo codificado,
+//   así dos importaciones con el mismo resultado comparten archivos (ver Imagen)
+// - Informa del progreso real (bytes leídos al decodificar, fases de codificación) y se
+//   detiene si se interrumpe el hilo (importación cancelada); admite varias importaciones a la vez
 public class ImageHelper {
 
     //Tag para logging de operaciones con imágenes
@@ -25,53 +47,171 @@ public class ImageHelper {
     //Directorio donde se almacenan las imágenes de recetas
     private static final String IMAGES_DIR = "recetas_images";
 
+    //Lectura de la URI: buffer y margen de mark/reset para releer tras leer los límites
+    //(la cabecera con EXIF de una foto de cámara cabe de sobra)
+    private static final int TAM_BUFFER_LECTURA = 64 * 1024;
+    private static final int LIMITE_MARCA = 1024 * 1024;
+
+    //Ampliación máxima admitida al elegir rendición (con centerCrop no se aprecia)
+    private static final float AMPLIACION_MAXIMA = 1.5f;
+
+    //Resoluciones generadas al guardar: sufijo del archivo y lado mayor en píxeles
+    public enum Rendicion {
+        MINIATURA("_mini", 360), //Tarjetas pequeñas y previsualizaciones
+        DETALLE("_detalle", 720), //Tarjetas del listado y cabecera del detalle
+        COMPLETA("", 1200); //Imagen original optimizada (la que guarda la receta)
+
+        final String sufijo;
+        final int ladoMayor;
+
+        Rendicion(String sufijo, int ladoMayor) {
+            this.sufijo = sufijo;
+            this.ladoMayor = ladoMayor;
+        }
+
+        //Sufijo del nombre de archivo ("" en la completa)
+        public String getSufijo() {
+            return sufijo;
+        }
+    }
+
     //Guarda una imagen desde URI al almacenamiento interno con optimización
+    //- Abre la URI una sola vez: límites y decodificación sobre el mismo stream (mark/reset)
+    //  y, si se pide, hash de los bytes de origen calculado en esa misma lectura
+    //- Decodifica al tamaño final exacto en una sola llamada (inSampleSize + escalado por densidad):
+    //  el submuestreado intermedio solo vive en memoria nativa durante la decodificación
+    //- Decodificación y rendiciones reutilizan la memoria de PoolBitmaps entre importaciones
+    //- Registra el tiempo de cada fase y el pico de memoria (getUltimasMetricas())
     public static String saveImageToInternalStorage(Context context, Uri imageUri) {
+        return saveImageToInternalStorage(context, imageUri, tamanoOrigen(context, imageUri), null, null);
+    }
+
+    //Como saveImageToInternalStorage(), informando del progreso (0-100):
+    //- Decodificar (0-60): proporcional a los bytes leídos de tamanoOrigen (-1 si se desconoce)
+    //- Codificar la completa (75) y cada rendición (85, 95); guardado (100)
+    //origen (opcional): recibe el hash de los bytes de origen tras decodificar; si devuelve una
+    //ruta (importación anterior de los mismos bytes) se devuelve esa sin codificar ni escribir nada
+    //Devuelve null si falla o si se interrumpe el hilo (cancelación)
+    public static String saveImageToInternalStorage(Context context, Uri imageUri, long tamanoOrigen,
+                                                    OnProgresoListener listener,
+                                                    OnOrigenLeidoListener origen) {
+        Progreso progreso = new Progreso(listener);
+        MetricasImportacion metricas = new MetricasImportacion();
+        PoolBitmaps pool = PoolBitmaps.getInstance();
+        Bitmap bitmap = null;
         try {
             //Crear directorio de imágenes si no existe
-            File directory = new File(context.getFilesDir(), IMAGES_DIR);
+            File directory = getImagesDirectory(context);
             if (!directory.exists()) directory.mkdirs();
 
-            //Generar nombre único para evitar colisiones
-            String fileName = UUID.randomUUID().toString() + ".jpg";
-            File imageFile = new File(directory, fileName);
-
-            //Paso 1: Obtener dimensiones sin cargar la imagen completa en memoria
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true; //Solo leer metadatos
-            InputStream input1 = context.getContentResolver().openInputStream(imageUri);
-            BitmapFactory.decodeStream(input1, null, options);
-            if (input1 != null) input1.close();
-
-            //Paso 2: Calcular factor de escala para reducir tamaño de imagen
-            int maxSize = 1200; //Tamaño máximo en píxeles
-            int scale = 1;
-            while (options.outWidth / scale > maxSize || options.outHeight / scale > maxSize) {
-                scale *= 2;
-            }
+            MessageDigest resumenOrigen = origen != null ? MessageDigest.getInstance("SHA-256") : null;
+            try (InputStream original = context.getContentResolver().openInputStream(imageUri)) {
+                if (original == null) {
+                    Log.e(TAG, "No se pudo abrir la imagen");
+                    return null;
+                }
+                InputStream entrada = abrirLectura(original, tamanoOrigen, progreso, resumenOrigen);
+                entrada.mark(LIMITE_MARCA);
+
+                //Paso 1: Obtener dimensiones sin cargar la imagen completa en memoria
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true; //Solo leer metadatos
+                BitmapFactory.decodeStream(entrada, null, options);
+                if (options.outWidth <= 0 || options.outHeight <= 0) {
+                    Log.e(TAG, "No se pudo decodificar la imagen");
+                    return null;
+                }
+                metricas.fase("limites");
 
-            //Paso 3: Decodificar imagen con el factor de escala calculado
-            BitmapFactory.Options scaledOptions = new BitmapFactory.Options();
-            scaledOptions.inSampleSize = scale;
-            InputStream input2 = context.getContentResolver().openInputStream(imageUri);
-            Bitmap bitmap = BitmapFactory.decodeStream(input2, null, scaledOptions);
-            if (input2 != null) input2.close();
+                //Paso 2: Decodificar al tamaño final exacto en un bitmap reutilizado si lo hay
+                try {
+                    entrada.reset();
+                } catch (IOException cabeceraLarga) {
+                    //La lectura de límites superó la marca: reabrir (caso raro)
+                    entrada.close();
+                    entrada = reabrir(context, imageUri, tamanoOrigen, progreso, resumenOrigen);
+                    metricas.reaperturas++;
+                }
+                try {
+                    bitmap = decodificarExacto(entrada, options.outWidth, options.outHeight,
+                            Rendicion.COMPLETA.ladoMayor, pool, true);
+                } catch (IllegalArgumentException bitmapNoValido) {
+                    //El bitmap del pool no sirvió para esta imagen: repetir sin reutilizar
+                    entrada.close();
+                    entrada = reabrir(context, imageUri, tamanoOrigen, progreso, resumenOrigen);
+                    metricas.reaperturas++;
+                    bitmap = decodificarExacto(entrada, options.outWidth, options.outHeight,
+                            Rendicion.COMPLETA.ladoMayor, pool, false);
+                }
+                //El decodificador puede no llegar al final: el hash debe cubrir todos los bytes
+                if (resumenOrigen != null) leerHastaElFinal(entrada);
+                entrada.close();
+            }
 
             //Verificar que la imagen se decodificó correctamente
             if (bitmap == null) {
                 Log.e(TAG, "No se pudo decodificar la imagen");
                 return null;
             }
+            metricas.fase("decodificar");
+            metricas.bitmap(bitmap);
+            progreso.informar(60);
+            comprobarCancelacion();
+
+            //Mismos bytes de origen ya importados: se reutiliza esa imagen sin codificar
+            if (origen != null) {
+                String existente = origen.onOrigenLeido(hex(resumenOrigen.digest()));
+                comprobarCancelacion();
+                if (existente != null) {
+                    metricas.terminar(new File(existente).getName() + " (mismo origen)");
+                    progreso.informar(100);
+                    return existente;
+                }
+            }
 
-            //Paso 4: Guardar imagen comprimida en formato JPEG
-            FileOutputStream outputStream = new FileOutputStream(imageFile);
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 85, outputStream); //85% calidad
-            outputStream.close();
-            bitmap.recycle(); //Liberar memoria inmediatamente
+            //Paso 3: Comprimir en JPEG y nombrar el archivo con el hash de los bytes codificados
+            ByteArrayOutputStream codificada = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 85, codificada); //85% calidad
+            byte[] bytes = codificada.toByteArray();
+            File imageFile = new File(directory, hashHex(bytes) + ".jpg");
+            boolean duplicada = imageFile.exists(); //Mismo contenido ya guardado: no se reescribe
+            if (!duplicada) escribirAtomico(imageFile, bytes);
+            metricas.fase("comprimir");
+            progreso.informar(75);
 
+            //Paso 4: Rendiciones reducidas a partir del bitmap ya decodificado (de mayor a menor)
+            //Si la imagen ya existía solo se generan las que falten
+            Bitmap origen = bitmap;
+            int porcentaje = 75;
+            for (Rendicion rendicion : new Rendicion[]{Rendicion.DETALLE, Rendicion.MINIATURA}) {
+                porcentaje += 10;
+                comprobarCancelacion();
+                File archivo = new File(rutaRendicion(imageFile.getAbsolutePath(), rendicion));
+                if (duplicada && archivo.exists()) {
+                    progreso.informar(porcentaje);
+                    continue;
+                }
+                Bitmap reducido = reducir(origen, rendicion.ladoMayor, pool);
+                metricas.bitmap(reducido);
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                reducido.compress(Bitmap.CompressFormat.JPEG, 80, salida);
+                escribirAtomico(archivo, salida.toByteArray());
+                if (origen != bitmap && origen != reducido) pool.devolver(origen);
+                origen = reducido;
+                progreso.informar(porcentaje);
+            }
+            if (origen != bitmap) pool.devolver(origen);
+            metricas.fase("rendiciones");
+
+            metricas.terminar(imageFile.getName() + (duplicada ? " (duplicada)" : ""));
+            progreso.informar(100);
             Log.d(TAG, "Imagen guardada optimizada: " + imageFile.getAbsolutePath());
             return imageFile.getAbsolutePath();
 
+        } catch (InterruptedIOException cancelada) {
+            //Importación cancelada: los temporales ya se han borrado
+            Log.d(TAG, "Importación cancelada");
+            return null;
         } catch (OutOfMemoryError oom) {
             //Manejar específicamente errores de memoria
             Log.e(TAG, "Error de memoria al procesar imagen", oom);
@@ -80,6 +220,301 @@ public class ImageHelper {
             //Manejar otros errores genéricos
             Log.e(TAG, "Error al guardar imagen", e);
             return null;
+        } finally {
+            pool.devolver(bitmap); //Liberar para la siguiente importación
+        }
+    }
+
+    //Decodifica una imagen para que su lado mayor mida exactamente ladoMaximo (o menos si ya cabe)
+    //- inSampleSize: la mayor potencia de 2 que no baja del tamaño final (submuestreo barato)
+    //- inDensity/inTargetDensity: escalado exacto restante dentro de la misma llamada
+    //  (BitmapFactory decodifica primero al tamaño submuestreado en un bitmap nativo temporal
+    //  y lo escala sobre el de salida: ese intermedio existe, pero no en el heap de Java)
+    //- inBitmap: bitmap del pool solo si PoolBitmaps.sirveComoInBitmap lo admite (reutilizar)
+    //Lanza IllegalArgumentException si aun así el bitmap reutilizado no es válido (se libera)
+    private static Bitmap decodificarExacto(InputStream entrada, int ancho, int alto,
+                                            int ladoMaximo, PoolBitmaps pool, boolean reutilizar) {
+        int mayor = Math.max(ancho, alto);
+        int objetivo = Math.min(mayor, ladoMaximo);
+
+        int muestreo = 1;
+        while (mayor / (muestreo * 2) >= objetivo) {
+            muestreo *= 2;
+        }
+
+        BitmapFactory.Options opciones = new BitmapFactory.Options();
+        opciones.inSampleSize = muestreo;
+        opciones.inMutable = true; //Necesario para devolverlo al pool
+        opciones.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        int mayorMuestreado = (mayor + muestreo - 1) / muestreo;
+        if (mayorMuestreado != objetivo) {
+            opciones.inScaled = true;
+            opciones.inDensity = mayorMuestreado;
+            opciones.inTargetDensity = objetivo;
+        }
+
+        float escala = (float) objetivo / mayor;
+        int anchoFinal = Math.max(1, Math.round(ancho * escala));
+        int altoFinal = Math.max(1, Math.round(alto * escala));
+        if (reutilizar) {
+            Bitmap candidato = pool.obtener(anchoFinal, altoFinal);
+            if (PoolBitmaps.sirveComoInBitmap(candidato, anchoFinal, altoFinal, muestreo)) {
+                opciones.inBitmap = candidato;
+            } else if (candidato != null) {
+                candidato.recycle(); //No cumple las reglas de inBitmap: decodificar sin él
+            }
+        }
+
+        try {
+            return BitmapFactory.decodeStream(entrada, null, opciones);
+        } catch (IllegalArgumentException bitmapNoValido) {
+            if (opciones.inBitmap != null) opciones.inBitmap.recycle();
+            throw bitmapNoValido;
+        }
+    }
+
+    //==================== DIRECCIONAMIENTO POR CONTENIDO ====================
+
+    //Recibe el hash de los bytes de origen (mismo formato que Imagen.hashOrigen) leído al decodificar
+    //Devuelve la ruta de una importación anterior de esos bytes, o null para seguir importando
+    public interface OnOrigenLeidoListener {
+        String onOrigenLeido(String hashOrigen);
+    }
+
+    //SHA-256 truncado a Imagen.LONGITUD_HASH caracteres hexadecimales
+    private static String hashHex(byte[] bytes) throws NoSuchAlgorithmException {
+        return hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    private static String hex(byte[] resumen) {
+        StringBuilder texto = new StringBuilder(Imagen.LONGITUD_HASH);
+        for (int i = 0; i < Imagen.LONGITUD_HASH / 2; i++) {
+            texto.append(String.format(Locale.ROOT, "%02x", resumen[i] & 0xff));
+        }
+        return texto.toString();
+    }
+
+    //Escribe en un temporal y lo renombra: nunca queda a medias un archivo con nombre de hash
+    //Cada escritura usa su propio temporal (dos importaciones pueden guardar el mismo contenido)
+    private static void escribirAtomico(File destino, byte[] bytes) throws IOException {
+        File temporal = File.createTempFile(destino.getName() + ".", ".tmp", destino.getParentFile());
+        try {
+            try (FileOutputStream salida = new FileOutputStream(temporal)) {
+                salida.write(bytes);
+            }
+            comprobarCancelacion();
+            if (!temporal.renameTo(destino) && !destino.exists()) {
+                throw new IOException("No se pudo escribir " + destino.getName());
+            }
+        } finally {
+            temporal.delete(); //Sin efecto si ya se renombró
+        }
+    }
+
+    //Directorio de las imágenes guardadas (recetas_images en almacenamiento interno)
+    public static File getImagesDirectory(Context context) {
+        return new File(context.getFilesDir(), IMAGES_DIR);
+    }
+
+    //Borra una imagen completa y todas sus rendiciones (true si se borró la completa)
+    public static boolean eliminarImagen(String rutaCompleta) {
+        if (rutaCompleta == null) return false;
+        for (Rendicion rendicion : new Rendicion[]{Rendicion.DETALLE, Rendicion.MINIATURA}) {
+            new File(rutaRendicion(rutaCompleta, rendicion)).delete();
+        }
+        return new File(rutaCompleta).delete();
+    }
+
+    //==================== PROGRESO Y CANCELACIÓN ====================
+
+    //Interfaz para recibir el progreso de una operación (porcentaje 0-100, nunca decreciente)
+    public interface OnProgresoListener {
+        void onProgreso(int porcentaje);
+    }
+
+    //Tamaño en bytes de la imagen de origen, o -1 si el proveedor no lo indica
+    public static long tamanoOrigen(Context context, Uri imageUri) {
+        try (AssetFileDescriptor descriptor =
+                     context.getContentResolver().openAssetFileDescriptor(imageUri, "r")) {
+            return descriptor != null ? descriptor.getLength() : -1;
+        } catch (IOException | SecurityException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    //Lanza InterruptedIOException si se ha cancelado la importación (hilo interrumpido)
+    private static void comprobarCancelacion() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Importación cancelada");
+        }
+    }
+
+    //Vuelve a abrir la URI para decodificar desde el principio (el hash de origen también empieza)
+    private static InputStream reabrir(Context context, Uri imageUri, long tamanoOrigen,
+                                       Progreso progreso, MessageDigest resumenOrigen) throws IOException {
+        InputStream original = context.getContentResolver().openInputStream(imageUri);
+        if (original == null) throw new IOException("No se pudo reabrir la imagen");
+        return abrirLectura(original, tamanoOrigen, progreso, resumenOrigen);
+    }
+
+    //Stream de decodificación: progreso (0-60), hash de origen opcional y buffer con mark/reset
+    //El DigestInputStream va por debajo del buffer: releer la cabecera tras reset() no la
+    //vuelve a sumar al hash
+    private static InputStream abrirLectura(InputStream original, long tamanoOrigen, Progreso progreso,
+                                            MessageDigest resumenOrigen) {
+        InputStream lectura = new LecturaConProgreso(original, tamanoOrigen, progreso, 0, 60);
+        if (resumenOrigen != null) {
+            resumenOrigen.reset();
+            lectura = new DigestInputStream(lectura, resumenOrigen);
+        }
+        return new BufferedInputStream(lectura, TAM_BUFFER_LECTURA);
+    }
+
+    //Consume lo que quede del stream (read(), no skip(): skip() no pasaría por el resumen)
+    private static void leerHastaElFinal(InputStream entrada) throws IOException {
+        byte[] buffer = new byte[TAM_BUFFER_LECTURA];
+        while (entrada.read(buffer) != -1) {
+            //Solo avanzar
+        }
+    }
+
+    //Notifica porcentajes solo cuando avanzan (no repite ni retrocede tras una reapertura)
+    private static final class Progreso {
+        private final OnProgresoListener listener;
+        private int ultimo = -1;
+
+        Progreso(OnProgresoListener listener) {
+            this.listener = listener;
+        }
+
+        void informar(int porcentaje) {
+            if (listener == null || porcentaje <= ultimo) return;
+            ultimo = porcentaje;
+            listener.onProgreso(porcentaje);
+        }
+    }
+
+    //Stream que cuenta los bytes leídos, los traduce a un tramo de progreso [desde, hasta]
+    //y corta la lectura si se cancela la importación
+    private static final class LecturaConProgreso extends FilterInputStream {
+        private final long total;
+        private final Progreso progreso;
+        private final int desde;
+        private final int hasta;
+        private long leidos;
+
+        LecturaConProgreso(InputStream entrada, long total, Progreso progreso, int desde, int hasta) {
+            super(entrada);
+            this.total = total;
+            this.progreso = progreso;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        public int read() throws IOException {
+            comprobarCancelacion();
+            int leido = super.read();
+            if (leido != -1) avanzar(1);
+            return leido;
+        }
+
+        @Override
+        public int read(byte[] buffer, int inicio, int longitud) throws IOException {
+            comprobarCancelacion();
+            int n = super.read(buffer, inicio, longitud);
+            if (n > 0) avanzar(n);
+            return n;
+        }
+
+        private void avanzar(long n) {
+            leidos += n;
+            if (total > 0) {
+                progreso.informar(desde + (int) ((hasta - desde) * Math.min(1.0, (double) leidos / total)));
+            }
+        }
+    }
+
+    //==================== RENDICIONES ====================
+
+    //Ruta de una rendición a partir de la ruta de la imagen completa
+    //(rutas ajenas a recetas_images, URIs o imágenes antiguas: se devuelve la original)
+    public static String rutaRendicion(String rutaCompleta, Rendicion rendicion) {
+        if (rutaCompleta == null || rendicion == Rendicion.COMPLETA) return rutaCompleta;
+        if (!rutaCompleta.endsWith(".jpg") || !rutaCompleta.contains("/" + IMAGES_DIR + "/")) {
+            return rutaCompleta;
+        }
+        return rutaCompleta.substring(0, rutaCompleta.length() - 4) + rendicion.sufijo + ".jpg";
+    }
+
+    //Rendición más pequeña que cubre un tamaño objetivo (lado mayor de la vista en píxeles)
+    public static Rendicion elegirRendicion(int ladoObjetivo) {
+        for (Rendicion rendicion : Rendicion.values()) {
+            if (rendicion.ladoMayor * AMPLIACION_MAXIMA >= ladoObjetivo) return rendicion;
+        }
+        return Rendicion.COMPLETA;
+    }
+
+    //Escala un bitmap para que su lado mayor no supere el indicado (mismo bitmap si ya cabe)
+    //El resultado se dibuja en un bitmap del pool (filtrado bilineal)
+    private static Bitmap reducir(Bitmap bitmap, int ladoMayor, PoolBitmaps pool) {
+        int mayor = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (mayor <= ladoMayor) return bitmap;
+        float escala = (float) ladoMayor / mayor;
+        int ancho = Math.max(1, Math.round(bitmap.getWidth() * escala));
+        int alto = Math.max(1, Math.round(bitmap.getHeight() * escala));
+
+        Bitmap destino = pool.obtenerOCrear(ancho, alto);
+        destino.eraseColor(Color.TRANSPARENT);
+        new Canvas(destino).drawBitmap(bitmap, null, new Rect(0, 0, ancho, alto),
+                new Paint(Paint.FILTER_BITMAP_FLAG));
+        return destino;
+    }
+
+    //==================== MÉTRICAS DE IMPORTACIÓN ====================
+
+    //Resumen de la última importación (tiempos por fase, pico de memoria, pool)
+    public static String getUltimasMetricas() {
+        return ultimasMetricas;
+    }
+
+    private static volatile String ultimasMetricas = "sin importaciones";
+
+    //Tiempos por fase y pico de memoria de una importación
+    //- Pico de heap: máximo de memoria usada por la VM medido al final de cada fase
+    //- Pico de bitmaps: suma de la memoria de los bitmaps vivos a la vez
+    private static final class MetricasImportacion {
+        private final long inicio = System.nanoTime();
+        private final Runtime runtime = Runtime.getRuntime();
+        private final StringBuilder fases = new StringBuilder();
+        private long ultimaMarca = inicio;
+        private long picoHeap = usado();
+        private long bytesBitmaps;
+        private long picoBitmaps;
+        int reaperturas;
+
+        void fase(String nombre) {
+            long ahora = System.nanoTime();
+            fases.append(nombre).append('=').append((ahora - ultimaMarca) / 1_000_000).append("ms ");
+            ultimaMarca = ahora;
+            picoHeap = Math.max(picoHeap, usado());
+        }
+
+        void bitmap(Bitmap bitmap) {
+            bytesBitmaps += bitmap.getAllocationByteCount();
+            picoBitmaps = Math.max(picoBitmaps, bytesBitmaps);
+        }
+
+        void terminar(String archivo) {
+            ultimasMetricas = String.format(Locale.ROOT,
+                    "%s total=%dms, pico heap=%d KB, pico bitmaps=%d KB, reaperturas=%d, pool: %s",
+                    fases.toString().trim(), (System.nanoTime() - inicio) / 1_000_000,
+                    picoHeap / 1024, picoBitmaps / 1024, reaperturas, PoolBitmaps.getInstance().resumen());
+            Log.d(TAG, "Importación " + archivo + ": " + ultimasMetricas);
+        }
+
+        private long usado() {
+            return runtime.totalMemory() - runtime.freeMemory();
         }
     }
 }
\ No newline at end of file
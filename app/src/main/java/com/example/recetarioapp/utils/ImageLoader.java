@@ -2,6 +2,7 @@ package com.example.recetarioapp.utils;
 
 import android.content.Context;
 import android.net.Uri;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide;
@@ -14,6 +15,8 @@ import java.io.File;
 // - Manejo automático de placeholders y errores
 // - Recorte centrado para mantener proporciones
 // - Soporte para diferentes fuentes de imagen (archivos, URIs)
+// - Para imágenes propias carga la rendición más pequeña que cubre la vista
+//   (si no existe, p. ej. imágenes antiguas, recurre a la imagen completa)
 public class ImageLoader {
 
     //Carga una imagen de receta desde una ruta o URI con configuración completa
@@ -27,12 +30,17 @@ public class ImageLoader {
 
         //Determinar si es una ruta local (archivo) o URI
         if (imagePath.startsWith("/")) {
-            //Es una ruta local de archivo
-            File imageFile = new File(imagePath);
+            //Es una ruta local de archivo: elegir la rendición según el tamaño de la vista
+            ImageHelper.Rendicion rendicion = ImageHelper.elegirRendicion(ladoObjetivo(imageView));
+            String ruta = ImageHelper.rutaRendicion(imagePath, rendicion);
+            File imageFile = new File(ruta);
             Glide.with(context)
                     .load(imageFile) //Cargar desde archivo
                     .placeholder(R.drawable.placeholder_receta) //Imagen mientras carga
-                    .error(R.drawable.placeholder_receta) //Imagen si hay error
+                    .error(ruta.equals(imagePath)
+                            ? Glide.with(context).load(R.drawable.placeholder_receta)
+                            : Glide.with(context).load(new File(imagePath)).centerCrop()
+                                    .error(R.drawable.placeholder_receta)) //Sin rendición: la completa
                     .centerCrop() //Recortar al centro manteniendo proporciones
                     .into(imageView); //ImageView destino
         } else {
@@ -46,6 +54,23 @@ public class ImageLoader {
         }
     }
 
+    //Lado mayor de la vista en píxeles: medido si ya se ha dibujado, si no el del layout
+    //(match_parent sin medir: ancho de la pantalla)
+    private static int ladoObjetivo(ImageView imageView) {
+        int ancho = imageView.getWidth();
+        int alto = imageView.getHeight();
+        ViewGroup.LayoutParams parametros = imageView.getLayoutParams();
+        if (ancho <= 0) {
+            ancho = parametros != null && parametros.width > 0
+                    ? parametros.width
+                    : imageView.getResources().getDisplayMetrics().widthPixels;
+        }
+        if (alto <= 0 && parametros != null && parametros.height > 0) {
+            alto = parametros.height;
+        }
+        return Math.max(ancho, alto);
+    }
+
     //Carga una imagen directamente desde un URI sin placeholders
     public static void loadImage(Context context, Uri uri, ImageView imageView) {
         Glide.with(context)
@@ -0,0 +1,102 @@
+package com.example.recetarioapp.utils;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//Pool pequeño de bitmaps mutables ARGB_8888 para reutilizar su memoria entre importaciones
+//- ImageHelper decodifica (inBitmap) y genera las rendiciones sobre bitmaps del pool
+//- Un bitmap sirve para cualquier tamaño que quepa en su memoria (reconfigure)
+//- Acotado en número y en bytes: lo que no cabe se libera con recycle()
+public final class PoolBitmaps {
+
+    private static final int MAX_BITMAPS = 3;
+    private static final long MAX_BYTES = 12L * 1024 * 1024; //~1200x1200 + rendiciones, con margen
+
+    private static final PoolBitmaps INSTANCE = new PoolBitmaps();
+
+    private final List<Bitmap> libres = new ArrayList<>();
+    private long bytesLibres;
+
+    //Métricas
+    private int reutilizados;
+    private int creados;
+
+    private PoolBitmaps() {}
+
+    public static PoolBitmaps getInstance() {
+        return INSTANCE;
+    }
+
+    //Bitmap libre con memoria suficiente para ancho x alto, reconfigurado a ese tamaño
+    //(null si no hay ninguno: quien lo pide decide si crear uno nuevo)
+    public synchronized Bitmap obtener(int ancho, int alto) {
+        long necesarios = (long) ancho * alto * 4;
+        Bitmap mejor = null;
+        for (Bitmap candidato : libres) {
+            if (candidato.getAllocationByteCount() >= necesarios
+                    && (mejor == null || candidato.getAllocationByteCount() < mejor.getAllocationByteCount())) {
+                mejor = candidato; //El más pequeño que sirve
+            }
+        }
+        if (mejor == null) return null;
+
+        libres.remove(mejor);
+        bytesLibres -= mejor.getAllocationByteCount();
+        mejor.reconfigure(ancho, alto, Bitmap.Config.ARGB_8888);
+        reutilizados++;
+        return mejor;
+    }
+
+    //Comprueba las reglas de BitmapFactory.Options.inBitmap para una decodificación de ancho x alto
+    //- Siempre: mutable, sin reciclar y ARGB_8888 (la configuración que se pide al decodificar)
+    //- API 19+: memoria suficiente para el resultado (getAllocationByteCount)
+    //- Antes de API 19: mismo ancho y alto exactos y sin submuestreo (inSampleSize = 1)
+    public static boolean sirveComoInBitmap(Bitmap bitmap, int ancho, int alto, int muestreo) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+                || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount() >= (long) ancho * alto * 4;
+        }
+        return muestreo == 1 && bitmap.getWidth() == ancho && bitmap.getHeight() == alto;
+    }
+
+    //Como obtener(), pero crea un bitmap nuevo si el pool no tiene uno válido
+    public Bitmap obtenerOCrear(int ancho, int alto) {
+        Bitmap bitmap = obtener(ancho, alto);
+        if (bitmap != null) return bitmap;
+        synchronized (this) {
+            creados++;
+        }
+        return Bitmap.createBitmap(ancho, alto, Bitmap.Config.ARGB_8888);
+    }
+
+    //Devuelve un bitmap al pool (o lo libera si no es reutilizable o no cabe)
+    public synchronized void devolver(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888 || libres.contains(bitmap)) {
+            if (!libres.contains(bitmap)) bitmap.recycle();
+            return;
+        }
+        libres.add(bitmap);
+        bytesLibres += bitmap.getAllocationByteCount();
+
+        //Descartar los más antiguos hasta respetar los límites
+        while (libres.size() > MAX_BITMAPS || bytesLibres > MAX_BYTES) {
+            Bitmap descartado = libres.remove(0);
+            bytesLibres -= descartado.getAllocationByteCount();
+            descartado.recycle();
+        }
+    }
+
+    //Resumen para logs: bitmaps libres, bytes retenidos y reutilizaciones
+    public synchronized String resumen() {
+        return String.format(Locale.ROOT, "libres=%d (%d KB), reutilizados=%d, creados=%d",
+                libres.size(), bytesLibres / 1024, reutilizados, creados);
+    }
+}
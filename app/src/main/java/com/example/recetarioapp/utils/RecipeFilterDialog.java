@@ -8,23 +8,24 @@ import android.widget.AutoCompleteTextView;
 import android.widget.TextView;
 import androidx.appcompat.app.AlertDialog;
 import com.example.recetarioapp.R;
-import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFiltro;
 import com.example.recetarioapp.viewmodels.RecetaViewModel;
+import com.google.android.material.checkbox.MaterialCheckBox;
 import com.google.android.material.slider.Slider;
-import java.util.List;
 
 //Helper para mostrar diálogos de filtrado avanzado de recetas
 // - Interfaz de usuario para aplicar múltiples filtros
-// - Filtrado por categoría, dificultad y tiempo de preparación
+// - Filtrado combinado por categoría, dificultad, tiempo de preparación y favoritas
 // - Selectores desplegables para categorías y dificultades
 // - Slider para tiempo máximo de preparación
-// - Integración con ViewModel para aplicar filtros
+// - Integración con ViewModel para aplicar filtros (un único RecetaFiltro, conserva la búsqueda)
 public class RecipeFilterDialog {
 
     //Interfaz para manejar la aplicación de filtros
     public interface OnFilterAppliedListener {
         //Se llama cuando se aplican los filtros seleccionados
-        void onFilterApplied(List<Receta> recetasFiltradas);
+        //El filtro ya está aplicado en el ViewModel; el fragment solo actualiza su UI
+        void onFilterApplied(RecetaFiltro filtro);
     }
 
     //Muestra un diálogo de filtrado avanzado para recetas
@@ -39,6 +40,7 @@ public class RecipeFilterDialog {
         AutoCompleteTextView spinnerDificultad = dialogView.findViewById(R.id.spinner_dificultad);
         Slider sliderTiempo = dialogView.findViewById(R.id.slider_tiempo);
         TextView tvTiempoSeleccionado = dialogView.findViewById(R.id.tv_tiempo_seleccionado);
+        MaterialCheckBox cbSoloFavoritas = dialogView.findViewById(R.id.cb_solo_favoritas);
 
         //Configurar los dropdowns de categoría y dificultad
         setupCategorias(context, spinnerCategoria);
@@ -51,6 +53,20 @@ public class RecipeFilterDialog {
                     value == 0 ? "Sin límite" : ((int) value + " minutos"));
         });
 
+        //Mostrar el filtro actual en los controles
+        RecetaFiltro filtroActual = viewModel.getFiltroActual();
+        if (filtroActual.getCategoria() != null) {
+            spinnerCategoria.setText(filtroActual.getCategoria(), false);
+        }
+        if (filtroActual.getDificultad() != null) {
+            spinnerDificultad.setText(filtroActual.getDificultad(), false);
+        }
+        int tiempoActual = filtroActual.getTiempoMax();
+        if (tiempoActual % (int) sliderTiempo.getStepSize() == 0 && tiempoActual <= sliderTiempo.getValueTo()) {
+            sliderTiempo.setValue(tiempoActual);
+        }
+        cbSoloFavoritas.setChecked(filtroActual.isSoloFavoritas());
+
         //Crear y configurar el diálogo
         AlertDialog dialog = new AlertDialog.Builder(context)
                 .setView(dialogView)
@@ -63,25 +79,30 @@ public class RecipeFilterDialog {
             String dificultadSeleccionada = spinnerDificultad.getText().toString();
             int tiempoMax = (int) sliderTiempo.getValue();
 
-            //Aplicar filtros según la selección del usuario
-            if (!categoriaSeleccionada.equals("Todas")) {
-                //Filtrar por categoría seleccionada
-                viewModel.filtrarPorCategoria(categoriaSeleccionada)
-                        .observeForever(listener::onFilterApplied);
-            } else if (!dificultadSeleccionada.equals("Todas")) {
-                //Filtrar por dificultad seleccionada
-                viewModel.filtrarPorDificultad(dificultadSeleccionada)
-                        .observeForever(listener::onFilterApplied);
-            } else if (tiempoMax > 0) {
-                //Filtrar por tiempo máximo de preparación
-                viewModel.filtrarPorTiempo(tiempoMax)
-                        .observeForever(listener::onFilterApplied);
-            }
+            //Combinar todos los filtros seleccionados en uno solo ("Todas" = sin filtro)
+            RecetaFiltro filtro = viewModel.getFiltroActual()
+                    .conCategoria(categoriaSeleccionada.equals("Todas") ? null : categoriaSeleccionada)
+                    .conDificultad(dificultadSeleccionada.equals("Todas") ? null : dificultadSeleccionada)
+                    .conTiempoMax(tiempoMax)
+                    .conSoloFavoritas(cbSoloFavoritas.isChecked());
+            viewModel.aplicarFiltro(filtro);
+            listener.onFilterApplied(filtro);
 
             //Cerrar el diálogo después de aplicar filtros
             dialog.dismiss();
         });
 
+        //Configurar listener para el botón limpiar (conserva el texto de búsqueda)
+        dialogView.findViewById(R.id.btn_limpiar).setOnClickListener(v -> {
+            RecetaFiltro actual = viewModel.getFiltroActual();
+            RecetaFiltro filtro = RecetaFiltro.SIN_FILTRO
+                    .conTexto(actual.getTexto())
+                    .conTags(actual.getTags());
+            viewModel.aplicarFiltro(filtro);
+            listener.onFilterApplied(filtro);
+            dialog.dismiss();
+        });
+
         //Mostrar el diálogo
         dialog.show();
     }
@@ -8,12 +8,22 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.Transformations;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.paging.PagingSource;
 
+import com.example.recetarioapp.models.ProgresoSincronizacion;
 import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.models.RecetaFiltro;
+import com.example.recetarioapp.models.RecetaResumen;
 import com.example.recetarioapp.repository.RecetaRepository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ViewModel principal para gestionar todas las operaciones con recetas.
@@ -32,15 +42,23 @@ public class RecetaViewModel extends AndroidViewModel {
 
     // ==================== LIVE DATA PARA DATOS OBSERVABLES ====================
 
-    //Datos principales observables desde el Repository
-    private final LiveData<List<Receta>> todasLasRecetas;
-    private final LiveData<List<Receta>> recetasFavoritas;
+    //Datos de la pantalla de inicio (contadores y últimas recetas, sin cargar la tabla entera)
+    private static final int LIMITE_RECIENTES = 5;
+    private final LiveData<Integer> totalRecetas;
+    private final LiveData<Integer> totalFavoritas;
+    private final LiveData<List<RecetaResumen>> recetasRecientes;
 
-    //Controles de búsqueda y filtrado
-    private final MutableLiveData<String> queryBusqueda = new MutableLiveData<>();
+    //Listas paginadas (Paging 3) cacheadas en el ámbito del ViewModel
+    private final LiveData<PagingData<RecetaResumen>> favoritasPaginadas;
 
-    //LiveData reactivo que combina búsqueda con datos base
-    private final LiveData<List<Receta>> recetasFiltradas;
+    //Estado único de búsqueda y filtrado (texto, categoría, dificultad, tiempo, favoritas, etiquetas)
+    //Lo lee la fábrica de PagingSource en segundo plano
+    private volatile RecetaFiltro filtro = RecetaFiltro.SIN_FILTRO;
+
+    //Lista paginada que sigue al filtro actual: un solo Pager y un solo cachedIn
+    //Cambiar el filtro invalida la fuente activa y el Pager crea otra con el filtro nuevo
+    private final LiveData<PagingData<RecetaResumen>> recetasFiltradas;
+    private final AtomicReference<PagingSource<Integer, RecetaResumen>> fuenteFiltrada = new AtomicReference<>();
 
     // ==================== ESTADOS DE INTERFAZ OBSERVABLES ====================
     private final MutableLiveData<String> mensajeError = new MutableLiveData<>(); //Error
@@ -48,8 +66,11 @@ public class RecetaViewModel extends AndroidViewModel {
     private final MutableLiveData<Boolean> estadoCargando = new MutableLiveData<>(); //Cargando
     private final MutableLiveData<Integer> progresoSubida = new MutableLiveData<>();//Progreso
 
-    //Notificador específico para cambios en favoritos
-    private final MutableLiveData<Long> favoritoActualizado = new MutableLiveData<>();
+    //Importaciones de imagen en curso (todas se cancelan al destruir el ViewModel)
+    private final Set<Future<?>> importacionesImagen = ConcurrentHashMap.newKeySet();
+
+    //Estados de favorito pendientes de escribir (compartidos por toda la app)
+    private final LiveData<Map<Long, Boolean>> favoritosPendientes;
 
     //Constructor que inicializa todas las dependencias y configuraciones reactivas.
     public RecetaViewModel(@NonNull Application application) {
@@ -60,19 +81,15 @@ public class RecetaViewModel extends AndroidViewModel {
         Log.d("VIEWMODEL", "Nueva Instancia ViewModel: " + idInstancia);
 
         //Inicializar LiveData desde el Repository
-        todasLasRecetas = repositorioRecetas.getAllRecetas();
-        recetasFavoritas = repositorioRecetas.getFavs();
-
-        //Configurar transformación reactiva para búsqueda en tiempo real
-        recetasFiltradas = Transformations.switchMap(queryBusqueda, query -> {
-            if (query == null || query.trim().isEmpty()) {
-                //Query vacía - mostrar todas las recetas
-                return todasLasRecetas;
-            } else {
-                //Query con texto - buscar recetas que coincidan
-                return repositorioRecetas.buscarPorNombre(query);
-            }
-        });
+        totalRecetas = repositorioRecetas.contarRecetas();
+        totalFavoritas = repositorioRecetas.contarFavoritas();
+        recetasRecientes = repositorioRecetas.getRecetasRecientes(LIMITE_RECIENTES);
+        favoritosPendientes = repositorioRecetas.getFavoritosPendientes();
+        favoritasPaginadas = PagingLiveData.cachedIn(repositorioRecetas.getFavsPaginadas(), this);
+
+        //cachedIn una sola vez: los cambios de filtro no crean Pagers ni colecciones nuevas
+        recetasFiltradas = PagingLiveData.cachedIn(
+                repositorioRecetas.filtrar(this::getFiltroActual, fuenteFiltrada), this);
     }
 
     // ==================== OPERACIONES CRUD CON RECETAS ====================
@@ -135,12 +152,11 @@ public class RecetaViewModel extends AndroidViewModel {
 
     /**
      * Marca o desmarca una receta como favorita.
-     * Operación inmediata con notificación específica.
+     * La UI lo refleja al instante mediante getFavoritosPendientes();
+     * la escritura en BD se agrupa con otros toques cercanos.
      */
     public void marcarFavorita(long id, boolean esFavorito) {
         repositorioRecetas.establecerFavorita(id, esFavorito);
-        // Notificar específicamente que este favorito fue actualizado
-        favoritoActualizado.postValue(id);
     }
 
     // ==================== GESTIÓN DE IMÁGENES ====================
@@ -153,7 +169,7 @@ public class RecetaViewModel extends AndroidViewModel {
      */
     public void guardarImagenLocal(Uri uriImagen, OnImagenSubidaListener listener) {
         progresoSubida.postValue(0); //Iniciar progreso
-        repositorioRecetas.guardarImagenLocal(uriImagen, new RecetaRepository.OnImagenSubidaListener() {
+        Future<?> importacion = repositorioRecetas.guardarImagenLocal(uriImagen, new RecetaRepository.OnImagenSubidaListener() {
             @Override
             public void onSuccess(String ruta) {
                 progresoSubida.postValue(100); //Completado
@@ -172,43 +188,59 @@ public class RecetaViewModel extends AndroidViewModel {
                 });
             }
         });
+        if (importacion != null) {
+            importacionesImagen.removeIf(Future::isDone); //Olvidar las ya terminadas
+            importacionesImagen.add(importacion);
+        }
     }
 
     // ==================== SINCRONIZACIÓN Y RESINCROZACIÓN ====================
 
     // Ejecuta sincronización de recetas desde Firebase a local.
-    public void sincronizar() {
+    // El avance real (páginas y documentos escritos) se observa con getProgresoSincronizacion().
+    // Si ya hay una en curso (otra pantalla u otra instancia) se une a ella.
+    // Devuelve false si no se ha iniciado (sin usuario).
+    public boolean sincronizar() {
         Log.d("VIEWMODEL", "Sincronizando - Instancia: " + idInstancia);
-        estadoCargando.postValue(true);
-        repositorioRecetas.sincronizarFBaLocal();
-        estadoCargando.postValue(false);
-        mensajeExito.postValue("Sincronizando...");
+        boolean iniciada = repositorioRecetas.sincronizarFBaLocal();
+        repositorioRecetas.iniciarTiempoReal(); //Solo si el usuario lo activó
+        if (iniciada) mensajeExito.postValue("Sincronizando...");
+        return iniciada;
+    }
+
+    // Activa o desactiva la sincronización en tiempo real con otros dispositivos.
+    public void setSincronizacionTiempoReal(boolean activada) {
+        repositorioRecetas.setTiempoReal(activada);
+    }
+
+    public boolean isSincronizacionTiempoReal() {
+        return repositorioRecetas.isTiempoReal();
     }
 
     // ==================== BÚSQUEDA Y FILTRADO ====================
 
     /**
-     * Ejecuta búsqueda en tiempo real de recetas por nombre.
-     * La transformación reactiva se encarga de actualizar recetasFiltradas.
+     * Ejecuta búsqueda en tiempo real de recetas por texto.
+     * Conserva el resto de filtros; recetasFiltradas se recarga con el filtro nuevo.
      * -> query Texto de búsqueda
      */
     public void buscar(String query) {
-        queryBusqueda.setValue(query);
-    }
-
-    // Obtiene recetas filtradas por categoría específica.
-    public LiveData<List<Receta>> filtrarPorCategoria(String categoria) {
-        return repositorioRecetas.getRecetasPorCategoria(categoria);
+        aplicarFiltro(getFiltroActual().conTexto(query));
     }
 
-    //Obtiene recetas filtradas por nivel de dificultad.
-    public LiveData<List<Receta>> filtrarPorDificultad(String dificultad) {
-        return repositorioRecetas.getRecetasPorDificultad(dificultad);
+    //Sustituye el filtro completo de la lista de recetas.
+    //Un filtro igual al actual (RecetaFiltro.equals) no relanza la consulta.
+    public void aplicarFiltro(RecetaFiltro nuevoFiltro) {
+        RecetaFiltro nuevo = nuevoFiltro != null ? nuevoFiltro : RecetaFiltro.SIN_FILTRO;
+        if (nuevo.equals(filtro)) return;
+        filtro = nuevo;
+        PagingSource<Integer, RecetaResumen> activa = fuenteFiltrada.get();
+        if (activa != null) activa.invalidate();
     }
 
-    //Obtiene recetas filtradas por tiempo máximo de preparación.
-    public LiveData<List<Receta>> filtrarPorTiempo(int tiempoMax) {
-        return repositorioRecetas.getRecetasPorTiempo(tiempoMax);
+    //Devuelve el filtro aplicado actualmente (nunca null).
+    public RecetaFiltro getFiltroActual() {
+        return filtro;
     }
 
     // ==================== UTILIDADES Y MÉTODOS DE APOYO ====================
@@ -221,18 +253,28 @@ public class RecetaViewModel extends AndroidViewModel {
 
     // ==================== GETTERS PARA LIVE DATA ====================
 
-    //Obtiene todas las recetas disponibles.
-    public LiveData<List<Receta>> getTodasLasRecetas() {
-        return todasLasRecetas;
+    //Obtiene el número total de recetas.
+    public LiveData<Integer> getTotalRecetas() {
+        return totalRecetas;
     }
 
-    //Obtiene las recetas marcadas como favoritas.
-    public LiveData<List<Receta>> getFavs() {
-        return recetasFavoritas;
+    //Obtiene el número de recetas marcadas como favoritas.
+    public LiveData<Integer> getTotalFavoritas() {
+        return totalFavoritas;
     }
 
-    //Obtiene recetas filtradas según la búsqueda actual.
-    public LiveData<List<Receta>> getRecetasFiltradas() {
+    //Obtiene el resumen de las recetas más recientes.
+    public LiveData<List<RecetaResumen>> getRecetasRecientes() {
+        return recetasRecientes;
+    }
+
+    //Obtiene las recetas favoritas paginadas.
+    public LiveData<PagingData<RecetaResumen>> getFavoritasPaginadas() {
+        return favoritasPaginadas;
+    }
+
+    //Obtiene recetas paginadas según el filtro actual.
+    public LiveData<PagingData<RecetaResumen>> getRecetasFiltradas() {
         return recetasFiltradas;
     }
 
@@ -241,6 +283,11 @@ public class RecetaViewModel extends AndroidViewModel {
         return mensajeError;
     }
 
+    //Obtiene el progreso de la sincronización con Firebase (páginas y documentos escritos).
+    public LiveData<ProgresoSincronizacion> getProgresoSincronizacion() {
+        return repositorioRecetas.getProgresoSincronizacion();
+    }
+
     //Obtiene progreso de subida de imágenes.
     public LiveData<Integer> getProgresoSubida() {
         return progresoSubida;
@@ -256,9 +303,24 @@ public class RecetaViewModel extends AndroidViewModel {
         return repositorioRecetas.getRecetaById(id);
     }
 
-    //Obtiene notificaciones de actualización de favoritos.
-    public LiveData<Long> getFavoritoActualizado() {
-        return favoritoActualizado;
+    //Obtiene los estados de favorito pendientes de escribir (ID receta → estado a mostrar).
+    public LiveData<Map<Long, Boolean>> getFavoritosPendientes() {
+        return favoritosPendientes;
+    }
+
+    // Cancela todas las importaciones de imagen en curso (sin notificar a sus listeners).
+    public void cancelarImportacionImagen() {
+        for (Future<?> importacion : importacionesImagen) {
+            importacion.cancel(true);
+        }
+        importacionesImagen.clear();
+    }
+
+    // Al destruirse la pantalla dueña no tiene sentido seguir decodificando sus imágenes.
+    @Override
+    protected void onCleared() {
+        cancelarImportacionImagen();
+        super.onCleared();
     }
 
     // ==================== INTERFACE PARA CALLBACKS DE IMAGEN ====================
@@ -0,0 +1,21 @@
+package com.example.recetarioapp.models;
+
+import com.example.recetarioapp.repository.mappers.RecetaMapper;
+
+import java.util.Date;
+
+//Recetas de prueba compartidas por las pruebas JVM e instrumentadas
+public final class RecetasDePrueba {
+
+    private static final RecetaMapper MAPEADOR = new RecetaMapper();
+
+    private RecetasDePrueba() {}
+
+    //Receta mínima con la fecha de modificación indicada (ms) y su hash de contenido calculado
+    public static Receta receta(String nombre, long fechaModificacion) {
+        Receta receta = new Receta(nombre, "Descripción de " + nombre);
+        receta.setFechaModificacion(new Date(fechaModificacion));
+        receta.setHashContenido(MAPEADOR.hashContenido(receta));
+        return receta;
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.recetarioapp.repository.remote;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.repository.mappers.RecetaMapper;
+import com.example.recetarioapp.utils.EjecutorMonitorizado;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Fuente remota en memoria que imita a Firestore sin servicios de Google
+// - Guarda los documentos como los Map de RecetaMapper (mismo formato que Firebase)
+// - Lotes atómicos decididos por PlanLote, igual que en FirebaseDataSource
+//   (update() sobre un documento inexistente hace fallar el lote y se informa de su ID;
+//   ELIMINAR marca el documento con eliminada = true en vez de borrarlo)
+// - Descarga por páginas en orden de la hora del servidor y escucha de cambios por lote confirmado
+// - Cada lote confirmado sella actualizadoServidor con un reloj propio estrictamente creciente
+//   (como FieldValue.serverTimestamp()), independiente de la fechaModificacion del cliente
+// - Configurable: latencia por llamada, tasa de fallos, tamaño de página y conexión
+// - Determinista: los fallos salen de un Random con semilla y todas las respuestas
+//   se entregan en orden desde un único hilo ("remoto-memoria")
+// - Cuenta documentos escritos y leídos para medir el rendimiento de la sincronización
+public class InMemoryRecetaSource implements RemoteRecetaSource {
+
+    private static final String USUARIO_ID = "usuarioId";
+    private static final String ACTUALIZADO_SERVIDOR = RecetaMapper.CAMPO_ACTUALIZADO_SERVIDOR;
+
+    //Un hilo: simula una única conexión y conserva el orden de las respuestas
+    private final EjecutorMonitorizado ejecutor = new EjecutorMonitorizado("remoto-memoria", 1);
+    private final RecetaMapper mapeador = new RecetaMapper();
+
+    //Documentos por ID (protegidos por sí mismos)
+    private final Map<String, Map<String, Object>> documentos = new HashMap<>();
+    private final List<Escucha> escuchas = new CopyOnWriteArrayList<>();
+    //Reloj del "servidor" (ms): nunca retrocede ni repite valor
+    private final AtomicLong relojServidor = new AtomicLong();
+
+    //Configuración
+    private final long latenciaMs; //Espera antes de cada respuesta
+    private final double tasaFallos; //Probabilidad (0..1) de que una llamada falle
+    private final int tamPagina; //Documentos por página de descarga
+    private final Random aleatorio;
+    private volatile String usuarioId;
+    private volatile boolean conectado = true;
+
+    //Métricas
+    private final AtomicLong documentosEscritos = new AtomicLong();
+    private final AtomicLong documentosLeidos = new AtomicLong();
+
+    public InMemoryRecetaSource(String usuarioId, long latenciaMs, double tasaFallos,
+                                int tamPagina, long semilla) {
+        this.usuarioId = usuarioId;
+        this.latenciaMs = latenciaMs;
+        this.tasaFallos = tasaFallos;
+        this.tamPagina = tamPagina;
+        this.aleatorio = new Random(semilla);
+    }
+
+    //==================== CONFIGURACIÓN Y DATOS DE PRUEBA ====================
+
+    //Cambia el usuario con sesión (null = sin sesión)
+    public void setUsuarioId(String usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    //Simula quedarse sin red: todas las llamadas fallan hasta volver a conectar
+    public void setConectado(boolean conectado) {
+        this.conectado = conectado;
+    }
+
+    //Carga documentos del usuario actual como si otro dispositivo los hubiera subido
+    //Devuelve los ID asignados (en el mismo orden)
+    public List<String> sembrar(List<Receta> recetas) {
+        List<String> ids = new ArrayList<>(recetas.size());
+        synchronized (documentos) {
+            for (Receta receta : recetas) {
+                String id = receta.getFirebaseId() != null ? receta.getFirebaseId() : nuevoIdReceta();
+                receta.setUsuarioId(usuarioId);
+                Map<String, Object> documento = mapeador.toMap(receta);
+                documento.put(ACTUALIZADO_SERVIDOR, horaServidor());
+                documentos.put(id, documento);
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    //Número de documentos guardados (de todos los usuarios)
+    public int getNumeroDocumentos() {
+        synchronized (documentos) {
+            return documentos.size();
+        }
+    }
+
+    public long getDocumentosEscritos() { return documentosEscritos.get(); }
+    public long getDocumentosLeidos() { return documentosLeidos.get(); }
+
+    //==================== RemoteRecetaSource ====================
+
+    @Override
+    public String getUsuarioId() {
+        return usuarioId;
+    }
+
+    @Override
+    public String nuevoIdReceta() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+
+    @Override
+    public void enviarLote(List<OperacionPendiente> operaciones, Map<Long, Receta> recetas,
+                           Map<Long, HuellaSincronizada> huellasAnteriores, OnLoteListener listener) {
+        String usuario = usuarioId;
+        if (usuario == null) {
+            listener.onError("Usuario no autenticado", Collections.emptyList());
+            return;
+        }
+        if (operaciones.size() > MAX_ESCRITURAS_LOTE) {
+            listener.onError("Lote demasiado grande: " + operaciones.size(), Collections.emptyList());
+            return;
+        }
+
+        //Decidir el lote en el hilo que llama (las recetas pueden cambiar después)
+        PlanLote plan = PlanLote.planificar(operaciones, recetas, huellasAnteriores, usuario, mapeador);
+
+        responder(() -> {
+            String fallo = fallo();
+            if (fallo != null) {
+                listener.onError(fallo, Collections.emptyList());
+                return;
+            }
+
+            List<String> modificados = new ArrayList<>();
+            synchronized (documentos) {
+                //Todas o ninguna: comprobar los update() antes de aplicar nada
+                List<String> inexistentes = new ArrayList<>();
+                for (PlanLote.Escritura escritura : plan.escrituras) {
+                    if (escritura.tipo == PlanLote.Tipo.UPDATE && !documentos.containsKey(escritura.firebaseId)) {
+                        inexistentes.add(escritura.firebaseId);
+                    }
+                }
+                if (!inexistentes.isEmpty()) {
+                    listener.onError("No existen los documentos " + inexistentes, inexistentes);
+                    return;
+                }
+                //Una sola hora de servidor para todo el lote, asignada al confirmarlo
+                Date hora = horaServidor();
+                for (PlanLote.Escritura escritura : plan.escrituras) {
+                    Map<String, Object> documento = escritura.tipo == PlanLote.Tipo.SET
+                            ? new HashMap<>()
+                            : documentos.computeIfAbsent(escritura.firebaseId, id -> new HashMap<>());
+                    documento.putAll(escritura.campos);
+                    documento.put(ACTUALIZADO_SERVIDOR, hora);
+                    documentos.put(escritura.firebaseId, documento);
+                    modificados.add(escritura.firebaseId);
+                }
+            }
+            documentosEscritos.addAndGet(modificados.size());
+
+            listener.onEnviado(plan.huellasNuevas);
+            notificarEscuchas(modificados);
+        });
+    }
+
+    @Override
+    public void descargarRecetasUsuario(long modificadasDesde, OnPaginaListener listener,
+                                        OnErrorListener errorListener) {
+        String usuario = usuarioId;
+        if (usuario == null) {
+            errorListener.onError("Usuario no autenticado");
+            return;
+        }
+
+        //Instantánea ordenada por hora del servidor (equivale a recorrer la consulta con cursor)
+        List<Map<String, Object>> consulta = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        synchronized (documentos) {
+            List<Map.Entry<String, Map<String, Object>>> entradas = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Object>> entrada : documentos.entrySet()) {
+                if (coincide(entrada.getValue(), usuario, modificadasDesde)) {
+                    entradas.add(entrada);
+                }
+            }
+            entradas.sort((a, b) -> {
+                int porFecha = Long.compare(fecha(a.getValue()), fecha(b.getValue()));
+                return porFecha != 0 ? porFecha : a.getKey().compareTo(b.getKey());
+            });
+            for (Map.Entry<String, Map<String, Object>> entrada : entradas) {
+                ids.add(entrada.getKey());
+                consulta.add(new HashMap<>(entrada.getValue()));
+            }
+        }
+        descargarPagina(consulta, ids, 0, 1, listener, errorListener);
+    }
+
+    //Entrega una página; la siguiente se prepara cuando el listener da esta por procesada
+    //(sin páginas por adelantado: los documentos ya están en memoria)
+    private void descargarPagina(List<Map<String, Object>> consulta, List<String> ids, int inicio,
+                                 int numeroPagina, OnPaginaListener listener,
+                                 OnErrorListener errorListener) {
+        responder(() -> {
+            String fallo = fallo();
+            if (fallo != null) {
+                errorListener.onError(fallo);
+                return;
+            }
+
+            int fin = Math.min(inicio + tamPagina, consulta.size());
+            boolean hayMas = fin - inicio == tamPagina;
+            List<Receta> recetas = new ArrayList<>(fin - inicio);
+            for (int i = inicio; i < fin; i++) {
+                recetas.add(aReceta(ids.get(i), consulta.get(i)));
+            }
+            documentosLeidos.addAndGet(recetas.size());
+            listener.onPagina(recetas, numeroPagina, hayMas, () -> {
+                if (hayMas) {
+                    descargarPagina(consulta, ids, fin, numeroPagina + 1, listener, errorListener);
+                }
+            });
+        });
+    }
+
+    @Override
+    public Suscripcion escucharCambios(long modificadasDesde, OnCambiosListener listener,
+                                       OnErrorListener errorListener) {
+        String usuario = usuarioId;
+        if (usuario == null) {
+            errorListener.onError("Usuario no autenticado");
+            return null;
+        }
+
+        Escucha escucha = new Escucha(usuario, modificadasDesde, listener);
+        escuchas.add(escucha);
+
+        //Primer snapshot: los documentos modificados desde la marca
+        responder(() -> {
+            if (!escucha.activa) return;
+            List<Receta> iniciales = new ArrayList<>();
+            synchronized (documentos) {
+                for (Map.Entry<String, Map<String, Object>> entrada : documentos.entrySet()) {
+                    if (coincide(entrada.getValue(), usuario, modificadasDesde)) {
+                        iniciales.add(aReceta(entrada.getKey(), entrada.getValue()));
+                    }
+                }
+            }
+            documentosLeidos.addAndGet(iniciales.size());
+            if (!iniciales.isEmpty()) {
+                listener.onCambios(new CambiosRemotos(iniciales, new ArrayList<>()));
+            }
+        });
+
+        return () -> {
+            escucha.activa = false;
+            escuchas.remove(escucha);
+        };
+    }
+
+    //==================== UTILIDADES ====================
+
+    //Entrega una respuesta tras la latencia configurada, en el hilo de la fuente
+    private void responder(Runnable respuesta) {
+        ejecutor.execute(() -> {
+            if (latenciaMs > 0) {
+                try {
+                    Thread.sleep(latenciaMs);
+                } catch (InterruptedException interrupcion) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            respuesta.run();
+        });
+    }
+
+    //Decide si la llamada actual falla (sin conexión o por la tasa de fallos)
+    private String fallo() {
+        if (!conectado) return "Sin conexión";
+        synchronized (aleatorio) {
+            return aleatorio.nextDouble() < tasaFallos ? "Fallo simulado" : null;
+        }
+    }
+
+    //Envía a cada escucha activa los documentos de su usuario afectados por un lote
+    //(las lápidas llegan entre las modificadas, como un MODIFIED de Firestore)
+    private void notificarEscuchas(List<String> modificados) {
+        for (Escucha escucha : escuchas) {
+            List<Receta> cambiadas = new ArrayList<>();
+            synchronized (documentos) {
+                for (String id : modificados) {
+                    Map<String, Object> documento = documentos.get(id);
+                    if (documento != null && coincide(documento, escucha.usuario, escucha.desde)) {
+                        cambiadas.add(aReceta(id, documento));
+                    }
+                }
+            }
+            CambiosRemotos cambios = new CambiosRemotos(cambiadas, new ArrayList<>());
+            if (escucha.activa && !cambios.isEmpty()) {
+                documentosLeidos.addAndGet(cambiadas.size());
+                escucha.listener.onCambios(cambios);
+            }
+        }
+    }
+
+    //Documento del usuario escrito en el servidor desde la hora indicada (0 = cualquiera)
+    private static boolean coincide(Map<String, Object> documento, String usuario, long desde) {
+        return usuario.equals(documento.get(USUARIO_ID)) && (desde <= 0 || fecha(documento) >= desde);
+    }
+
+    private static long fecha(Map<String, Object> documento) {
+        Object valor = documento.get(ACTUALIZADO_SERVIDOR);
+        return valor instanceof Date ? ((Date) valor).getTime() : 0L;
+    }
+
+    //Siguiente hora del servidor: la del sistema, o la anterior + 1 ms si no ha avanzado
+    private Date horaServidor() {
+        long ahora = System.currentTimeMillis();
+        return new Date(relojServidor.updateAndGet(anterior -> Math.max(ahora, anterior + 1)));
+    }
+
+    private Receta aReceta(String id, Map<String, Object> documento) {
+        Receta receta = mapeador.fromMap(documento);
+        receta.setFirebaseId(id);
+        return receta;
+    }
+
+    //Escucha registrada con su filtro
+    private static final class Escucha {
+        final String usuario;
+        final long desde;
+        final OnCambiosListener listener;
+        volatile boolean activa = true;
+
+        Escucha(String usuario, long desde, OnCambiosListener listener) {
+            this.usuario = usuario;
+            this.desde = desde;
+            this.listener = listener;
+        }
+    }
+}
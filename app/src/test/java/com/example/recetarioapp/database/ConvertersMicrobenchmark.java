@@ -0,0 +1,113 @@
+package com.example.recetarioapp.database;
+
+import com.example.recetarioapp.models.Ingrediente;
+import com.example.recetarioapp.models.Paso;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+//Microbenchmark de decodificación por receta: antes (Gson + TypeToken por llamada)
+//y después (JsonReader en streaming y formato binario de tags)
+//- Mide nanosegundos y bytes asignados por receta (asignación por hilo de la JVM HotSpot)
+//- Imprime los resultados; no falla por tiempos (dependen de la máquina), solo comprueba
+//  que todos los códecs decodifican lo mismo
+//- Fuera de la tarea de pruebas por defecto (ver testOptions en app/build.gradle)
+//Ejecutar: ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ConvertersMicrobenchmark" -i
+public class ConvertersMicrobenchmark {
+
+    private static final int CALENTAMIENTO = 20_000;
+    private static final int ITERACIONES = 100_000;
+
+    //Receta típica: 6 etiquetas, 8 ingredientes y 6 pasos (formato JSON de las columnas antiguas)
+    private static final String TAGS_JSON =
+            "[\"postre\",\"sin gluten\",\"rápido\",\"horno\",\"chocolate\",\"familiar\"]";
+    private static final String INGREDIENTES_JSON = construirIngredientes(8);
+    private static final String PASOS_JSON = construirPasos(6);
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void decodificacionPorReceta() {
+        byte[] tagsJsonUtf8 = TAGS_JSON.getBytes(StandardCharsets.UTF_8);
+        byte[] tagsBinario = Converters.codificarListaBinaria(Converters.jsonToListString(TAGS_JSON));
+
+        //Antes: reflexión de Gson con un TypeToken nuevo en cada llamada
+        Supplier<Object> antes = () -> {
+            List<String> tags = gson.fromJson(TAGS_JSON, new TypeToken<List<String>>() {}.getType());
+            List<Ingrediente> ingredientes =
+                    gson.fromJson(INGREDIENTES_JSON, new TypeToken<List<Ingrediente>>() {}.getType());
+            List<Paso> pasos = gson.fromJson(PASOS_JSON, new TypeToken<List<Paso>>() {}.getType());
+            return tags.size() + ingredientes.size() + pasos.size();
+        };
+        //Después, filas antiguas: códecs en streaming (tags aún en JSON)
+        Supplier<Object> streaming = () -> Converters.blobToTags(tagsJsonUtf8).size()
+                + Converters.fromIngredientesList(INGREDIENTES_JSON).size()
+                + Converters.fromPasosList(PASOS_JSON).size();
+        //Después, filas migradas: tags en binario (ingredientes y pasos ya viven en sus tablas)
+        Supplier<Object> binario = () -> Converters.blobToTags(tagsBinario).size();
+
+        assertEquals(antes.get(), streaming.get());
+        assertEquals(6, binario.get());
+
+        medir("antes (Gson + TypeToken)", antes);
+        medir("streaming JsonReader", streaming);
+        medir("tags binario", binario);
+    }
+
+    //==================== UTILIDADES ====================
+
+    private static void medir(String nombre, Supplier<Object> decodificar) {
+        long sumidero = 0;
+        for (int i = 0; i < CALENTAMIENTO; i++) sumidero += decodificar.get().hashCode();
+
+        long bytesAntes = bytesAsignados();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) sumidero += decodificar.get().hashCode();
+        long nanos = System.nanoTime() - inicio;
+        long bytes = bytesAsignados() - bytesAntes;
+
+        System.out.println(String.format(Locale.ROOT,
+                "%-26s %8.0f ns/receta  %10.0f recetas/s  %7s B/receta  (%d)",
+                nombre, (double) nanos / ITERACIONES, ITERACIONES * 1e9 / nanos,
+                bytes >= 0 ? String.valueOf(bytes / ITERACIONES) : "n/d", sumidero));
+    }
+
+    //Bytes asignados por el hilo actual (-1 si la JVM no lo permite)
+    private static long bytesAsignados() {
+        ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        if (hilos instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) hilos)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static String construirIngredientes(int total) {
+        List<String> objetos = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            objetos.add("{\"id\":" + i + ",\"recetaId\":1,\"orden\":" + i + ",\"nombre\":\"Ingrediente " + i
+                    + "\",\"cantidad\":\"" + (i + 1) * 50 + " g\",\"notasOpcionales\":\"Tamizado\"}");
+        }
+        return "[" + String.join(",", objetos) + "]";
+    }
+
+    private static String construirPasos(int total) {
+        List<String> objetos = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            objetos.add("{\"id\":" + i + ",\"recetaId\":1,\"numeroPaso\":" + (i + 1)
+                    + ",\"descripcion\":\"Mezclar los ingredientes del paso " + (i + 1) + " con cuidado\"}");
+        }
+        return "[" + String.join(",", objetos) + "]";
+    }
+}
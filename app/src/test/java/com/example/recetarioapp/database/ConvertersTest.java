@@ -0,0 +1,159 @@
+package com.example.recetarioapp.database;
+
+import com.example.recetarioapp.models.Ingrediente;
+import com.example.recetarioapp.models.Paso;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+//Ida y vuelta de los códecs de Converters (JSON y formato binario de tags)
+public class ConvertersTest {
+
+    @After
+    public void restaurarFormato() {
+        Converters.setFormatoBinario(false);
+    }
+
+    //==================== FORMATO BINARIO ====================
+
+    @Test
+    public void binario_listaVacia() {
+        Converters.setFormatoBinario(true);
+        byte[] blob = Converters.tagsToBlob(new ArrayList<>());
+        assertTrue(Converters.esFormatoBinario(blob));
+        assertEquals(Collections.emptyList(), Converters.blobToTags(blob));
+    }
+
+    @Test
+    public void binario_listaNullYBlobNull() {
+        Converters.setFormatoBinario(true);
+        assertNull(Converters.tagsToBlob(null));
+        assertEquals(Collections.emptyList(), Converters.blobToTags(null));
+        assertEquals(Collections.emptyList(), Converters.blobToTags(new byte[0]));
+    }
+
+    @Test
+    public void binario_elementosNullYVacios() {
+        List<String> tags = Arrays.asList("a", null, "", "b");
+        assertEquals(tags, Converters.decodificarListaBinaria(Converters.codificarListaBinaria(tags)));
+    }
+
+    @Test
+    public void binario_etiquetasNoAscii() {
+        List<String> tags = Arrays.asList("ñoquis", "crème brûlée", "寿司", "🍰 tarta");
+        assertEquals(tags, Converters.decodificarListaBinaria(Converters.codificarListaBinaria(tags)));
+    }
+
+    @Test
+    public void binario_varintsDeVariosBytes() {
+        //Longitudes de 127/128 (límite de 1 byte) y 20000 (3 bytes); 300 elementos (2 bytes)
+        List<String> tags = new ArrayList<>();
+        tags.add(repetir('a', 126)); //longitud+1 = 127 → 1 byte
+        tags.add(repetir('b', 127)); //longitud+1 = 128 → 2 bytes
+        tags.add(repetir('c', 20000));
+        for (int i = 0; i < 297; i++) tags.add("t" + i);
+
+        byte[] blob = Converters.codificarListaBinaria(tags);
+        assertEquals((byte) 0xAC, blob[2]); //300 = 0b10_0101100 → 0xAC 0x02
+        assertEquals((byte) 0x02, blob[3]);
+        assertEquals(tags, Converters.decodificarListaBinaria(blob));
+    }
+
+    @Test
+    public void binario_esEstableParaLaMismaLista() {
+        List<String> tags = Arrays.asList("vegano", "rápido");
+        assertArrayEquals(Converters.codificarListaBinaria(tags), Converters.codificarListaBinaria(tags));
+    }
+
+    //==================== COMPATIBILIDAD CON JSON ====================
+
+    @Test
+    public void jsonAntiguo_seLeeConFormatoBinarioActivado() {
+        Converters.setFormatoBinario(true);
+        byte[] antiguo = "[\"postre\",\"sin gluten\",null]".getBytes(StandardCharsets.UTF_8);
+        assertFalse(Converters.esFormatoBinario(antiguo));
+        assertEquals(Arrays.asList("postre", "sin gluten", null), Converters.blobToTags(antiguo));
+    }
+
+    @Test
+    public void jsonAntiguo_literalNull() {
+        assertEquals(Collections.emptyList(),
+                Converters.blobToTags("null".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void formatoJson_idaYVuelta() {
+        Converters.setFormatoBinario(false);
+        List<String> tags = Arrays.asList("ñ", "\"comillas\"", "barra\\");
+        byte[] blob = Converters.tagsToBlob(tags);
+        assertFalse(Converters.esFormatoBinario(blob));
+        assertEquals(tags, Converters.blobToTags(blob));
+    }
+
+    @Test
+    public void ingredientesYPasosAntiguos_ignoranCamposDesconocidos() {
+        List<Ingrediente> ingredientes = Converters.fromIngredientesList(
+                "[{\"nombre\":\"Harina\",\"cantidad\":\"200 g\",\"id\":7},null]");
+        assertEquals(1, ingredientes.size());
+        assertEquals("Harina", ingredientes.get(0).getNombre());
+        assertEquals("200 g", ingredientes.get(0).getCantidad());
+
+        List<Paso> pasos = Converters.fromPasosList("[{\"numeroPaso\":2,\"descripcion\":\"Hornear\",\"x\":[1]}]");
+        assertEquals(1, pasos.size());
+        assertEquals(2, pasos.get(0).getNumeroPaso());
+        assertEquals("Hornear", pasos.get(0).getDescripcion());
+    }
+
+    //==================== DATOS CORRUPTOS ====================
+
+    @Test
+    public void corrupto_marcaDesconocida() {
+        assertFallaAlLeer(new byte[]{0x7F, 0x01, 0x00});
+    }
+
+    @Test
+    public void corrupto_versionDesconocida() {
+        assertFallaAlLeer(new byte[]{0x00, 0x09, 0x00});
+    }
+
+    @Test
+    public void corrupto_listaTruncada() {
+        byte[] blob = Converters.codificarListaBinaria(Arrays.asList("tarta", "flan"));
+        assertFallaAlLeer(Arrays.copyOf(blob, blob.length - 2));
+    }
+
+    @Test
+    public void corrupto_varintSinFin() {
+        assertFallaAlLeer(new byte[]{0x00, 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01});
+    }
+
+    //==================== UTILIDADES ====================
+
+    private static void assertFallaAlLeer(byte[] blob) {
+        try {
+            Converters.blobToTags(blob);
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException esperada) {
+            //Correcto: MigradorFormatoTags la captura y vacía la fila
+        }
+    }
+
+    private static String repetir(char c, int veces) {
+        char[] caracteres = new char[veces];
+        Arrays.fill(caracteres, c);
+        return new String(caracteres);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.recetarioapp.database;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Conversión de una fila de tags al formato binario (la parte de MigradorFormatoTags sin SQLite)
+public class MigradorFormatoTagsTest {
+
+    @Test
+    public void jsonAntiguo_seConvierteABinarioConLasMismasEtiquetas() {
+        byte[] antiguo = "[\"ñoquis\",\"vegano\",null]".getBytes(StandardCharsets.UTF_8);
+        byte[] convertido = MigradorFormatoTags.convertirValor(1, antiguo);
+        assertTrue(Converters.esFormatoBinario(convertido));
+        assertEquals(Arrays.asList("ñoquis", "vegano", null), Converters.blobToTags(convertido));
+    }
+
+    //Aunque la escritura en binario esté desactivada, el migrador siempre escribe binario
+    //(si no, la consulta de pendientes volvería a encontrar la misma fila sin fin)
+    @Test
+    public void convierteABinarioSinDependerDelFormatoActivo() {
+        Converters.setFormatoBinario(false);
+        byte[] convertido = MigradorFormatoTags.convertirValor(1, "[\"a\"]".getBytes(StandardCharsets.UTF_8));
+        assertTrue(Converters.esFormatoBinario(convertido));
+    }
+
+    @Test
+    public void filaIlegible_seVaciaEnLugarDeFallar() {
+        byte[] convertido = MigradorFormatoTags.convertirValor(1, "[\"sin cerrar".getBytes(StandardCharsets.UTF_8));
+        assertTrue(Converters.esFormatoBinario(convertido));
+        assertEquals(Collections.emptyList(), Converters.blobToTags(convertido));
+    }
+
+    @Test
+    public void valorNull_seConvierteEnListaVacia() {
+        byte[] convertido = MigradorFormatoTags.convertirValor(1, null);
+        assertTrue(Converters.esFormatoBinario(convertido));
+        assertEquals(Collections.emptyList(), Converters.blobToTags(convertido));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.recetarioapp.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+//Reconocimiento de rutas del almacén direccionado por contenido (Imagen.hashDeRuta)
+public class ImagenTest {
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef";
+
+    @Test
+    public void rutaConHash_devuelveElHash() {
+        assertEquals(HASH, Imagen.hashDeRuta("/data/files/recetas_images/" + HASH + ".jpg"));
+        assertEquals(HASH, Imagen.hashDeRuta(HASH + ".jpg"));
+    }
+
+    @Test
+    public void rendiciones_noSonImagenesCompletas() {
+        assertNull(Imagen.hashDeRuta("/data/files/recetas_images/" + HASH + "_mini.jpg"));
+        assertNull(Imagen.hashDeRuta("/data/files/recetas_images/" + HASH + "_detalle.jpg"));
+    }
+
+    @Test
+    public void rutasAjenas_devuelvenNull() {
+        assertNull(Imagen.hashDeRuta(null));
+        assertNull(Imagen.hashDeRuta("content://media/external/images/media/42"));
+        assertNull(Imagen.hashDeRuta("/data/files/recetas_images/3f2a9c1e-7b4d-4e8a-9f0c-1d2e3f4a5b6c.jpg"));
+        assertNull(Imagen.hashDeRuta("/data/files/recetas_images/" + HASH + ".png"));
+    }
+
+    @Test
+    public void longitudOCaracteresIncorrectos_devuelvenNull() {
+        assertNull(Imagen.hashDeRuta(HASH.substring(1) + ".jpg"));
+        assertNull(Imagen.hashDeRuta(HASH + "0.jpg"));
+        assertNull(Imagen.hashDeRuta(HASH.toUpperCase() + ".jpg"));
+        assertNull(Imagen.hashDeRuta(HASH.substring(1) + "g.jpg"));
+    }
+}
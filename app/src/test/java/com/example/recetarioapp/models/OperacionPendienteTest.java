@@ -0,0 +1,51 @@
+package com.example.recetarioapp.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Política de reintentos de la cola de salida: espera creciente y lotes cada vez más pequeños
+public class OperacionPendienteTest {
+
+    private static final int MAXIMO = 500;
+
+    @Test
+    public void espera_sinFallosEsCero() {
+        assertEquals(0, OperacionPendiente.esperaTrasFallos(0));
+    }
+
+    @Test
+    public void espera_seDuplicaConCadaFallo() {
+        assertEquals(5_000, OperacionPendiente.esperaTrasFallos(1));
+        assertEquals(10_000, OperacionPendiente.esperaTrasFallos(2));
+        assertEquals(20_000, OperacionPendiente.esperaTrasFallos(3));
+    }
+
+    @Test
+    public void espera_tieneTope() {
+        long tope = 60L * 60 * 1000;
+        assertTrue(OperacionPendiente.esperaTrasFallos(OperacionPendiente.MAX_INTENTOS) <= tope);
+        assertEquals(tope, OperacionPendiente.esperaTrasFallos(1000)); //Sin desbordar el desplazamiento
+    }
+
+    @Test
+    public void lote_completoSinFallos() {
+        assertEquals(MAXIMO, OperacionPendiente.loteTrasFallos(MAXIMO, 0));
+    }
+
+    @Test
+    public void lote_seParteConCadaFallo() {
+        assertEquals(250, OperacionPendiente.loteTrasFallos(MAXIMO, 1));
+        assertEquals(125, OperacionPendiente.loteTrasFallos(MAXIMO, 2));
+    }
+
+    //Antes de apartarse, la operación problemática llega a enviarse sola
+    @Test
+    public void lote_llegaAUnaOperacionAntesDeApartarse() {
+        int fallos = 0;
+        while (OperacionPendiente.loteTrasFallos(MAXIMO, fallos) > 1) fallos++;
+        assertTrue(fallos < OperacionPendiente.MAX_INTENTOS);
+        assertEquals(1, OperacionPendiente.loteTrasFallos(MAXIMO, 1000));
+    }
+}
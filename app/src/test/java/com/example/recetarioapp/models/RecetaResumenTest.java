@@ -0,0 +1,67 @@
+package com.example.recetarioapp.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+//Comparación de DiffUtil entre dos versiones de la misma tarjeta (RecetaAdapter.DIFF_CALLBACK)
+public class RecetaResumenTest {
+
+    @Test
+    public void conHash_bastaCompararlo() {
+        RecetaResumen antes = resumen(11);
+        RecetaResumen despues = resumen(11);
+        despues.setDescripcion("Otra"); //Imposible con el mismo hash, pero demuestra que no se mira
+        assertTrue(antes.mismoContenidoVisible(despues));
+        assertFalse(antes.mismoContenidoVisible(resumen(12)));
+    }
+
+    @Test
+    public void favoritoDistinto_noEsIgual() {
+        RecetaResumen despues = resumen(11);
+        despues.setFav(true);
+        assertFalse(resumen(11).mismoContenidoVisible(despues));
+    }
+
+    //Filas sin hash (anteriores a la migración 8 → 9): cualquier columna visible cuenta
+    @Test
+    public void sinHash_comparaTodasLasColumnasVisibles() {
+        assertTrue(resumen(0).mismoContenidoVisible(resumen(0)));
+
+        RecetaResumen otraImagen = resumen(0);
+        otraImagen.setImagenPortadaURL("/imagenes/otra.jpg");
+        assertFalse(resumen(0).mismoContenidoVisible(otraImagen));
+
+        RecetaResumen otroTiempo = resumen(0);
+        otroTiempo.setTiempoPreparacion(45);
+        assertFalse(resumen(0).mismoContenidoVisible(otroTiempo));
+
+        RecetaResumen otraDescripcion = resumen(0);
+        otraDescripcion.setDescripcion(null);
+        assertFalse(resumen(0).mismoContenidoVisible(otraDescripcion));
+    }
+
+    //Un lado sin hash: no se puede fiar de la comparación de hashes
+    @Test
+    public void unHashSinCalcular_comparaColumnas() {
+        assertTrue(resumen(0).mismoContenidoVisible(resumen(99)));
+        RecetaResumen cambiada = resumen(99);
+        cambiada.setCategoria("Postres");
+        assertFalse(resumen(0).mismoContenidoVisible(cambiada));
+    }
+
+    private static RecetaResumen resumen(long hash) {
+        RecetaResumen resumen = new RecetaResumen();
+        resumen.setId(1);
+        resumen.setNombre("Tortilla");
+        resumen.setDescripcion("De patata");
+        resumen.setImagenPortadaURL("/imagenes/tortilla.jpg");
+        resumen.setTiempoPreparacion(30);
+        resumen.setPorciones(4);
+        resumen.setDificultad("Media");
+        resumen.setCategoria("Principales");
+        resumen.setHashContenido(hash);
+        return resumen;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.recetarioapp.repository.remote;
+
+import com.example.recetarioapp.models.HuellaSincronizada;
+import com.example.recetarioapp.models.OperacionPendiente;
+import com.example.recetarioapp.models.Receta;
+import com.example.recetarioapp.repository.mappers.RecetaMapper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.example.recetarioapp.models.RecetasDePrueba.receta;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Decisión de escritura de un lote (PlanLote), común a FirebaseDataSource y a la fuente en memoria
+public class PlanLoteTest {
+
+    private static final String USUARIO = "usuario";
+
+    private final RecetaMapper mapeador = new RecetaMapper();
+
+    @Test
+    public void crear_subeElDocumentoCompleto() {
+        Receta tarta = guardada(1, "Tarta");
+        PlanLote plan = planificar(operacion(1, OperacionPendiente.CREAR), tarta, null);
+
+        assertEquals(1, plan.escrituras.size());
+        assertEquals(PlanLote.Tipo.SET, plan.escrituras.get(0).tipo);
+        assertEquals(USUARIO, plan.escrituras.get(0).campos.get("usuarioId"));
+        assertEquals(1, plan.huellasNuevas.size());
+    }
+
+    @Test
+    public void actualizar_subeSoloLosCamposCambiados() {
+        Receta tarta = guardada(1, "Tarta");
+        HuellaSincronizada anterior = huella(tarta, RecetaMapper.VERSION_ESQUEMA);
+        tarta.setPorciones(8);
+
+        PlanLote plan = planificar(operacion(1, OperacionPendiente.ACTUALIZAR), tarta, anterior);
+
+        PlanLote.Escritura escritura = plan.escrituras.get(0);
+        assertEquals(PlanLote.Tipo.UPDATE, escritura.tipo);
+        assertTrue(escritura.campos.containsKey("porciones"));
+        assertTrue(!escritura.campos.containsKey("nombre"));
+    }
+
+    @Test
+    public void actualizarSinCambios_noEscribeNada() {
+        Receta tarta = guardada(1, "Tarta");
+        PlanLote plan = planificar(operacion(1, OperacionPendiente.ACTUALIZAR), tarta,
+                huella(tarta, RecetaMapper.VERSION_ESQUEMA));
+
+        assertTrue(plan.escrituras.isEmpty());
+        assertTrue(plan.huellasNuevas.isEmpty());
+    }
+
+    @Test
+    public void huellaDeOtroEsquema_subeElDocumentoCompleto() {
+        Receta tarta = guardada(1, "Tarta");
+        PlanLote plan = planificar(operacion(1, OperacionPendiente.ACTUALIZAR), tarta,
+                huella(tarta, RecetaMapper.VERSION_ESQUEMA - 1));
+
+        assertEquals(PlanLote.Tipo.SET, plan.escrituras.get(0).tipo);
+    }
+
+    @Test
+    public void eliminar_escribeUnaLapidaSinHuella() {
+        PlanLote plan = planificar(operacion(1, OperacionPendiente.ELIMINAR), null, null);
+
+        PlanLote.Escritura escritura = plan.escrituras.get(0);
+        assertEquals(PlanLote.Tipo.LAPIDA, escritura.tipo);
+        assertEquals(Boolean.TRUE, escritura.campos.get(RecetaMapper.CAMPO_ELIMINADA));
+        assertEquals(USUARIO, escritura.campos.get("usuarioId"));
+        assertTrue(plan.huellasNuevas.isEmpty());
+    }
+
+    @Test
+    public void sinFirebaseIdOSinReceta_seOmiten() {
+        OperacionPendiente sinDocumento = new OperacionPendiente(1, null, OperacionPendiente.ELIMINAR, USUARIO);
+        OperacionPendiente sinReceta = operacion(2, OperacionPendiente.CREAR);
+        PlanLote plan = PlanLote.planificar(Arrays.asList(sinDocumento, sinReceta), new HashMap<>(),
+                new HashMap<>(), USUARIO, mapeador);
+
+        assertTrue(plan.escrituras.isEmpty());
+    }
+
+    //==================== UTILIDADES ====================
+
+    private PlanLote planificar(OperacionPendiente operacion, Receta receta, HuellaSincronizada anterior) {
+        Map<Long, Receta> recetas = new HashMap<>();
+        if (receta != null) recetas.put(operacion.getRecetaId(), receta);
+        Map<Long, HuellaSincronizada> huellas = new HashMap<>();
+        if (anterior != null) huellas.put(operacion.getRecetaId(), anterior);
+        return PlanLote.planificar(Collections.singletonList(operacion), recetas, huellas, USUARIO, mapeador);
+    }
+
+    private static OperacionPendiente operacion(long recetaId, String tipo) {
+        return new OperacionPendiente(recetaId, "doc" + recetaId, tipo, USUARIO);
+    }
+
+    private static Receta guardada(long id, String nombre) {
+        Receta receta = receta(nombre, 1_000);
+        receta.setId(id);
+        receta.setUsuarioId(USUARIO);
+        return receta;
+    }
+
+    //Huella de la receta tal como está ahora (lo último subido)
+    private HuellaSincronizada huella(Receta receta, int esquema) {
+        HuellaSincronizada huella = new HuellaSincronizada();
+        huella.setRecetaId(receta.getId());
+        huella.setEsquema(esquema);
+        huella.setHuellas(mapeador.codificarHuellas(mapeador.huellas(mapeador.toMap(receta))));
+        return huella;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.recetarioapp.repository.storage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+//Núcleo del recolector (RecolectorImagenes.recolectar) sobre un directorio temporal, sin Room
+public class RecolectorImagenesTest {
+
+    private static final String HASH_A = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    private static final String HASH_B = "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb";
+    private static final long DIA_MS = 24L * 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    private File directorio;
+    private long ahora;
+    private long limite;
+
+    @Before
+    public void preparar() {
+        directorio = carpeta.getRoot();
+        ahora = System.currentTimeMillis();
+        limite = ahora - DIA_MS;
+    }
+
+    @Test
+    public void nombreCompleta_quitaElSufijoDeRendicion() {
+        assertEquals(HASH_A + ".jpg", RecolectorImagenes.nombreCompleta(HASH_A + "_mini.jpg"));
+        assertEquals(HASH_A + ".jpg", RecolectorImagenes.nombreCompleta(HASH_A + "_detalle.jpg"));
+        assertEquals(HASH_A + ".jpg", RecolectorImagenes.nombreCompleta(HASH_A + ".jpg"));
+    }
+
+    @Test
+    public void protegidas_conservanSusRendiciones() throws IOException {
+        crearAntiguos(HASH_A + ".jpg", HASH_A + "_mini.jpg", HASH_A + "_detalle.jpg",
+                HASH_B + ".jpg", HASH_B + "_mini.jpg");
+
+        RecolectorImagenes.Resultado resultado = recolectar(protegidos(HASH_A + ".jpg"), "", 100, 100);
+
+        assertEquals(new HashSet<>(Arrays.asList(HASH_B + ".jpg", HASH_B + "_mini.jpg")),
+                new HashSet<>(resultado.borrados));
+        assertTrue(existe(HASH_A + "_mini.jpg"));
+        assertTrue(existe(HASH_A + "_detalle.jpg"));
+        assertFalse(existe(HASH_B + "_mini.jpg"));
+    }
+
+    @Test
+    public void recientes_noSeBorranAunqueSeanHuerfanas() throws IOException {
+        crear(HASH_A + ".jpg", ahora);
+        crear(HASH_B + ".jpg", limite - 1);
+
+        RecolectorImagenes.Resultado resultado = recolectar(Collections.emptySet(), "", 100, 100);
+
+        assertEquals(Collections.singletonList(HASH_B + ".jpg"), resultado.borrados);
+        assertTrue(existe(HASH_A + ".jpg"));
+    }
+
+    @Test
+    public void temporalesAntiguos_seBorranAunqueSuNombreEsteProtegido() throws IOException {
+        String temporalAntiguo = HASH_A + ".jpg.1234.tmp";
+        String temporalReciente = HASH_A + ".jpg.5678.tmp";
+        crearAntiguos(HASH_A + ".jpg", temporalAntiguo);
+        crear(temporalReciente, ahora);
+
+        RecolectorImagenes.Resultado resultado = recolectar(protegidos(HASH_A + ".jpg"), "", 100, 100);
+
+        assertEquals(Collections.singletonList(temporalAntiguo), resultado.borrados);
+        assertTrue(existe(HASH_A + ".jpg"));
+        assertTrue(existe(temporalReciente));
+    }
+
+    @Test
+    public void maxExaminados_reanudaDesdeElCursorYVuelveAEmpezar() throws IOException {
+        for (int i = 0; i < 5; i++) crear("protegida" + i + ".jpg", limite - 1);
+        Set<String> todas = new HashSet<>(Arrays.asList(directorio.list()));
+
+        RecolectorImagenes.Resultado primera = recolectar(todas, "", 2, 100);
+        assertEquals(2, primera.examinados);
+        assertFalse(primera.vueltaCompleta);
+        assertEquals("protegida1.jpg", primera.siguienteCursor);
+
+        RecolectorImagenes.Resultado segunda = recolectar(todas, primera.siguienteCursor, 2, 100);
+        assertEquals(2, segunda.examinados);
+        assertEquals("protegida3.jpg", segunda.siguienteCursor);
+
+        //Último tramo: la vuelta termina y el cursor vuelve al principio
+        RecolectorImagenes.Resultado tercera = recolectar(todas, segunda.siguienteCursor, 2, 100);
+        assertEquals(1, tercera.examinados);
+        assertTrue(tercera.vueltaCompleta);
+        assertEquals("", tercera.siguienteCursor);
+        assertEquals(5, directorio.list().length);
+    }
+
+    @Test
+    public void maxBorrados_cortaLaPasadaYLaSiguienteContinua() throws IOException {
+        for (int i = 0; i < 5; i++) crear("huerfana" + i + ".jpg", limite - 1);
+
+        RecolectorImagenes.Resultado primera = recolectar(Collections.emptySet(), "", 100, 2);
+        assertEquals(Arrays.asList("huerfana0.jpg", "huerfana1.jpg"), primera.borrados);
+        assertFalse(primera.vueltaCompleta);
+        assertEquals("huerfana1.jpg", primera.siguienteCursor);
+
+        RecolectorImagenes.Resultado segunda = recolectar(Collections.emptySet(), primera.siguienteCursor, 100, 2);
+        assertEquals(Arrays.asList("huerfana2.jpg", "huerfana3.jpg"), segunda.borrados);
+
+        RecolectorImagenes.Resultado tercera = recolectar(Collections.emptySet(), segunda.siguienteCursor, 100, 2);
+        assertEquals(Collections.singletonList("huerfana4.jpg"), tercera.borrados);
+        assertTrue(tercera.vueltaCompleta);
+        assertEquals(0, directorio.list().length);
+    }
+
+    //==================== UTILIDADES ====================
+
+    private RecolectorImagenes.Resultado recolectar(Set<String> protegidos, String cursor,
+                                                    int maxExaminados, int maxBorrados) {
+        return RecolectorImagenes.recolectar(RecolectorImagenes.LISTADO_COMPLETO, directorio, protegidos,
+                limite, cursor, maxExaminados, maxBorrados);
+    }
+
+    private void crearAntiguos(String... nombres) throws IOException {
+        for (String nombre : nombres) crear(nombre, limite - 1);
+    }
+
+    private void crear(String nombre, long modificado) throws IOException {
+        File archivo = new File(directorio, nombre);
+        assertTrue(archivo.createNewFile());
+        assertTrue(archivo.setLastModified(modificado));
+    }
+
+    private boolean existe(String nombre) {
+        return new File(directorio, nombre).exists();
+    }
+
+    private static Set<String> protegidos(String... nombres) {
+        return new HashSet<>(Arrays.asList(nombres));
+    }
+}